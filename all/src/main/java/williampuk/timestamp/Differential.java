@@ -0,0 +1,30 @@
+package williampuk.timestamp;
+
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.diff.DifferentialRunner;
+
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs the same timestamp inputs against Oracle, MySQL and Postgres side by side and prints where they diverge, see
+ * {@link DifferentialRunner}.
+ */
+public class Differential {
+
+    /**
+     * @param args optionally, the number of inputs (100000 by default) and the calendar time zone
+     *             (America/New_York by default)
+     */
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        final int inputs = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final ZoneId zone = ZoneId.of(args.length > 1 ? args[1] : "America/New_York");
+        final Map<String, DbConnSupplier> databases = new LinkedHashMap<>();
+        databases.put("Oracle", Oracle::getConnection);
+        databases.put("MySQL", MySql::getConnection);
+        databases.put("Postgres", Postgres::getConnection);
+        new DifferentialRunner(zone, inputs).run(databases).print(System.out);
+    }
+}
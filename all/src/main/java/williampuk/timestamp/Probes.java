@@ -0,0 +1,40 @@
+package williampuk.timestamp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs the Oracle, MySQL and Postgres probes at the same time, each on its own thread. The probes take the client
+ * time zone as a parameter instead of changing the JVM default, so they do not disturb one another.
+ */
+public class Probes {
+
+    /**
+     * @param args optionally, the client time zone passed to every probe
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final Map<String, Consumer<String[]>> probes = new LinkedHashMap<>();
+        probes.put("Oracle", Oracle::main);
+        probes.put("MySQL", MySql::main);
+        probes.put("Postgres", Postgres::main);
+        final ExecutorService executor = Executors.newFixedThreadPool(probes.size());
+        try {
+            final Map<String, Future<?>> results = new LinkedHashMap<>();
+            probes.forEach((name, probe) -> results.put(name, executor.submit(() -> probe.accept(args))));
+            for (final Map.Entry<String, Future<?>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    System.err.printf("%s probe failed: %s%n", result.getKey(), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
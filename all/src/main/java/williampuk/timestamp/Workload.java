@@ -0,0 +1,41 @@
+package williampuk.timestamp;
+
+import williampuk.timestamp.bulk.WorkloadGenerator;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dbutils.PooledDbConnSupplier;
+import williampuk.timestamp.dialect.Vendor;
+
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recreates {@code timestamp_test} on Oracle, MySQL and Postgres in turn, fills it with a synthetic workload and
+ * prints the rows and bytes loaded per second, see {@link WorkloadGenerator}.
+ */
+public class Workload {
+
+    /**
+     * @param args optionally, the number of rows (100000 by default), the number of partitions, the seed and the
+     *             time zone whose transitions are covered (America/New_York by default)
+     */
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        final long rows = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        final int partitions = args.length > 1 ? Integer.parseInt(args[1]) : WorkloadGenerator.DEFAULT_PARTITIONS;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : WorkloadGenerator.DEFAULT_SEED;
+        final ZoneId zone = ZoneId.of(args.length > 3 ? args[3] : "America/New_York");
+        final WorkloadGenerator generator = new WorkloadGenerator(TimestampProbe.TABLE, zone, rows, partitions,
+                WorkloadGenerator.DEFAULT_PARALLELISM, seed);
+        final Map<Vendor, DbConnSupplier> databases = new LinkedHashMap<>();
+        databases.put(Vendor.ORACLE, Oracle::getConnection);
+        databases.put(Vendor.MYSQL, MySql::getConnection);
+        databases.put(Vendor.POSTGRES, Postgres::getConnection);
+        for (final Map.Entry<Vendor, DbConnSupplier> database : databases.entrySet()) {
+            try (final PooledDbConnSupplier db = new PooledDbConnSupplier(database.getValue())) {
+                new TimestampProbe(database.getKey(), db).prepareTable();
+                generator.run(db).print(System.out);
+            }
+        }
+    }
+}
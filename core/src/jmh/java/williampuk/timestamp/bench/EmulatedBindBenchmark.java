@@ -0,0 +1,95 @@
+package williampuk.timestamp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.emul.EmulatedDriver;
+import williampuk.timestamp.emul.EmulatedPreparedStatement;
+import williampuk.timestamp.emul.WireFormat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of each way the harness binds a timestamp against the emulator's {@link EmulatedPreparedStatement}, so that no
+ * database is needed. No driver code runs: {@code wireFormat} picks the {@link WireFormat} whose {@code bind*} methods
+ * model what that vendor's driver does, e.g. a new {@code SimpleDateFormat} per call for MySQL, so the numbers compare
+ * the harness's own code paths and only approximate a real driver's share. Run with {@code -prof gc} for the allocation
+ * rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmulatedBindBenchmark {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Param({"ORACLE", "MYSQL", "POSTGRES"})
+    public String wireFormat;
+
+    private Connection conn;
+    private EmulatedPreparedStatement ps;
+    private Timestamp ts;
+    private Calendar nyCal;
+
+    @Setup
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(EmulatedDriver.URL_PREFIX + wireFormat.toLowerCase());
+        ps = conn.prepareStatement("ORACLE".equals(wireFormat) ? "SELECT ? FROM DUAL" : "SELECT ?")
+                .unwrap(EmulatedPreparedStatement.class);
+        ts = Timestamp.valueOf("2021-03-14 02:01:01.123456");
+        nyCal = Calendar.getInstance(TimeZone.getTimeZone(NEW_YORK));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public byte[] setTimestamp() throws SQLException {
+        ps.setTimestamp(1, ts);
+        return ps.getParameter(1);
+    }
+
+    @Benchmark
+    public byte[] setTimestampWithCalendar() throws SQLException {
+        ps.setTimestamp(1, ts, nyCal);
+        return ps.getParameter(1);
+    }
+
+    /**
+     * What the harness used to do: a new {@code Calendar} for every call.
+     */
+    @Benchmark
+    public byte[] setTimestampWithNewCalendar() throws SQLException {
+        ps.setTimestamp(1, ts, Calendar.getInstance(TimeZone.getTimeZone("America/New_York")));
+        return ps.getParameter(1);
+    }
+
+    @Benchmark
+    public byte[] setTimestampWithCodec() throws SQLException {
+        TimestampCodec.setTimestamp(ps, 1, ts, NEW_YORK);
+        return ps.getParameter(1);
+    }
+
+    @Benchmark
+    public byte[] setStringOfLocalDateTime() throws SQLException {
+        ps.setString(1, ts.toInstant().atZone(NEW_YORK).toLocalDateTime().toString());
+        return ps.getParameter(1);
+    }
+
+    @Benchmark
+    public byte[] setStringOfZonedDateTime() throws SQLException {
+        ps.setString(1, ts.toInstant().atZone(NEW_YORK).toString());
+        return ps.getParameter(1);
+    }
+}
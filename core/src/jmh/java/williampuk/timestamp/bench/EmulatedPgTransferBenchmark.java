@@ -0,0 +1,87 @@
+package williampuk.timestamp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import williampuk.timestamp.codec.PgBinaryTimestamp;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.emul.EmulatedDriver;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Properties;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding a Postgres {@code TIMESTAMP} received in text format ({@code prepareThreshold=0}) and in binary
+ * format ({@code prepareThreshold=-1}), measured against the emulator like {@link EmulatedReadBenchmark}: the decoding
+ * is the emulator's model of pgjdbc's, not pgjdbc itself. Run with {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmulatedPgTransferBenchmark {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Param({"TEXT", "BINARY"})
+    public String transfer;
+
+    private Connection conn;
+    private ResultSet rs;
+    private Calendar nyCal;
+    private TimestampCodec nyCodec;
+
+    @Setup
+    public void setUp() throws SQLException {
+        final Properties props = new Properties();
+        props.setProperty("prepareThreshold", "BINARY".equals(transfer) ? "-1" : "0");
+        conn = DriverManager.getConnection(EmulatedDriver.URL_PREFIX + "postgres", props);
+        final PreparedStatement ps = conn.prepareStatement("SELECT TIMESTAMP '2021-03-14 02:01:01.123456'");
+        // Every benchmark reads the first and only row
+        rs = ps.executeQuery();
+        rs.next();
+        nyCal = Calendar.getInstance(TimeZone.getTimeZone(NEW_YORK));
+        nyCodec = TimestampCodec.of(NEW_YORK);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * What pgjdbc does on its own.
+     */
+    @Benchmark
+    public Timestamp getTimestampWithCalendar() throws SQLException {
+        return rs.getTimestamp(1, nyCal);
+    }
+
+    @Benchmark
+    public Timestamp getTimestampWithCodec() throws SQLException {
+        return TimestampCodec.getTimestamp(rs, 1, NEW_YORK);
+    }
+
+    /**
+     * The bytes as received, decoded straight to epoch micros: no {@code Timestamp}, {@code LocalDateTime} or
+     * {@code Calendar}.
+     */
+    @Benchmark
+    public long getEpochMicros() throws SQLException {
+        return PgBinaryTimestamp.getEpochMicros(rs, 1, nyCodec);
+    }
+
+    @Benchmark
+    public String getString() throws SQLException {
+        return rs.getString(1);
+    }
+}
@@ -0,0 +1,90 @@
+package williampuk.timestamp.bench;
+
+import org.openjdk.jmh.annotations.*;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.emul.EmulatedDriver;
+import williampuk.timestamp.emul.EmulatedResultSet;
+import williampuk.timestamp.emul.WireFormat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of each way the harness reads a {@code TIMESTAMP} column against the emulator's {@link EmulatedResultSet}, so
+ * that no database is needed. No driver code runs: {@code wireFormat} picks the {@link WireFormat} whose {@code read*}
+ * methods model what that vendor's driver does, so the numbers compare the harness's own code paths and only
+ * approximate a real driver's share. Run with {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmulatedReadBenchmark {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Param({"ORACLE", "MYSQL", "POSTGRES"})
+    public String wireFormat;
+
+    private Connection conn;
+    private ResultSet rs;
+    private Calendar nyCal;
+
+    @Setup
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(EmulatedDriver.URL_PREFIX + wireFormat.toLowerCase());
+        final String sql = "SELECT TIMESTAMP '2021-03-14 02:01:01.123456' timestamp_val";
+        // Every benchmark reads the first and only row
+        rs = conn.createStatement().executeQuery("ORACLE".equals(wireFormat) ? sql + " FROM DUAL" : sql);
+        rs.next();
+        nyCal = Calendar.getInstance(TimeZone.getTimeZone(NEW_YORK));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public Timestamp getTimestamp() throws SQLException {
+        return rs.getTimestamp(1);
+    }
+
+    @Benchmark
+    public Timestamp getTimestampWithCalendar() throws SQLException {
+        return rs.getTimestamp(1, nyCal);
+    }
+
+    /**
+     * What the harness used to do: a new {@code Calendar} for every cell.
+     */
+    @Benchmark
+    public Timestamp getTimestampWithNewCalendar() throws SQLException {
+        return rs.getTimestamp(1, Calendar.getInstance(TimeZone.getTimeZone("America/New_York")));
+    }
+
+    @Benchmark
+    public Timestamp getTimestampWithCodec() throws SQLException {
+        return TimestampCodec.getTimestamp(rs, 1, NEW_YORK);
+    }
+
+    @Benchmark
+    public LocalDateTime getObjectLocalDateTime() throws SQLException {
+        return rs.getObject(1, LocalDateTime.class);
+    }
+
+    @Benchmark
+    public String getString() throws SQLException {
+        return rs.getString(1);
+    }
+}
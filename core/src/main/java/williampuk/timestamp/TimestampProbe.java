@@ -0,0 +1,330 @@
+package williampuk.timestamp;
+
+import org.apache.commons.lang3.StringUtils;
+import williampuk.timestamp.bulk.WorkloadGenerator;
+import williampuk.timestamp.capture.ColumnarCapture;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dialect.Dialect;
+import williampuk.timestamp.probe.DstSweep;
+import williampuk.timestamp.probe.FirstQuery;
+import williampuk.timestamp.read.Columns;
+import williampuk.timestamp.read.ConversionCalibration;
+import williampuk.timestamp.read.IncrementalReader;
+import williampuk.timestamp.read.StreamingReader;
+import williampuk.timestamp.write.AsyncRowWriter;
+import williampuk.timestamp.write.RowFormat;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static java.sql.Types.TIMESTAMP;
+import static williampuk.timestamp.dbutils.DbUtils.withDbConn;
+
+/**
+ * The steps of the {@link Oracle}, {@link MySql} and {@link Postgres} probes, written once with the SQL that differs
+ * between them taken from a {@link Dialect}.
+ */
+class TimestampProbe {
+
+    static final String TABLE = "timestamp_test";
+    static final ZoneId HONG_KONG = ZoneId.of("Asia/Hong_Kong");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final long CALIBRATION_ROWS = 20_000;
+    private static final ZoneOffset READ_SESSION_ZONE = ZoneOffset.ofHours(5);
+    private static final String NY_CAL_LABEL = StringUtils.leftPad("(using NY Cal): ", 25, ' ');
+    private static final StreamingReader READER = new StreamingReader();
+
+    private final Dialect dialect;
+    private final DbConnSupplier db;
+
+    /**
+     * @param db every statement goes through it, see {@link williampuk.timestamp.dbutils.JdbcMetrics#instrument}
+     */
+    TimestampProbe(final Dialect dialect, final DbConnSupplier db) {
+        this.dialect = dialect;
+        this.db = db;
+    }
+
+    /**
+     * @param args optionally, the client time zone (Asia/Hong_Kong by default); or {@value DstSweep#MODE} and
+     *             optionally the years to sweep, see {@link DstSweep#fromArgs(String[])}; or {@value
+     *             AsyncRowWriter#EXPORT_MODE} and optionally {@code jsonl} or {@code csv}, to write the table to
+     *             standard output; or {@value ColumnarCapture#MODE}, a file and optionally the client time zone, to
+     *             capture the table as a {@link williampuk.timestamp.capture.Snapshot}; or {@value
+     *             ConversionCalibration#MODE} and optionally a time zone (America/New_York by default) and a number
+     *             of rows, to fill the table with a {@link WorkloadGenerator} workload and calibrate the {@link
+     *             williampuk.timestamp.read.ConversionStrategy}s against it; or {@value IncrementalReader#MODE} and
+     *             optionally a time zone (America/New_York by default), to poll the table with an {@link
+     *             IncrementalReader} while a writer in that zone crosses its fall-back hour; or {@value
+     *             FirstQuery#MODE}, to measure the time to the first query's result
+     */
+    void run(final String[] args) {
+        if (args.length > 0 && FirstQuery.MODE.equals(args[0])) {
+            // Before anything else touches the database
+            try {
+                FirstQuery.measure(db).print(System.out);
+            } catch (SQLException sqle) {
+                throw new RuntimeException(sqle);
+            }
+            return;
+        }
+        if (args.length > 0 && DstSweep.MODE.equals(args[0])) {
+            try {
+                DstSweep.fromArgs(args).run(db).print(System.out);
+            } catch (SQLException sqle) {
+                throw new RuntimeException(sqle);
+            }
+            return;
+        }
+        if (args.length > 1 && ColumnarCapture.MODE.equals(args[0])) {
+            final ZoneId clientZone = args.length > 2 ? ZoneId.of(args[2]) : HONG_KONG;
+            prepareTable();
+            insertData(clientZone);
+            captureData(Paths.get(args[1]), clientZone);
+            return;
+        }
+        if (args.length > 0 && ConversionCalibration.MODE.equals(args[0])) {
+            final ZoneId zone = args.length > 1 ? ZoneId.of(args[1]) : NEW_YORK;
+            prepareTable();
+            try {
+                final WorkloadGenerator workload =
+                        new WorkloadGenerator(TABLE, zone, args.length > 2 ? Long.parseLong(args[2]) : CALIBRATION_ROWS);
+                workload.run(db);
+                new ConversionCalibration(TABLE, "timestamp_val", "created_timestamp", zone)
+                        .run(db, workload.wallClockValues(dialect))
+                        .print(System.out);
+            } catch (SQLException sqle) {
+                throw new RuntimeException(sqle);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        if (args.length > 0 && IncrementalReader.MODE.equals(args[0])) {
+            prepareTable();
+            trackChanges(args.length > 1 ? ZoneId.of(args[1]) : NEW_YORK);
+            return;
+        }
+        if (args.length > 0 && AsyncRowWriter.EXPORT_MODE.equals(args[0])) {
+            exportData(args.length > 1 ? RowFormat.of(args[1]) : RowFormat.JSON_LINES);
+            return;
+        }
+        // The client zone is passed to every step rather than set as the JVM default, so probes of different
+        // databases can run in parallel, see Probes
+        final ZoneId clientZone = args.length > 0 ? ZoneId.of(args[0]) : HONG_KONG;
+        prepareTable();
+        insertData(clientZone);
+        readData(clientZone);
+        testSetTimestamp();
+        testDaylightSaving();
+    }
+
+    private void testDaylightSaving() {
+        withDbConn(db::get, conn -> {
+            final String sql = "SELECT TIMESTAMP '2021-03-14 02:01:01.0', TIMESTAMP '2021-03-14 03:01:01.0'," +
+                    "  TIMESTAMP '2021-11-07 01:01:01.0'" + dialect.getFromDual();
+            try (final Statement stmt = conn.createStatement();
+                 final ResultSet rs = stmt.executeQuery(sql)) {
+                System.out.println("=== Test client timezone observing daylight saving ===");
+                rs.next();
+                System.out.println(rs.getString(1) + " is converted to Timestamp of time instant: " +
+                        TimestampCodec.getTimestamp(rs, 1, NEW_YORK).toInstant().atZone(NEW_YORK));
+                System.out.println(rs.getString(2) + " is converted to Timestamp of time instant: " +
+                        TimestampCodec.getTimestamp(rs, 2, NEW_YORK).toInstant().atZone(NEW_YORK));
+                System.out.println(rs.getString(3) + " is converted to Timestamp of time instant: " +
+                        TimestampCodec.getTimestamp(rs, 3, NEW_YORK).toInstant().atZone(NEW_YORK));
+            }
+        });
+    }
+
+    private void testSetTimestamp() {
+        withDbConn(db::get, conn -> {
+            final String sql = "SELECT ?, ?, ?" + dialect.getFromDual();
+            try (final PreparedStatement ps = conn.prepareStatement(sql)) {
+                final Timestamp ts = Timestamp.from(Instant.now());
+                // The driver's own Calendar handling is what this step is about, so no TimestampCodec here
+                ps.setTimestamp(1, ts, Calendar.getInstance(TimeZone.getTimeZone(NEW_YORK)));
+                ps.setString(2, ts.toInstant().atZone(NEW_YORK).toLocalDateTime().toString());
+                ps.setString(3, ts.toInstant().atZone(NEW_YORK).toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    System.out.println("=== Test 'setTimestamp' with Calendar ===");
+                    System.out.println(rs.getString(1));
+                    System.out.println(rs.getString(2));
+                    System.out.println(rs.getString(3));
+                }
+            }
+        });
+    }
+
+    private void readData(final ZoneId clientZone) {
+        final TimestampCodec clientCodec = TimestampCodec.of(clientZone);
+        withDbConn(db::get, conn -> {
+            try (final Statement stmt = conn.createStatement()) {
+                // Set session timezone to UTC+5
+                stmt.execute(dialect.getSetSessionZoneSql(READ_SESSION_ZONE));
+            }
+            final String sql = "SELECT created_timestamp, " +
+                    "  " + dialect.castToText("created_timestamp") + " created_timestamp_str, " +
+                    "  timestamp_val, " + dialect.castToText("timestamp_val") + " timestamp_val_str, " +
+                    "  remarks, " +
+                    "  " + dialect.castToText("LOCALTIMESTAMP") + " retrieved " +
+                    "FROM " + TABLE;
+            READER.read(conn, sql, row -> {
+                final Columns columns = row.getColumns();
+                final StringBuilder rowData = new StringBuilder();
+                for (int i = 1; i <= columns.getCount(); i++) {
+                    if (i > 1) {
+                        rowData.append(System.lineSeparator());
+                    }
+                    rowData.append(StringUtils.rightPad(columns.getLabel(i) + ":", 25, ' '));
+                    if (columns.getType(i) == TIMESTAMP) {
+                        rowData.append('\'').append(clientCodec.format(row.getTimestamp(i, clientZone))).append('\'')
+                                .append(System.lineSeparator()).append(NY_CAL_LABEL).append('\'')
+                                .append(clientCodec.format(row.getTimestamp(i, NEW_YORK))).append('\'');
+                    } else {
+                        rowData.append('\'').append(row.getString(i)).append('\'');
+                    }
+                }
+                System.out.printf("[Time: %s] Row #%d:%n%s%n", Instant.now(), row.getRowNumber(), rowData);
+            });
+        });
+    }
+
+    private void captureData(final Path file, final ZoneId clientZone) {
+        withDbConn(db::get, conn -> {
+            final String sql = "SELECT created_timestamp, " +
+                    "  " + dialect.castToText("created_timestamp") + " created_timestamp_str, " +
+                    "  timestamp_val, " + dialect.castToText("timestamp_val") + " timestamp_val_str, " +
+                    "  remarks " +
+                    "FROM " + TABLE;
+            final ColumnarCapture capture = new ColumnarCapture(clientZone);
+            READER.read(conn, sql, capture);
+            try {
+                capture.write(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void exportData(final RowFormat format) {
+        withDbConn(db::get, conn -> {
+            final String sql = "SELECT created_timestamp, timestamp_val, remarks FROM " + TABLE;
+            // Not closed, as that would close standard output
+            final WritableByteChannel out = Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+            try (final AsyncRowWriter writer = new AsyncRowWriter(out, format)) {
+                READER.read(conn, sql, ps -> { }, writer::setColumns, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Inserts rows as a writer in {@code writerZone} would with {@code LOCALTIMESTAMP}, every 10 minutes across the
+     * zone's first fall-back hour after 2021-06-01, then with its clock stepped back 15 minutes, then once backdated
+     * by 3 hours; polling the table with an {@link IncrementalReader} after every other row.
+     */
+    private void trackChanges(final ZoneId writerZone) {
+        final ZoneOffsetTransition fallBack = firstFallBack(writerZone);
+        final Instant start = fallBack == null ?
+                Instant.parse("2021-11-07T05:00:00Z") : fallBack.getInstant().minus(Duration.ofMinutes(50));
+        final IncrementalReader reader = new IncrementalReader(TABLE, "created_timestamp",
+                Arrays.asList("timestamp_val", "remarks"), writerZone);
+        withDbConn(db::get, writer -> withDbConn(db::get, conn -> {
+            try (final Statement s = writer.createStatement()) {
+                s.execute(dialect.getSetSessionZoneSql(writerZone));
+            }
+            final String sql = "INSERT INTO " + TABLE +
+                    "  (created_timestamp, timestamp_val, remarks)" +
+                    "  VALUES " +
+                    "  (?, NULL, ?)";
+            try (final PreparedStatement ps = writer.prepareStatement(sql)) {
+                for (int step = 0; step < 16; step++) {
+                    Instant clock = start.plus(Duration.ofMinutes(10L * step));
+                    String remarks = "Written at " + clock;
+                    if (step == 14) {
+                        clock = clock.minus(Duration.ofMinutes(15));
+                        remarks += " by a clock 15 minutes behind";
+                    } else if (step == 15) {
+                        clock = clock.minus(Duration.ofHours(3));
+                        remarks += " backdated by 3 hours";
+                    }
+                    ps.setObject(1, clock.atZone(writerZone).toLocalDateTime());
+                    ps.setString(2, remarks);
+                    ps.executeUpdate();
+                    if (step % 2 == 1) {
+                        final long delivered = reader.poll(conn, row -> System.out.printf("  %s  %s%n",
+                                row.getLocalDateTime(1), row.getString(3)));
+                        System.out.printf("Poll delivered %d rows, watermark %s%n", delivered,
+                                reader.getWatermark());
+                    }
+                }
+            }
+            reader.getResult().print(System.out);
+        }));
+    }
+
+    private static ZoneOffsetTransition firstFallBack(final ZoneId zone) {
+        ZoneOffsetTransition transition = zone.getRules().nextTransition(Instant.parse("2021-06-01T00:00:00Z"));
+        while (transition != null && !transition.isOverlap()) {
+            transition = zone.getRules().nextTransition(transition.getInstant());
+        }
+        return transition;
+    }
+
+    void insertData(final ZoneId clientZone) {
+        withDbConn(db::get, conn -> {
+            final String sql = "INSERT INTO " + TABLE +
+                    "  (created_timestamp, timestamp_val, remarks)" +
+                    "  VALUES " +
+                    "  (LOCALTIMESTAMP, ?, ?)";
+            try (final Statement s = conn.createStatement();
+                 final PreparedStatement ps = conn.prepareStatement(sql)) {
+                // Set session timezone
+                s.execute(dialect.getSetSessionZoneSql(clientZone));
+
+                final Timestamp tsValue = TimestampCodec.of(clientZone)
+                        .toTimestamp(LocalDateTime.parse("2021-03-14T02:01:01"));
+                TimestampCodec.setTimestamp(ps, 1, tsValue, clientZone);
+                ps.setString(2, String.format("Inserted value '%s' using JDBC at: %s",
+                        tsValue.toInstant().atZone(clientZone),
+                        ZonedDateTime.now(clientZone)));
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    void prepareTable() {
+        withDbConn(db::get, conn -> {
+            try (final Statement s = conn.createStatement()) {
+                s.execute(dialect.getDropTableIfExistsSql(TABLE));
+                s.execute("CREATE TABLE " + TABLE + " (" +
+                        "created_timestamp TIMESTAMP NOT NULL, " +
+                        "timestamp_val TIMESTAMP NULL, " +
+                        "remarks " + dialect.getVarcharType(200) + " NULL)");
+                // For the watermark of IncrementalReader
+                s.execute("CREATE INDEX " + TABLE + "_created_ix ON " + TABLE + " (created_timestamp)");
+            }
+        });
+    }
+}
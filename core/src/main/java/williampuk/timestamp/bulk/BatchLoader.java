@@ -0,0 +1,225 @@
+package williampuk.timestamp.bulk;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import williampuk.timestamp.dbutils.SessionTimeZone;
+import williampuk.timestamp.dialect.Vendor;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+/**
+ * Loads {@link TimestampRow}s into a {@code timestamp_test}-style table, {@code batchSize} rows per round trip.
+ * <p>
+ * Each vendor's fast path is taken: Postgres rows are streamed with {@code COPY ... FROM STDIN} when pgjdbc is on
+ * the class path; MySQL and Oracle rows go through {@link PreparedStatement#executeBatch()}, which Connector/J
+ * rewrites into multi-row inserts when the connection has {@code rewriteBatchedStatements=true} and which ojdbc
+ * sends as array DML. Timestamps are converted by a {@link ZoneConversionPolicy} and bound as {@link
+ * LocalDateTime}s, so all three vendors store the same wall-clock times.
+ */
+public class BatchLoader {
+
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+    private static final String COLUMNS = "created_timestamp, timestamp_val, remarks";
+    // pgjdbc is an optional dependency, there with the Postgres module only
+    private static final boolean PGJDBC_PRESENT = isPresent("org.postgresql.PGConnection");
+
+    private final String table;
+    private final ZoneConversionPolicy policy;
+    private final int batchSize;
+
+    public BatchLoader(final String table, final ZoneConversionPolicy policy) {
+        this(table, policy, DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchLoader(final String table, final ZoneConversionPolicy policy, final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.table = table;
+        this.policy = policy;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Loads all of {@code rows} in one transaction, and leaves the connection's auto-commit mode and session time
+     * zone as they were. If the load fails, a failure to roll back or to restore the connection is added to the
+     * exception thrown as suppressed.
+     *
+     * @return the number of rows loaded
+     */
+    public long load(final Connection conn, final Iterator<TimestampRow> rows) throws SQLException {
+        final Vendor vendor = Vendor.of(conn);
+        final SessionTimeZone.Form zoneForm = vendor.getSessionZoneForm();
+        final String sessionZone = vendor == Vendor.MYSQL ? queryString(conn, zoneForm.getQuerySql()) : null;
+        final boolean autoCommit = conn.getAutoCommit();
+        Throwable failure = null;
+        conn.setAutoCommit(false);
+        try {
+            if (vendor == Vendor.MYSQL) {
+                execute(conn, zoneForm.getSetSql(policy.getZone()));
+            }
+            final boolean copy = vendor == Vendor.POSTGRES && PGJDBC_PRESENT && conn.isWrapperFor(PGConnection.class);
+            final long count = copy ? copy(conn.unwrap(PGConnection.class), rows) : batch(conn, rows);
+            conn.commit();
+            return count;
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        } finally {
+            SQLException restoreFailure = null;
+            if (vendor == Vendor.MYSQL) {
+                try {
+                    execute(conn, zoneForm.getSetSql(sessionZone));
+                } catch (SQLException sqle) {
+                    restoreFailure = sqle;
+                }
+            }
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException sqle) {
+                if (restoreFailure == null) {
+                    restoreFailure = sqle;
+                } else {
+                    restoreFailure.addSuppressed(sqle);
+                }
+            }
+            if (restoreFailure != null) {
+                if (failure == null) {
+                    throw restoreFailure;
+                }
+                failure.addSuppressed(restoreFailure);
+            }
+        }
+    }
+
+    private static boolean isPresent(final String className) {
+        try {
+            Class.forName(className, false, BatchLoader.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static String queryString(final Connection conn, final String sql) throws SQLException {
+        try (final Statement stmt = conn.createStatement();
+             final ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static void execute(final Connection conn, final String sql) throws SQLException {
+        try (final Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private long batch(final Connection conn, final Iterator<TimestampRow> rows) throws SQLException {
+        final String sql = "INSERT INTO " + table + " (" + COLUMNS + ") VALUES (?, ?, ?)";
+        long count = 0;
+        try (final PreparedStatement ps = conn.prepareStatement(sql)) {
+            int pending = 0;
+            while (rows.hasNext()) {
+                final TimestampRow row = rows.next();
+                setTimestamp(ps, 1, row.getCreatedTimestamp());
+                setTimestamp(ps, 2, row.getTimestampVal());
+                ps.setString(3, row.getRemarks());
+                ps.addBatch();
+                if (++pending == batchSize) {
+                    // The counts may be SUCCESS_NO_INFO once the driver rewrites the batch
+                    ps.executeBatch();
+                    count += pending;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+                count += pending;
+            }
+        }
+        return count;
+    }
+
+    private void setTimestamp(final PreparedStatement ps, final int parameterIndex, final Timestamp value)
+            throws SQLException {
+        if (value == null) {
+            ps.setNull(parameterIndex, Types.TIMESTAMP);
+        } else {
+            ps.setObject(parameterIndex, policy.toLocalDateTime(value));
+        }
+    }
+
+    private long copy(final PGConnection conn, final Iterator<TimestampRow> rows) throws SQLException {
+        final CopyIn copyIn = conn.getCopyAPI().copyIn("COPY " + table + " (" + COLUMNS + ") FROM STDIN");
+        try {
+            final StringBuilder sb = new StringBuilder();
+            long count = 0;
+            while (rows.hasNext()) {
+                final TimestampRow row = rows.next();
+                appendTimestamp(sb, row.getCreatedTimestamp()).append('\t');
+                appendTimestamp(sb, row.getTimestampVal()).append('\t');
+                appendText(sb, row.getRemarks()).append('\n');
+                if (++count % batchSize == 0) {
+                    writeToCopy(copyIn, sb);
+                }
+            }
+            writeToCopy(copyIn, sb);
+            copyIn.endCopy();
+            return count;
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeToCopy(final CopyIn copyIn, final StringBuilder sb) throws SQLException {
+        if (sb.length() > 0) {
+            final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            sb.setLength(0);
+        }
+    }
+
+    private StringBuilder appendTimestamp(final StringBuilder sb, final Timestamp value) {
+        return value == null ? sb.append("\\N") : sb.append(policy.toLocalDateTime(value));
+    }
+
+    /**
+     * Appends a value in the {@code COPY} text format, which escapes backslashes and the delimiter characters.
+     */
+    private static StringBuilder appendText(final StringBuilder sb, final String value) {
+        if (value == null) {
+            return sb.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,31 @@
+package williampuk.timestamp.bulk;
+
+import java.sql.Timestamp;
+
+/**
+ * A row of a {@code timestamp_test}-style table: {@code (created_timestamp, timestamp_val, remarks)}.
+ */
+public final class TimestampRow {
+
+    private final Timestamp createdTimestamp;
+    private final Timestamp timestampVal;
+    private final String remarks;
+
+    public TimestampRow(final Timestamp createdTimestamp, final Timestamp timestampVal, final String remarks) {
+        this.createdTimestamp = createdTimestamp;
+        this.timestampVal = timestampVal;
+        this.remarks = remarks;
+    }
+
+    public Timestamp getCreatedTimestamp() {
+        return createdTimestamp;
+    }
+
+    public Timestamp getTimestampVal() {
+        return timestampVal;
+    }
+
+    public String getRemarks() {
+        return remarks;
+    }
+}
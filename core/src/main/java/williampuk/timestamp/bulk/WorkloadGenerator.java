@@ -0,0 +1,390 @@
+package williampuk.timestamp.bulk;
+
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dialect.Dialect;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Fills a {@code timestamp_test}-style table with a reproducible synthetic workload and measures the load.
+ * <p>
+ * The rows are split into {@code partitions}, each generated from its own {@link SplittableRandom} seeded from
+ * {@code seed} and the partition number, so a run with the same parameters loads the same rows however the
+ * partitions are scheduled. Up to {@code parallelism} partitions are loaded at once, each on its own connection and
+ * in its own transaction through a {@link BatchLoader}; rows are generated as the loader asks for them, so no
+ * partition is held in memory.
+ * <p>
+ * Both columns hold wall-clock times of {@code zone}, loaded as they are through {@link
+ * ZoneConversionPolicy#wallClock(ZoneId)}. {@code created_timestamp} is the wall-clock time of an instant one second
+ * per row on, so it orders the rows as long as they stay clear of the zone's next overlap. {@code timestamp_val}
+ * takes values of every {@link Category}, within what the {@link Dialect} can store, in whole seconds as MySQL keeps
+ * no fraction; those of {@link Category#GAP} include times the gap skips, which exist in no instant. The bytes
+ * reported are the payload: 8 per timestamp, as the databases store them, plus the UTF-8 length of the remarks.
+ */
+public class WorkloadGenerator {
+
+    public static final int DEFAULT_PARTITIONS = 16;
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final long DEFAULT_SEED = 20210314L;
+    private static final int TIMESTAMP_BYTES = 8;
+    /** Where {@code created_timestamp} starts, one second per row on from there. */
+    private static final long CREATED_FROM_MICROS = Instant.parse("2021-03-14T00:00:00Z").getEpochSecond() *
+            TimestampCodec.MICROS_PER_SECOND;
+
+    /**
+     * The kinds of {@code timestamp_val} generated, with the share of rows each gets.
+     */
+    public enum Category {
+        /** From an hour before the wall-clock times a transition skips to an hour after them. */
+        GAP(15),
+        /** From an hour before the wall-clock times a transition repeats to an hour after them. */
+        OVERLAP(15),
+        /** On a 29 February of the zone. */
+        LEAP_DAY(10),
+        /** Within a day of the earliest or latest value the dialect can store. */
+        EXTREME(5),
+        /** SQL {@code NULL}. */
+        NULL(5),
+        /** Anywhere in the dialect's range, at most in 1900-2099. */
+        UNIFORM(50);
+
+        private final int percent;
+
+        Category(final int percent) {
+            this.percent = percent;
+        }
+    }
+
+    private static final Category[] BY_PERCENT = new Category[100];
+
+    static {
+        int i = 0;
+        for (final Category category : Category.values()) {
+            for (int p = 0; p < category.percent; p++) {
+                BY_PERCENT[i++] = category;
+            }
+        }
+    }
+
+    private final String table;
+    private final ZoneId zone;
+    private final long rowCount;
+    private final int partitions;
+    private final int parallelism;
+    private final long seed;
+
+    public WorkloadGenerator(final String table, final ZoneId zone, final long rowCount) {
+        this(table, zone, rowCount, DEFAULT_PARTITIONS, DEFAULT_PARALLELISM, DEFAULT_SEED);
+    }
+
+    /**
+     * @param zone the zone whose wall-clock times are stored, and whose transitions the {@link Category#GAP} and
+     *             {@link Category#OVERLAP} values are near
+     */
+    public WorkloadGenerator(final String table, final ZoneId zone, final long rowCount, final int partitions,
+                             final int parallelism, final long seed) {
+        if (rowCount < 0 || partitions < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("rowCount must not be negative, partitions and parallelism positive");
+        }
+        this.table = table;
+        this.zone = zone;
+        this.rowCount = rowCount;
+        this.partitions = partitions;
+        this.parallelism = parallelism;
+        this.seed = seed;
+    }
+
+    /**
+     * Loads the rows into {@code table}, which must exist.
+     */
+    public Result run(final DbConnSupplier db) throws SQLException, InterruptedException {
+        final Dialect dialect;
+        try (final Connection conn = db.get()) {
+            dialect = Dialect.of(conn);
+        }
+        final Values values = new Values(zone, dialect);
+        final TimestampCodec codec = TimestampCodec.of(zone);
+        final BatchLoader loader = new BatchLoader(table, ZoneConversionPolicy.wallClock(zone));
+        final Result result = new Result(dialect);
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        final long start = System.nanoTime();
+        try {
+            final List<Future<?>> futures = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                final long from = rowCount * p / partitions;
+                final Partition partition = new Partition(values, codec, p, from,
+                        rowCount * (p + 1) / partitions - from, new SplittableRandom(seed * 31 + p), result);
+                futures.add(executor.submit(() -> {
+                    try (final Connection conn = db.get()) {
+                        return loader.load(conn, partition);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    futures.forEach(f -> f.cancel(true));
+                    if (e.getCause() instanceof SQLException) {
+                        throw (SQLException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Generates the rows {@link #run(DbConnSupplier)} loads into a table of {@code dialect} again, without loading
+     * them.
+     *
+     * @return the {@code timestamp_val} of every row in local micros, in the order of {@code created_timestamp},
+     * {@link Long#MIN_VALUE} for SQL {@code NULL}
+     */
+    public long[] wallClockValues(final Dialect dialect) {
+        final Values values = new Values(zone, dialect);
+        final TimestampCodec codec = TimestampCodec.of(zone);
+        final Result unused = new Result(dialect);
+        final long[] wallClock = new long[Math.toIntExact(rowCount)];
+        for (int p = 0; p < partitions; p++) {
+            final long from = rowCount * p / partitions;
+            final Partition partition = new Partition(values, codec, p, from, rowCount * (p + 1) / partitions - from,
+                    new SplittableRandom(seed * 31 + p), unused);
+            for (int row = (int) from; partition.hasNext(); row++) {
+                final Timestamp value = partition.next().getTimestampVal();
+                wallClock[row] = value == null ? Long.MIN_VALUE : TimestampCodec.epochMicros(value);
+            }
+        }
+        return wallClock;
+    }
+
+    /**
+     * What the timestamps of the workload are drawn from, as wall-clock times of the zone in local micros.
+     */
+    static final class Values {
+
+        private static final long UNIFORM_FROM = TimestampCodec.localMicros(1900, 1, 1, 0, 0, 0, 0);
+        private static final long UNIFORM_TO = TimestampCodec.localMicros(2100, 1, 1, 0, 0, 0, 0);
+        private static final long HOUR_MICROS = 3_600L * TimestampCodec.MICROS_PER_SECOND;
+
+        private final long minMicros;
+        private final long maxMicros;
+        // Wall-clock times skipped ([from, until) of each gap) and repeated (of each overlap) within the range
+        private final long[] gapsFrom;
+        private final long[] gapsUntil;
+        private final long[] overlapsFrom;
+        private final long[] overlapsUntil;
+        // Years with a 29 February within the range, trimmed by a day to stay clear of either end
+        private final int[] leapYears;
+
+        Values(final ZoneId zone, final Dialect dialect) {
+            final TimestampCodec codec = TimestampCodec.of(zone);
+            minMicros = codec.toLocalMicros(epochMicros(dialect.getMinTimestamp()));
+            maxMicros = codec.toLocalMicros(epochMicros(dialect.getMaxTimestamp()));
+            final List<ZoneOffsetTransition> gapList = new ArrayList<>();
+            final List<ZoneOffsetTransition> overlapList = new ArrayList<>();
+            final ZoneRules rules = zone.getRules();
+            ZoneOffsetTransition t = rules.nextTransition(dialect.getMinTimestamp().plusSeconds(7_200));
+            final long end = Math.min(maxMicros, UNIFORM_TO) - 2 * HOUR_MICROS;
+            // Zones with DST rules keep transitioning forever; 2100 is well past what the rules are known for
+            while (t != null && TimestampCodec.localMicros(t.getDateTimeBefore()) < end) {
+                (t.isGap() ? gapList : overlapList).add(t);
+                t = rules.nextTransition(t.getInstant());
+            }
+            gapsFrom = gapList.stream().mapToLong(g -> TimestampCodec.localMicros(g.getDateTimeBefore())).toArray();
+            gapsUntil = gapList.stream().mapToLong(g -> TimestampCodec.localMicros(g.getDateTimeAfter())).toArray();
+            overlapsFrom = overlapList.stream()
+                    .mapToLong(o -> TimestampCodec.localMicros(o.getDateTimeAfter())).toArray();
+            overlapsUntil = overlapList.stream()
+                    .mapToLong(o -> TimestampCodec.localMicros(o.getDateTimeBefore())).toArray();
+            final int[] fields = new int[7];
+            TimestampCodec.toFields(minMicros + TimestampCodec.MICROS_PER_DAY, fields);
+            final int fromYear = fields[0];
+            TimestampCodec.toFields(maxMicros - TimestampCodec.MICROS_PER_DAY, fields);
+            final int toYear = fields[0];
+            leapYears = IntStream.rangeClosed(fromYear, toYear)
+                    .filter(y -> (y % 4 == 0 && y % 100 != 0) || y % 400 == 0)
+                    .filter(y -> TimestampCodec.localMicros(y, 2, 28, 0, 0, 0, 0) > minMicros &&
+                            TimestampCodec.localMicros(y, 3, 2, 0, 0, 0, 0) < maxMicros)
+                    .toArray();
+        }
+
+        private static long epochMicros(final Instant instant) {
+            return instant.getEpochSecond() * TimestampCodec.MICROS_PER_SECOND + instant.getNano() / 1000;
+        }
+
+        /**
+         * @return a value of {@code category} in local micros, whole seconds, or {@link Long#MIN_VALUE} for SQL
+         * {@code NULL}
+         */
+        long next(final Category category, final SplittableRandom random) {
+            if (category == Category.NULL) {
+                return Long.MIN_VALUE;
+            }
+            final long micros = nextMicros(category, random);
+            return micros - Math.floorMod(micros, TimestampCodec.MICROS_PER_SECOND);
+        }
+
+        private long nextMicros(final Category category, final SplittableRandom random) {
+            switch (category) {
+                case GAP:
+                case OVERLAP: {
+                    final long[] from = category == Category.GAP ? gapsFrom : overlapsFrom;
+                    final long[] until = category == Category.GAP ? gapsUntil : overlapsUntil;
+                    if (from.length == 0) {
+                        return nextMicros(Category.UNIFORM, random);
+                    }
+                    final int i = random.nextInt(from.length);
+                    return random.nextLong(from[i] - HOUR_MICROS, until[i] + HOUR_MICROS);
+                }
+                case LEAP_DAY: {
+                    if (leapYears.length == 0) {
+                        return nextMicros(Category.UNIFORM, random);
+                    }
+                    final long day = TimestampCodec.epochDay(leapYears[random.nextInt(leapYears.length)], 2, 29);
+                    return day * TimestampCodec.MICROS_PER_DAY + random.nextLong(TimestampCodec.MICROS_PER_DAY);
+                }
+                case EXTREME: {
+                    // Rounded inwards, so that the whole second stays within the range
+                    final long seconds = random.nextLong(86_400) * TimestampCodec.MICROS_PER_SECOND;
+                    return random.nextBoolean() ? minMicros + TimestampCodec.MICROS_PER_SECOND - 1 + seconds :
+                            maxMicros - seconds;
+                }
+                default:
+                    return random.nextLong(Math.max(minMicros, UNIFORM_FROM), Math.min(maxMicros, UNIFORM_TO));
+            }
+        }
+    }
+
+    /**
+     * The rows of one partition, generated one at a time.
+     */
+    static final class Partition implements Iterator<TimestampRow> {
+
+        private final Values values;
+        private final TimestampCodec codec;
+        private final int number;
+        private final long from;
+        private final long count;
+        private final SplittableRandom random;
+        private final Result result;
+        private long generated;
+
+        Partition(final Values values, final TimestampCodec codec, final int number, final long from,
+                  final long count, final SplittableRandom random, final Result result) {
+            this.values = values;
+            this.codec = codec;
+            this.number = number;
+            this.from = from;
+            this.count = count;
+            this.random = random;
+            this.result = result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return generated < count;
+        }
+
+        @Override
+        public TimestampRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final long row = from + generated++;
+            final Category category = BY_PERCENT[random.nextInt(BY_PERCENT.length)];
+            final long value = values.next(category, random);
+            final Timestamp created =
+                    toTimestamp(codec.toLocalMicros(CREATED_FROM_MICROS + row * TimestampCodec.MICROS_PER_SECOND));
+            final Timestamp timestampVal = value == Long.MIN_VALUE ? null : toTimestamp(value);
+            final String remarks = category + " #" + row + " of partition " + number;
+            result.add(category, (timestampVal == null ? 1 : 2) * TIMESTAMP_BYTES +
+                    remarks.getBytes(StandardCharsets.UTF_8).length);
+            return new TimestampRow(created, timestampVal, remarks);
+        }
+
+        /**
+         * @return the wall-clock time as {@link ZoneConversionPolicy#wallClock(ZoneId)} takes it
+         */
+        private static Timestamp toTimestamp(final long localMicros) {
+            final long epochSecond = Math.floorDiv(localMicros, TimestampCodec.MICROS_PER_SECOND);
+            final Timestamp ts = new Timestamp(epochSecond * 1000L);
+            ts.setNanos((int) (localMicros - epochSecond * TimestampCodec.MICROS_PER_SECOND) * 1000);
+            return ts;
+        }
+    }
+
+    /**
+     * Rows and bytes loaded, by {@link Category}, and how long it took.
+     */
+    public static final class Result {
+
+        private final Dialect dialect;
+        private final AtomicLongArray rows = new AtomicLongArray(Category.values().length);
+        private final AtomicLongArray bytes = new AtomicLongArray(Category.values().length);
+        private long elapsedNanos;
+
+        Result(final Dialect dialect) {
+            this.dialect = dialect;
+        }
+
+        void add(final Category category, final int rowBytes) {
+            rows.incrementAndGet(category.ordinal());
+            bytes.addAndGet(category.ordinal(), rowBytes);
+        }
+
+        public long getRows() {
+            long total = 0;
+            for (int i = 0; i < rows.length(); i++) {
+                total += rows.get(i);
+            }
+            return total;
+        }
+
+        public long getBytes() {
+            long total = 0;
+            for (int i = 0; i < bytes.length(); i++) {
+                total += bytes.get(i);
+            }
+            return total;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getRowsPerSecond() {
+            return getRows() * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        public double getBytesPerSecond() {
+            return getBytes() * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        public void print(final PrintStream out) {
+            out.printf("=== Workload: %s ===%n", dialect);
+            out.printf("%,d rows, %,d bytes in %.3f s: %,.0f rows/s, %,.0f bytes/s%n", getRows(), getBytes(),
+                    elapsedNanos / 1e9, getRowsPerSecond(), getBytesPerSecond());
+            for (final Category category : Category.values()) {
+                out.printf("  %-9s %,d rows%n", category, rows.get(category.ordinal()));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package williampuk.timestamp.bulk;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * How an instant is turned into the wall-clock time a {@code TIMESTAMP} column stores. The {@link BatchLoader} binds
+ * the result as a {@link LocalDateTime}, which no driver converts, so every vendor stores the same value.
+ */
+public interface ZoneConversionPolicy {
+
+    /**
+     * @return the zone of the wall-clock times; a MySQL session is set to it while loading, because MySQL converts
+     * {@code TIMESTAMP} values from the session time zone
+     */
+    ZoneId getZone();
+
+    LocalDateTime toLocalDateTime(Timestamp ts);
+
+    static ZoneConversionPolicy of(final ZoneId zone) {
+        final TimestampCodec codec = TimestampCodec.of(zone);
+        return new ZoneConversionPolicy() {
+            @Override
+            public ZoneId getZone() {
+                return zone;
+            }
+
+            @Override
+            public LocalDateTime toLocalDateTime(final Timestamp ts) {
+                return codec.toLocalDateTime(ts);
+            }
+        };
+    }
+
+    static ZoneConversionPolicy utc() {
+        return of(ZoneOffset.UTC);
+    }
+
+    /**
+     * For {@link Timestamp}s that already hold wall-clock times of {@code zone}, each as the instant its wall-clock
+     * time is in UTC (the local micros of {@link TimestampCodec}). They are stored as they are, including times a gap
+     * of {@code zone} skips, which no instant converts to.
+     */
+    static ZoneConversionPolicy wallClock(final ZoneId zone) {
+        return new ZoneConversionPolicy() {
+            @Override
+            public ZoneId getZone() {
+                return zone;
+            }
+
+            @Override
+            public LocalDateTime toLocalDateTime(final Timestamp ts) {
+                return LocalDateTime.ofEpochSecond(Math.floorDiv(ts.getTime(), 1000L), ts.getNanos(), ZoneOffset.UTC);
+            }
+        };
+    }
+}
@@ -0,0 +1,230 @@
+package williampuk.timestamp.capture;
+
+import org.apache.commons.lang3.function.FailableConsumer;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.read.Columns;
+import williampuk.timestamp.read.Row;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * A sink for a {@link williampuk.timestamp.read.StreamingReader} that keeps a result column by column in primitive
+ * arrays, then writes it as a {@link Snapshot} file.
+ * <p>
+ * {@code TIMESTAMP} values are read as wall-clock times and kept exactly as read, as local micros (see {@link
+ * TimestampCodec}) in a {@code long[]}; {@code zone} is recorded with them, and only a diff resolves them to
+ * instants. So a time in a daylight saving gap of {@code zone} stays apart from the time it would be pushed forward
+ * to, as drivers differ in which of the two they return. Integers go to a {@code long[]} as well and everything else to one {@code byte[]} of UTF-8 per column, indexed by
+ * an {@code int[]} of offsets. No {@code Timestamp} or {@code String} is kept per value.
+ */
+public class ColumnarCapture implements FailableConsumer<Row, SQLException> {
+
+    public static final String MODE = "--capture";
+    private static final int INITIAL_ROWS = 1024;
+
+    private final ZoneId zone;
+    private Columns columns;
+    private Snapshot.Kind[] kinds;
+    private long[][] nulls;
+    private long[][] longs;
+    private byte[][] bytes;
+    private int[][] offsets;
+    private int rowCount;
+    private int capacity;
+
+    public ColumnarCapture(final ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public void accept(final Row row) throws SQLException {
+        if (columns == null) {
+            init(row.getColumns());
+        }
+        if (rowCount == Integer.MAX_VALUE - 1) {
+            throw new IllegalStateException("Too many rows for a snapshot");
+        }
+        ensureRowCapacity(rowCount + 1);
+        for (int c = 0; c < kinds.length; c++) {
+            final int column = c + 1;
+            switch (kinds[c]) {
+                case TIMESTAMP: {
+                    final LocalDateTime value = row.getLocalDateTime(column);
+                    if (value == null) {
+                        setNull(c);
+                    } else {
+                        longs[c][rowCount] = TimestampCodec.localMicros(value);
+                    }
+                    break;
+                }
+                case LONG: {
+                    longs[c][rowCount] = row.getLong(column);
+                    if (row.wasNull()) {
+                        setNull(c);
+                    }
+                    break;
+                }
+                default: {
+                    final String value = row.getString(column);
+                    if (value == null) {
+                        setNull(c);
+                    }
+                    offsets[c][rowCount + 1] = value == null ? offsets[c][rowCount] : appendString(c, value);
+                }
+            }
+        }
+        rowCount++;
+    }
+
+    private void init(final Columns columns) {
+        this.columns = columns;
+        final int count = columns.getCount();
+        kinds = new Snapshot.Kind[count];
+        nulls = new long[count][];
+        longs = new long[count][];
+        bytes = new byte[count][];
+        offsets = new int[count][];
+        capacity = INITIAL_ROWS;
+        for (int c = 0; c < count; c++) {
+            final int type = columns.getType(c + 1);
+            if (type == Types.TIMESTAMP) {
+                kinds[c] = Snapshot.Kind.TIMESTAMP;
+            } else if (type == Types.BIGINT || type == Types.INTEGER || type == Types.SMALLINT ||
+                    type == Types.TINYINT) {
+                kinds[c] = Snapshot.Kind.LONG;
+            } else {
+                kinds[c] = Snapshot.Kind.STRING;
+            }
+            nulls[c] = new long[(INITIAL_ROWS + 63) / 64];
+            if (kinds[c] == Snapshot.Kind.STRING) {
+                bytes[c] = new byte[INITIAL_ROWS * 16];
+                offsets[c] = new int[INITIAL_ROWS + 1];
+            } else {
+                longs[c] = new long[INITIAL_ROWS];
+            }
+        }
+    }
+
+    private void ensureRowCapacity(final int rows) {
+        if (rows <= capacity) {
+            return;
+        }
+        capacity = (int) Math.min(Integer.MAX_VALUE - 1L, Math.max(rows, capacity * 2L));
+        for (int c = 0; c < kinds.length; c++) {
+            nulls[c] = Arrays.copyOf(nulls[c], (capacity + 63) / 64);
+            if (kinds[c] == Snapshot.Kind.STRING) {
+                offsets[c] = Arrays.copyOf(offsets[c], capacity + 1);
+            } else {
+                longs[c] = Arrays.copyOf(longs[c], capacity);
+            }
+        }
+    }
+
+    private void setNull(final int column) {
+        nulls[column][rowCount >>> 6] |= 1L << (rowCount & 63);
+    }
+
+    /**
+     * Encodes {@code value} as UTF-8 straight into the column's byte array.
+     *
+     * @return the offset after it
+     */
+    private int appendString(final int column, final String value) {
+        int position = offsets[column][rowCount];
+        // A char takes at most 3 bytes, a surrogate pair 4
+        final long needed = position + 3L * value.length();
+        if (needed > bytes[column].length) {
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too much text for a snapshot column");
+            }
+            bytes[column] = Arrays.copyOf(bytes[column],
+                    (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(needed, bytes[column].length * 2L)));
+        }
+        final byte[] b = bytes[column];
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            if (ch < 0x80) {
+                b[position++] = (byte) ch;
+            } else if (ch < 0x800) {
+                b[position++] = (byte) (0xC0 | ch >> 6);
+                b[position++] = (byte) (0x80 | ch & 0x3F);
+            } else if (Character.isHighSurrogate(ch) && i + 1 < value.length() &&
+                    Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(ch, value.charAt(++i));
+                b[position++] = (byte) (0xF0 | cp >> 18);
+                b[position++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                b[position++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                b[position++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(ch)) {
+                b[position++] = '?';
+            } else {
+                b[position++] = (byte) (0xE0 | ch >> 12);
+                b[position++] = (byte) (0x80 | ch >> 6 & 0x3F);
+                b[position++] = (byte) (0x80 | ch & 0x3F);
+            }
+        }
+        return position;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the captured rows as a {@link Snapshot} file, through a memory mapping of it.
+     */
+    public void write(final Path file) throws IOException {
+        if (columns == null) {
+            throw new IllegalStateException("No rows were captured");
+        }
+        final byte[] zoneId = zone.getId().getBytes(StandardCharsets.UTF_8);
+        final byte[][] labels = new byte[kinds.length][];
+        long size = 16 + 2 + zoneId.length;
+        for (int c = 0; c < kinds.length; c++) {
+            labels[c] = columns.getLabel(c + 1).getBytes(StandardCharsets.UTF_8);
+            size += 3 + labels[c].length;
+        }
+        for (int c = 0; c < kinds.length; c++) {
+            size = (size + 7) & ~7L;
+            size += Snapshot.nullsLength(rowCount);
+            size += kinds[c] == Snapshot.Kind.STRING ? (rowCount + 1L) * Integer.BYTES + offsets[c][rowCount] :
+                    (long) rowCount * Long.BYTES;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot would exceed 2 GiB: " + size + " bytes");
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putLong(Snapshot.MAGIC).putInt(kinds.length).putInt(rowCount);
+            buffer.putShort((short) zoneId.length).put(zoneId);
+            for (int c = 0; c < kinds.length; c++) {
+                buffer.put((byte) kinds[c].ordinal()).putShort((short) labels[c].length).put(labels[c]);
+            }
+            for (int c = 0; c < kinds.length; c++) {
+                buffer.position(Snapshot.align(buffer.position()));
+                buffer.asLongBuffer().put(nulls[c], 0, Snapshot.nullsLength(rowCount) / Long.BYTES);
+                buffer.position(buffer.position() + Snapshot.nullsLength(rowCount));
+                if (kinds[c] == Snapshot.Kind.STRING) {
+                    buffer.asIntBuffer().put(offsets[c], 0, rowCount + 1);
+                    buffer.position(buffer.position() + (rowCount + 1) * Integer.BYTES);
+                    buffer.put(bytes[c], 0, offsets[c][rowCount]);
+                } else {
+                    buffer.asLongBuffer().put(longs[c], 0, rowCount);
+                    buffer.position(buffer.position() + rowCount * Long.BYTES);
+                }
+            }
+            buffer.force();
+        }
+    }
+}
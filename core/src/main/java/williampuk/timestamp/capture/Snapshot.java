@@ -0,0 +1,194 @@
+package williampuk.timestamp.capture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+
+/**
+ * A snapshot file written by {@link ColumnarCapture}, mapped into memory. Values are read straight from the mapping,
+ * so a snapshot of any size takes only a few objects of heap.
+ * <p>
+ * The file is big-endian:
+ * <pre>
+ * long   MAGIC
+ * int    column count
+ * int    row count
+ * short  zone id length, then the zone id in UTF-8
+ * per column: byte kind, short label length, then the label in UTF-8
+ * per column, each part starting at a multiple of 8:
+ *        the null bitmap, one bit per row in (row count + 63) / 64 longs
+ *        TIMESTAMP, LONG: a long per row, local micros for TIMESTAMP
+ *        STRING: row count + 1 int offsets into the UTF-8 bytes that follow them
+ * </pre>
+ */
+public final class Snapshot implements AutoCloseable {
+
+    // "TSCAP2": version 1 kept TIMESTAMP values as epoch micros
+    static final long MAGIC = 0x5453_4341_5032_0000L;
+
+    /**
+     * How a column's values are stored.
+     */
+    public enum Kind {
+        /** Local micros, the wall-clock times as read, in the snapshot's zone. */
+        TIMESTAMP,
+        LONG,
+        STRING
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ZoneId zone;
+    private final int rowCount;
+    private final String[] labels;
+    private final Kind[] kinds;
+    private final int[] nullsOffsets;
+    private final int[] valuesOffsets;
+    private final int[] bytesOffsets;
+
+    private Snapshot(final FileChannel channel, final MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.getLong(0) != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        final int columnCount = buffer.getInt(8);
+        rowCount = buffer.getInt(12);
+        int position = 16;
+        final int zoneLength = buffer.getShort(position);
+        zone = ZoneId.of(readUtf8(position + 2, zoneLength));
+        position += 2 + zoneLength;
+        labels = new String[columnCount];
+        kinds = new Kind[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            kinds[c] = Kind.values()[buffer.get(position)];
+            final int labelLength = buffer.getShort(position + 1);
+            labels[c] = readUtf8(position + 3, labelLength);
+            position += 3 + labelLength;
+        }
+        nullsOffsets = new int[columnCount];
+        valuesOffsets = new int[columnCount];
+        bytesOffsets = new int[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            position = align(position);
+            nullsOffsets[c] = position;
+            position += nullsLength(rowCount);
+            valuesOffsets[c] = position;
+            if (kinds[c] == Kind.STRING) {
+                bytesOffsets[c] = position + (rowCount + 1) * Integer.BYTES;
+                position = bytesOffsets[c] + buffer.getInt(valuesOffsets[c] + rowCount * Integer.BYTES);
+            } else {
+                position += rowCount * Long.BYTES;
+            }
+        }
+    }
+
+    public static Snapshot open(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new Snapshot(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static int align(final int position) {
+        return (position + 7) & ~7;
+    }
+
+    static int nullsLength(final int rowCount) {
+        return (rowCount + 63) / 64 * Long.BYTES;
+    }
+
+    private String readUtf8(final int position, final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the zone the wall-clock times were read in
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return labels.length;
+    }
+
+    /**
+     * Columns are numbered from 0, rows too.
+     */
+    public String getLabel(final int column) {
+        return labels[column];
+    }
+
+    public Kind getKind(final int column) {
+        return kinds[column];
+    }
+
+    /**
+     * @return the column with {@code label}, ignoring case, or -1
+     */
+    public int indexOf(final String label) {
+        for (int c = 0; c < labels.length; c++) {
+            if (labels[c].equalsIgnoreCase(label)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isNull(final int column, final int row) {
+        final long word = buffer.getLong(nullsOffsets[column] + (row >>> 6) * Long.BYTES);
+        return (word & (1L << (row & 63))) != 0;
+    }
+
+    /**
+     * @return the value of a {@code TIMESTAMP} column in local micros or of a {@code LONG} column, 0 for {@code NULL}
+     */
+    public long getLong(final int column, final int row) {
+        return buffer.getLong(valuesOffsets[column] + row * Long.BYTES);
+    }
+
+    int stringStart(final int column, final int row) {
+        return bytesOffsets[column] + buffer.getInt(valuesOffsets[column] + row * Integer.BYTES);
+    }
+
+    int stringEnd(final int column, final int row) {
+        return bytesOffsets[column] + buffer.getInt(valuesOffsets[column] + (row + 1) * Integer.BYTES);
+    }
+
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the value of a {@code STRING} column, {@code null} for {@code NULL}; decoded on each call
+     */
+    public String getString(final int column, final int row) {
+        if (isNull(column, row)) {
+            return null;
+        }
+        final int start = stringStart(column, row);
+        return readUtf8(start, stringEnd(column, row) - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
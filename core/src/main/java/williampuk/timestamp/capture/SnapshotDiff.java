@@ -0,0 +1,156 @@
+package williampuk.timestamp.capture;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares two {@link Snapshot}s column by column, matching columns by label and rows by position. Values are
+ * compared in the mappings, so the heap used does not grow with the snapshots; only the first {@value
+ * #MAX_REPORTED_DIFFERENCES} differences are decoded for the report. {@code TIMESTAMP} values are compared as the
+ * wall-clock times read, and resolved to instants in the snapshot's zone only for the report.
+ */
+public class SnapshotDiff {
+
+    private static final int MAX_REPORTED_DIFFERENCES = 50;
+
+    private final List<String> differences = new ArrayList<>();
+    private long differenceCount;
+
+    private SnapshotDiff() {
+    }
+
+    /**
+     * @param args the two snapshot files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SnapshotDiff <snapshot> <snapshot>");
+            System.exit(2);
+        }
+        try (final Snapshot a = Snapshot.open(Paths.get(args[0]));
+             final Snapshot b = Snapshot.open(Paths.get(args[1]))) {
+            final SnapshotDiff diff = diff(a, b);
+            diff.print(System.out);
+            System.exit(diff.getDifferenceCount() == 0 ? 0 : 1);
+        }
+    }
+
+    public static SnapshotDiff diff(final Snapshot a, final Snapshot b) {
+        final SnapshotDiff diff = new SnapshotDiff();
+        if (!a.getZone().equals(b.getZone())) {
+            diff.report("zone: " + a.getZone() + " vs " + b.getZone());
+        }
+        if (a.getRowCount() != b.getRowCount()) {
+            diff.report("row count: " + a.getRowCount() + " vs " + b.getRowCount());
+        }
+        for (int c = 0; c < a.getColumnCount(); c++) {
+            final String label = a.getLabel(c);
+            final int other = b.indexOf(label);
+            if (other < 0) {
+                diff.report("column " + label + ": only in the first snapshot");
+            } else if (a.getKind(c) != b.getKind(other)) {
+                diff.report("column " + label + ": " + a.getKind(c) + " vs " + b.getKind(other));
+            } else {
+                diff.diffColumn(a, c, b, other);
+            }
+        }
+        for (int c = 0; c < b.getColumnCount(); c++) {
+            if (a.indexOf(b.getLabel(c)) < 0) {
+                diff.report("column " + b.getLabel(c) + ": only in the second snapshot");
+            }
+        }
+        return diff;
+    }
+
+    private void diffColumn(final Snapshot a, final int columnA, final Snapshot b, final int columnB) {
+        final int rows = Math.min(a.getRowCount(), b.getRowCount());
+        final boolean strings = a.getKind(columnA) == Snapshot.Kind.STRING;
+        for (int row = 0; row < rows; row++) {
+            final boolean nullA = a.isNull(columnA, row);
+            final boolean nullB = b.isNull(columnB, row);
+            final boolean equal;
+            if (nullA || nullB) {
+                equal = nullA == nullB;
+            } else if (strings) {
+                equal = stringsEqual(a, columnA, b, columnB, row);
+            } else {
+                equal = a.getLong(columnA, row) == b.getLong(columnB, row);
+            }
+            if (!equal) {
+                differenceCount++;
+                if (differences.size() < MAX_REPORTED_DIFFERENCES) {
+                    differences.add("row " + (row + 1) + ", " + a.getLabel(columnA) + ": " +
+                            format(a, columnA, row) + " vs " + format(b, columnB, row));
+                }
+            }
+        }
+    }
+
+    private static boolean stringsEqual(final Snapshot a, final int columnA, final Snapshot b, final int columnB,
+                                        final int row) {
+        final int startA = a.stringStart(columnA, row);
+        final int length = a.stringEnd(columnA, row) - startA;
+        final int startB = b.stringStart(columnB, row);
+        if (b.stringEnd(columnB, row) - startB != length) {
+            return false;
+        }
+        final ByteBuffer bufferA = a.getBuffer();
+        final ByteBuffer bufferB = b.getBuffer();
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            if (bufferA.getLong(startA + i) != bufferB.getLong(startB + i)) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (bufferA.get(startA + i) != bufferB.get(startB + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String format(final Snapshot snapshot, final int column, final int row) {
+        if (snapshot.isNull(column, row)) {
+            return "NULL";
+        }
+        switch (snapshot.getKind(column)) {
+            case TIMESTAMP: {
+                final LocalDateTime local = TimestampCodec.toLocalDateTime(snapshot.getLong(column, row));
+                final ZonedDateTime zoned = local.atZone(snapshot.getZone()).withLaterOffsetAtOverlap();
+                // A time in a gap is pushed forward, so the wall-clock time read is shown as well
+                return zoned.toLocalDateTime().equals(local) ? zoned.toString() : local + " (" + zoned + ")";
+            }
+            case LONG:
+                return Long.toString(snapshot.getLong(column, row));
+            default:
+                return '\'' + snapshot.getString(column, row) + '\'';
+        }
+    }
+
+    private void report(final String difference) {
+        differenceCount++;
+        if (differences.size() < MAX_REPORTED_DIFFERENCES) {
+            differences.add(difference);
+        }
+    }
+
+    public long getDifferenceCount() {
+        return differenceCount;
+    }
+
+    public void print(final PrintStream out) {
+        out.println("=== Snapshot diff: " + differenceCount + " differences ===");
+        for (final String difference : differences) {
+            out.println(difference);
+        }
+    }
+}
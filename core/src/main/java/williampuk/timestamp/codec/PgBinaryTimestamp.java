@@ -0,0 +1,137 @@
+package williampuk.timestamp.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/**
+ * Decodes Postgres {@code timestamp} and {@code timestamptz} values as pgjdbc receives them, without going through
+ * {@link java.util.Calendar} or {@link java.time.LocalDateTime}.
+ * <p>
+ * In binary format a value is a big-endian int64 of microseconds since 2000-01-01 00:00: a wall-clock time for
+ * {@code timestamp}, an instant for {@code timestamptz}. pgjdbc uses binary format for a prepared statement once it
+ * is server-prepared, after {@code prepareThreshold} executions or from the first with {@code prepareThreshold=-1},
+ * and {@link ResultSet#getBytes(int)} hands the value over as received. A value that arrived as text is parsed
+ * instead, so the same read works in both modes.
+ */
+public final class PgBinaryTimestamp {
+
+    /** The length of a binary value. */
+    public static final int LENGTH = 8;
+    /** 2000-01-01 00:00 in epoch (or local) micros. */
+    public static final long POSTGRES_EPOCH_MICROS = TimestampCodec.localMicros(2000, 1, 1, 0, 0, 0, 0);
+    // As long as a binary value; as one, it would be a time some 240,000 years from now
+    private static final byte[] INFINITY_TEXT = "infinity".getBytes(StandardCharsets.US_ASCII);
+
+    private PgBinaryTimestamp() {
+    }
+
+    /**
+     * @return the value in local micros for a {@code timestamp}, epoch micros for a {@code timestamptz}
+     * @throws SQLDataException for {@code infinity} and {@code -infinity}
+     */
+    public static long decode(final byte[] wire) throws SQLException {
+        if (wire.length != LENGTH) {
+            return parseText(wire);
+        }
+        if (Arrays.equals(wire, INFINITY_TEXT)) {
+            throw new SQLDataException("Infinite timestamp", "22008");
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            value = value << 8 | wire[i] & 0xFF;
+        }
+        if (value == Long.MAX_VALUE || value == Long.MIN_VALUE) {
+            throw new SQLDataException("Infinite timestamp", "22008");
+        }
+        return value + POSTGRES_EPOCH_MICROS;
+    }
+
+    /**
+     * Parses the text format of a {@code timestamp}, {@code yyyy-MM-dd HH:mm:ss[.ffffff]}, with 1 to 6 fraction
+     * digits.
+     *
+     * @return the value in local micros
+     * @throws SQLDataException if the text is not in that format or is not a valid date-time
+     */
+    static long parseText(final byte[] text) throws SQLException {
+        if (text.length == INFINITY_TEXT.length + 1 && text[0] == '-' &&
+                Arrays.equals(text, 1, text.length, INFINITY_TEXT, 0, INFINITY_TEXT.length)) {
+            throw new SQLDataException("Infinite timestamp", "22008");
+        }
+        if (text.length < 19 || text[4] != '-' || text[7] != '-' || text[10] != ' ' || text[13] != ':' ||
+                text[16] != ':') {
+            throw badText(text);
+        }
+        int micros = 0;
+        if (text.length > 19) {
+            if (text[19] != '.' || text.length == 20 || text.length > 26) {
+                throw badText(text);
+            }
+            for (int i = 20, scale = 100_000; i < text.length; i++, scale /= 10) {
+                micros += digit(text, i) * scale;
+            }
+        }
+        final int year = number(text, 0, 4);
+        final int month = number(text, 5, 7);
+        final int day = number(text, 8, 10);
+        final int hour = number(text, 11, 13);
+        final int minute = number(text, 14, 16);
+        final int second = number(text, 17, 19);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour > 23 ||
+                minute > 59 || second > 59) {
+            throw badText(text);
+        }
+        return TimestampCodec.localMicros(year, month, day, hour, minute, second, micros);
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        if (month == 2) {
+            return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static int number(final byte[] text, final int from, final int to) throws SQLException {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + digit(text, i);
+        }
+        return value;
+    }
+
+    private static int digit(final byte[] text, final int index) throws SQLException {
+        final int digit = text[index] - '0';
+        if (digit < 0 || digit > 9) {
+            throw badText(text);
+        }
+        return digit;
+    }
+
+    private static SQLDataException badText(final byte[] text) {
+        // Also BC dates and years after 9999, which the harness never stores
+        return new SQLDataException("Unsupported timestamp text: " + new String(text, StandardCharsets.US_ASCII),
+                "22007");
+    }
+
+    /**
+     * Reads a {@code timestamp} column as a wall-clock time of the codec's zone.
+     *
+     * @return the instant in epoch micros, 0 for SQL {@code NULL}; see {@link ResultSet#wasNull()}
+     */
+    public static long getEpochMicros(final ResultSet rs, final int columnIndex, final TimestampCodec codec)
+            throws SQLException {
+        final byte[] wire = rs.getBytes(columnIndex);
+        return wire == null ? 0 : codec.toEpochMicros(decode(wire));
+    }
+
+    public static Timestamp toTimestamp(final long epochMicros) {
+        final long epochSecond = Math.floorDiv(epochMicros, TimestampCodec.MICROS_PER_SECOND);
+        final Timestamp ts = new Timestamp(epochSecond * 1000L);
+        ts.setNanos((int) (epochMicros - epochSecond * TimestampCodec.MICROS_PER_SECOND) * 1000);
+        return ts;
+    }
+}
@@ -0,0 +1,317 @@
+package williampuk.timestamp.codec;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Converts between instants and wall-clock date-times of one time zone without allocating.
+ * <p>
+ * Both sides are represented as {@code long} microseconds: an instant as microseconds since the epoch ("epoch
+ * micros"), a wall-clock date-time as the epoch micros it would have in UTC ("local micros"). The zone's offset
+ * transitions are read once from {@link ZoneRules} into primitive arrays, up to the end of {@value
+ * #PRECOMPUTED_UNTIL_YEAR}; every conversion within that range is a binary search over those arrays.
+ * <p>
+ * Wall-clock times that don't exist or are ambiguous are resolved the way a lenient {@link java.util.Calendar} does,
+ * so that {@link #getTimestamp(ResultSet, int, ZoneId)} and {@link #setTimestamp(PreparedStatement, int, Timestamp,
+ * ZoneId)} can stand in for the JDBC {@code Calendar} overloads: a time in a gap is pushed forward by the length of
+ * the gap, a time in an overlap gets the offset in effect after the transition.
+ */
+public final class TimestampCodec {
+
+    public static final int PRECOMPUTED_UNTIL_YEAR = 2100;
+
+    public static final long MICROS_PER_SECOND = 1_000_000L;
+    public static final long MICROS_PER_DAY = 86_400L * MICROS_PER_SECOND;
+
+    private static final long PRECOMPUTED_UNTIL_EPOCH_SECOND =
+            LocalDateTime.of(PRECOMPUTED_UNTIL_YEAR + 1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final ConcurrentMap<ZoneId, TimestampCodec> CODECS = new ConcurrentHashMap<>();
+    // Drivers may keep state in the calendar they are given, hence one per thread
+    private static final ThreadLocal<Calendar> UTC_CALENDAR =
+            ThreadLocal.withInitial(() -> Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC)));
+    // 1582-10-25: a date the Julian calendar skips is pushed up to 10 days past the cutover of 1582-10-15
+    private static final long JULIAN_UNTIL_EPOCH_MILLIS = -12_218_428_800_000L;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final boolean precomputedForever;
+    // Instant of each transition in epoch seconds, ascending
+    private final long[] transitions;
+    // Wall-clock time in local seconds from which the offset after each transition applies
+    private final long[] localCutovers;
+    // offsets[i] applies before transitions[i], offsets[transitions.length] after the last one
+    private final int[] offsets;
+
+    private TimestampCodec(final ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        final List<ZoneOffsetTransition> list = new ArrayList<>(rules.getTransitions());
+        ZoneOffsetTransition next = list.isEmpty() ? rules.nextTransition(Instant.MIN) :
+                rules.nextTransition(list.get(list.size() - 1).getInstant());
+        while (next != null && next.toEpochSecond() < PRECOMPUTED_UNTIL_EPOCH_SECOND) {
+            if (list.isEmpty() || next.toEpochSecond() > list.get(list.size() - 1).toEpochSecond()) {
+                list.add(next);
+            }
+            next = rules.nextTransition(next.getInstant());
+        }
+        this.precomputedForever = next == null;
+        this.transitions = new long[list.size()];
+        this.localCutovers = new long[list.size()];
+        this.offsets = new int[list.size() + 1];
+        this.offsets[0] = list.isEmpty() ? rules.getOffset(Instant.EPOCH).getTotalSeconds() :
+                list.get(0).getOffsetBefore().getTotalSeconds();
+        for (int i = 0; i < list.size(); i++) {
+            final ZoneOffsetTransition t = list.get(i);
+            transitions[i] = t.toEpochSecond();
+            localCutovers[i] = t.toEpochSecond() + t.getOffsetAfter().getTotalSeconds();
+            offsets[i + 1] = t.getOffsetAfter().getTotalSeconds();
+        }
+    }
+
+    /**
+     * @return the (shared) codec of {@code zone}
+     */
+    public static TimestampCodec of(final ZoneId zone) {
+        final TimestampCodec codec = CODECS.get(zone);
+        return codec != null ? codec : CODECS.computeIfAbsent(zone, TimestampCodec::new);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return the offset from UTC in seconds at the given instant
+     */
+    public int offsetSecondsAt(final long epochMicros) {
+        final long epochSecond = Math.floorDiv(epochMicros, MICROS_PER_SECOND);
+        if (!precomputedForever && epochSecond >= PRECOMPUTED_UNTIL_EPOCH_SECOND) {
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        return offsets[upperBound(transitions, epochSecond)];
+    }
+
+    /**
+     * @return the offset from UTC in seconds used to resolve the given wall-clock time
+     */
+    public int offsetSecondsFor(final long localMicros) {
+        final long localSecond = Math.floorDiv(localMicros, MICROS_PER_SECOND);
+        if (!precomputedForever && localSecond >= PRECOMPUTED_UNTIL_EPOCH_SECOND) {
+            return fallbackOffsetFor(localSecond);
+        }
+        return offsets[upperBound(localCutovers, localSecond)];
+    }
+
+    /**
+     * @return the wall-clock time of the given instant in local micros
+     */
+    public long toLocalMicros(final long epochMicros) {
+        return epochMicros + offsetSecondsAt(epochMicros) * MICROS_PER_SECOND;
+    }
+
+    /**
+     * @return the instant of the given wall-clock time in epoch micros
+     */
+    public long toEpochMicros(final long localMicros) {
+        return localMicros - offsetSecondsFor(localMicros) * MICROS_PER_SECOND;
+    }
+
+    /**
+     * @return {@code true} if the given wall-clock time is skipped by a gap, e.g. when clocks spring forward
+     */
+    public boolean isInGap(final long localMicros) {
+        return toLocalMicros(toEpochMicros(localMicros)) != localMicros;
+    }
+
+    private int fallbackOffsetFor(final long localSecond) {
+        final LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+        final ZoneOffsetTransition t = rules.getTransition(local);
+        return t == null ? rules.getOffset(local).getTotalSeconds() :
+                (t.isGap() ? t.getOffsetBefore() : t.getOffsetAfter()).getTotalSeconds();
+    }
+
+    /**
+     * @return the number of elements of the ascending {@code array} less than or equal to {@code key}
+     */
+    private static int upperBound(final long[] array, final long key) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (array[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // -- Wall-clock fields <-> local micros
+
+    /**
+     * @return the local micros of the given wall-clock fields (proleptic Gregorian calendar, month 1-12)
+     */
+    public static long localMicros(final int year, final int month, final int day, final int hour, final int minute,
+                                   final int second, final int micros) {
+        return epochDay(year, month, day) * MICROS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * MICROS_PER_SECOND + micros;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (H. Hinnant's {@code days_from_civil}).
+     */
+    public static long epochDay(final int year, final int month, final int day) {
+        final long y = month <= 2 ? year - 1L : year;
+        final long era = Math.floorDiv(y, 400);
+        final long yoe = y - era * 400;
+        final long doy = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Splits local micros into wall-clock fields.
+     *
+     * @param fields receives year, month (1-12), day, hour, minute, second and microsecond; at least 7 long
+     */
+    public static void toFields(final long localMicros, final int[] fields) {
+        final long epochDay = Math.floorDiv(localMicros, MICROS_PER_DAY);
+        final long microOfDay = localMicros - epochDay * MICROS_PER_DAY;
+        // H. Hinnant's civil_from_days
+        final long z = epochDay + 719468;
+        final long era = Math.floorDiv(z, 146097);
+        final long doe = z - era * 146097;
+        final long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        final long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final long mp = (5 * doy + 2) / 153;
+        final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        fields[0] = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+        fields[1] = month;
+        fields[2] = (int) (doy - (153 * mp + 2) / 5 + 1);
+        final long secondOfDay = microOfDay / MICROS_PER_SECOND;
+        fields[3] = (int) (secondOfDay / 3600);
+        fields[4] = (int) (secondOfDay / 60 % 60);
+        fields[5] = (int) (secondOfDay % 60);
+        fields[6] = (int) (microOfDay % MICROS_PER_SECOND);
+    }
+
+    public static long localMicros(final LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * MICROS_PER_SECOND + dateTime.getNano() / 1000;
+    }
+
+    public static LocalDateTime toLocalDateTime(final long localMicros) {
+        final long epochSecond = Math.floorDiv(localMicros, MICROS_PER_SECOND);
+        return LocalDateTime.ofEpochSecond(epochSecond,
+                (int) (localMicros - epochSecond * MICROS_PER_SECOND) * 1000, ZoneOffset.UTC);
+    }
+
+    public static long epochMicros(final Timestamp ts) {
+        return Math.floorDiv(ts.getTime(), 1000L) * MICROS_PER_SECOND + ts.getNanos() / 1000;
+    }
+
+    // -- JDBC helpers
+
+    /**
+     * Reads a {@code TIMESTAMP} column as a wall-clock time of {@code zone}, like {@link ResultSet#getTimestamp(int,
+     * java.util.Calendar)} with a calendar of that zone but without creating one.
+     * <p>
+     * The driver reads the wall-clock time as UTC, which has no gaps for it to resolve, into the {@link Timestamp}
+     * that is returned, so the only allocation is the driver's own. Before the Gregorian cutover of 1582 drivers
+     * convert with the Julian calendar; there, the value is read again as a {@link LocalDateTime}.
+     */
+    public static Timestamp getTimestamp(final ResultSet rs, final int columnIndex, final ZoneId zone)
+            throws SQLException {
+        final Timestamp ts = rs.getTimestamp(columnIndex, UTC_CALENDAR.get());
+        if (ts == null) {
+            return null;
+        }
+        if (ts.getTime() < JULIAN_UNTIL_EPOCH_MILLIS) {
+            return of(zone).toTimestamp(rs.getObject(columnIndex, LocalDateTime.class));
+        }
+        final int nanos = ts.getNanos();
+        final long epochMicros = of(zone).toEpochMicros(epochMicros(ts));
+        ts.setTime(Math.floorDiv(epochMicros, MICROS_PER_SECOND) * 1000L);
+        ts.setNanos(nanos);
+        return ts;
+    }
+
+    /**
+     * Binds {@code value} as its wall-clock time in {@code zone}, with the result of {@link PreparedStatement#setTimestamp(int,
+     * Timestamp, java.util.Calendar)} with a calendar of that zone but without creating one: the value is bound as a
+     * {@link LocalDateTime}, so the driver's own {@code Calendar} handling is not involved.
+     */
+    public static void setTimestamp(final PreparedStatement ps, final int parameterIndex, final Timestamp value,
+                                    final ZoneId zone) throws SQLException {
+        if (value == null) {
+            ps.setNull(parameterIndex, Types.TIMESTAMP);
+        } else {
+            ps.setObject(parameterIndex, of(zone).toLocalDateTime(value));
+        }
+    }
+
+    public Timestamp toTimestamp(final LocalDateTime local) {
+        final long epochMicros = toEpochMicros(localMicros(local));
+        final Timestamp ts = new Timestamp(Math.floorDiv(epochMicros, MICROS_PER_SECOND) * 1000L);
+        ts.setNanos(local.getNano());
+        return ts;
+    }
+
+    /**
+     * @return {@code ts} as {@link Timestamp#toString()} prints it, but as a wall-clock time of this zone rather than
+     * of the JVM default zone
+     */
+    public String format(final Timestamp ts) {
+        final int[] f = new int[7];
+        toFields(toLocalMicros(epochMicros(ts)), f);
+        final StringBuilder sb = new StringBuilder(29);
+        appendPadded(sb, f[0], 4).append('-');
+        appendPadded(sb, f[1], 2).append('-');
+        appendPadded(sb, f[2], 2).append(' ');
+        appendPadded(sb, f[3], 2).append(':');
+        appendPadded(sb, f[4], 2).append(':');
+        appendPadded(sb, f[5], 2).append('.');
+        final int nanos = ts.getNanos();
+        if (nanos == 0) {
+            return sb.append('0').toString();
+        }
+        appendPadded(sb, nanos, 9);
+        int end = sb.length();
+        while (sb.charAt(end - 1) == '0') {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a non-negative {@code value} left-padded with zeros to {@code width} digits.
+     */
+    public static StringBuilder appendPadded(final StringBuilder sb, final int value, final int width) {
+        int digits = 1;
+        for (int rest = value; rest >= 10; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(value);
+    }
+
+    public LocalDateTime toLocalDateTime(final Timestamp ts) {
+        final long localMicros = toLocalMicros(epochMicros(ts));
+        final long epochSecond = Math.floorDiv(localMicros, MICROS_PER_SECOND);
+        return LocalDateTime.ofEpochSecond(epochSecond, ts.getNanos(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,270 @@
+package williampuk.timestamp.dbutils;
+
+import org.apache.commons.lang3.function.FailableConsumer;
+import org.apache.commons.lang3.function.FailableFunction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The asynchronous counterpart of {@link DbUtils#withDbConn}: work on a connection of a {@link DbConnSupplier} runs
+ * on an {@link Executor} and its outcome is a {@link CompletableFuture}, failed with the {@link SQLException} itself
+ * rather than a wrapper.
+ * <p>
+ * At most {@code maxInFlight} pieces of work run at once on the connections of a {@link DbConnSupplier}, counting
+ * those of every open executor on the same supplier (as told by its {@code equals}). The rest wait in one queue per
+ * supplier, first come first served and not on a thread, and fail with {@link SQLTransientConnectionException} if no
+ * slot frees up within {@code acquireTimeout}. Every statement the work
+ * creates gets {@code statementTimeout} as its query timeout, rounded up to whole seconds as JDBC takes it.
+ * Cancelling the future, or completing it some other way such as {@link CompletableFuture#orTimeout}, takes queued
+ * work off the queue and cancels the statements of running work with {@link java.sql.Statement#cancel()}.
+ * <p>
+ * The default executor runs each piece of work on a virtual thread where the JDK has them (21 and later), and on a
+ * pooled platform thread otherwise; the in-flight limit bounds that pool too.
+ */
+public class AsyncDbExecutor implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+    public static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_STATEMENT_TIMEOUT = Duration.ofSeconds(60);
+
+    // The limits of the suppliers with an open executor
+    private static final Map<DbConnSupplier, InFlightLimit> LIMITS = new HashMap<>();
+
+    private final DbConnSupplier db;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final long acquireTimeoutNanos;
+    private final int queryTimeoutSeconds;
+    private final InFlightLimit limit;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public AsyncDbExecutor(final DbConnSupplier db) {
+        this(db, null, DEFAULT_MAX_IN_FLIGHT, DEFAULT_ACQUIRE_TIMEOUT, DEFAULT_STATEMENT_TIMEOUT);
+    }
+
+    /**
+     * @param executor         runs the work; {@code null} for the default, which {@link #close()} shuts down
+     * @param maxInFlight      the maximum number of pieces of work running at once on {@code db}; no more than its
+     *                         pool holds, or the rest wait for a connection there instead. Must be that of the other
+     *                         open executors on {@code db}, if any
+     * @param acquireTimeout   how long work may wait for one of the {@code maxInFlight} slots
+     * @param statementTimeout the query timeout of every statement, {@link Duration#ZERO} for none
+     */
+    public AsyncDbExecutor(final DbConnSupplier db, final Executor executor, final int maxInFlight,
+                           final Duration acquireTimeout, final Duration statementTimeout) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.db = db;
+        this.limit = register(db, maxInFlight);
+        this.ownExecutor = executor == null ? newDefaultExecutor() : null;
+        this.executor = executor == null ? ownExecutor : executor;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.queryTimeoutSeconds = (int) Math.min(Integer.MAX_VALUE,
+                (statementTimeout.toMillis() + 999) / 1000);
+        this.timer = new ScheduledThreadPoolExecutor(1, daemonThreads("async-db-timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private static InFlightLimit register(final DbConnSupplier db, final int maxInFlight) {
+        synchronized (LIMITS) {
+            final InFlightLimit limit = LIMITS.computeIfAbsent(db, k -> new InFlightLimit(maxInFlight));
+            if (limit.maxInFlight != maxInFlight) {
+                throw new IllegalArgumentException("maxInFlight " + maxInFlight + " differs from the " +
+                        limit.maxInFlight + " of the executors already open on the supplier");
+            }
+            limit.executors++;
+            return limit;
+        }
+    }
+
+    private static void unregister(final DbConnSupplier db, final InFlightLimit limit) {
+        synchronized (LIMITS) {
+            if (--limit.executors == 0) {
+                LIMITS.remove(db, limit);
+            }
+        }
+    }
+
+    private static ExecutorService newDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Before JDK 21: threads are only created for work that holds a slot, so there are no more than that
+            return Executors.newCachedThreadPool(daemonThreads("async-db"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return a future of the work's completion
+     */
+    public CompletableFuture<Void> withDbConn(final FailableConsumer<Connection, SQLException> connConsumer) {
+        return applyWithDbConn(conn -> {
+            connConsumer.accept(conn);
+            return null;
+        });
+    }
+
+    /**
+     * @return a future of what the work returns
+     */
+    public <T> CompletableFuture<T> applyWithDbConn(final FailableFunction<Connection, T, SQLException> work) {
+        final Task<T> task = new Task<>(work);
+        task.future.whenComplete((result, e) -> {
+            if (e instanceof CancellationException || e instanceof TimeoutException) {
+                task.cancel();
+            }
+        });
+        limit.waiting.add(task);
+        if (acquireTimeoutNanos > 0) {
+            task.acquireTimeout = timer.schedule(task::timeOut, acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        limit.dispatch();
+        return task.future;
+    }
+
+    /**
+     * Fails the work of this executor still waiting and, when the executor is the default one, stops it; running
+     * work is left to finish.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        timer.shutdownNow();
+        for (final Task<?> task : limit.waiting) {
+            if (task.owner() == this && limit.waiting.remove(task)) {
+                task.future.completeExceptionally(new SQLTransientConnectionException("Executor is closed", "08003"));
+            }
+        }
+        unregister(db, limit);
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * The slots and the queue of waiting work shared by the executors on one supplier.
+     */
+    private static final class InFlightLimit {
+
+        private final int maxInFlight;
+        private final Semaphore slots;
+        private final Queue<Task<?>> waiting = new ConcurrentLinkedQueue<>();
+        // Guarded by LIMITS
+        private int executors;
+
+        InFlightLimit(final int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            this.slots = new Semaphore(maxInFlight);
+        }
+
+        /**
+         * Starts waiting work while there are free slots. Called whenever work is queued or a slot is released, so no
+         * work is left waiting next to a free slot.
+         */
+        void dispatch() {
+            while (!waiting.isEmpty() && slots.tryAcquire()) {
+                final Task<?> task = waiting.poll();
+                if (task == null || !task.start()) {
+                    slots.release();
+                    continue;
+                }
+                try {
+                    task.owner().executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.future.completeExceptionally(e);
+                    slots.release();
+                }
+            }
+        }
+    }
+
+    private final class Task<T> implements Runnable {
+
+        private final FailableFunction<Connection, T, SQLException> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile ScheduledFuture<?> acquireTimeout;
+        private volatile CancellableConnection conn;
+
+        Task(final FailableFunction<Connection, T, SQLException> work) {
+            this.work = work;
+        }
+
+        /**
+         * @return {@code false} if the work is done with before it got a slot: cancelled or timed out
+         */
+        boolean start() {
+            if (future.isDone() || !started.compareAndSet(false, true)) {
+                return false;
+            }
+            final ScheduledFuture<?> timeout = acquireTimeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            return true;
+        }
+
+        AsyncDbExecutor owner() {
+            return AsyncDbExecutor.this;
+        }
+
+        void timeOut() {
+            if (limit.waiting.remove(this)) {
+                future.completeExceptionally(new SQLTransientConnectionException(
+                        "Timed out waiting for one of the in-flight slots", "08001"));
+            }
+        }
+
+        void cancel() {
+            if (limit.waiting.remove(this)) {
+                final ScheduledFuture<?> timeout = acquireTimeout;
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                return;
+            }
+            final CancellableConnection running = conn;
+            if (running != null) {
+                running.cancel();
+            }
+        }
+
+        @Override
+        public void run() {
+            try (final Connection physical = db.get()) {
+                conn = new CancellableConnection(physical, queryTimeoutSeconds);
+                if (future.isDone()) {
+                    // Cancelled between taking the slot and getting the connection
+                    return;
+                }
+                future.complete(work.apply(conn));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                conn = null;
+                limit.slots.release();
+                limit.dispatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * What a borrower of a {@link PooledDbConnSupplier} holds: a handle to a {@link PooledConnection}, fresh for every
+ * borrow. Closing it hands the connection back to the pool; after that every call fails, so a reference kept by
+ * mistake cannot reach the session of the next borrower.
+ */
+class BorrowedConnection extends DelegatingConnection {
+
+    private final PooledDbConnSupplier pool;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    BorrowedConnection(final PooledDbConnSupplier pool, final PooledConnection connection) {
+        super(connection);
+        this.pool = pool;
+    }
+
+    @Override
+    protected Connection target() throws SQLException {
+        if (released.get()) {
+            throw new SQLException("Connection is closed", "08003");
+        }
+        return delegate;
+    }
+
+    /**
+     * @throws IllegalStateException once the connection is handed back to the pool
+     */
+    @Override
+    public Connection getDelegate() {
+        if (released.get()) {
+            throw new IllegalStateException("Connection is closed");
+        }
+        return delegate;
+    }
+
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            pool.release((PooledConnection) delegate);
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return released.get() || delegate.isClosed();
+    }
+}
@@ -0,0 +1,175 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A connection handed to the work of an {@link AsyncDbExecutor}: every statement it creates gets the query timeout,
+ * and {@link #cancel()} cancels the statements still open and fails any created afterwards. Statements leave the
+ * tracked set as they are closed, so work that runs many statements keeps only its open ones.
+ */
+class CancellableConnection extends DelegatingConnection {
+
+    private final int queryTimeoutSeconds;
+    private final Set<Statement> statements = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean cancelled;
+
+    /**
+     * @param queryTimeoutSeconds see {@link Statement#setQueryTimeout(int)}, 0 for none
+     */
+    CancellableConnection(final Connection delegate, final int queryTimeoutSeconds) {
+        super(delegate);
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+    }
+
+    void cancel() {
+        final List<Statement> open;
+        synchronized (statements) {
+            cancelled = true;
+            open = new ArrayList<>(statements);
+        }
+        for (final Statement stmt : open) {
+            try {
+                if (!stmt.isClosed()) {
+                    stmt.cancel();
+                }
+            } catch (SQLException e) {
+                // The statement finished in the meantime, or the driver cannot cancel it; nothing more to do
+            }
+        }
+    }
+
+    private Statement track(final Statement stmt) throws SQLException {
+        register(stmt);
+        return new DelegatingStatement<Statement>(this, stmt) {
+            @Override
+            public void close() throws SQLException {
+                statementClosed(delegate);
+                delegate.close();
+            }
+        };
+    }
+
+    private PreparedStatement track(final PreparedStatement stmt) throws SQLException {
+        register(stmt);
+        return new DelegatingPreparedStatement<PreparedStatement>(this, stmt) {
+            @Override
+            public void close() throws SQLException {
+                statementClosed(delegate);
+                delegate.close();
+            }
+        };
+    }
+
+    private CallableStatement track(final CallableStatement stmt) throws SQLException {
+        register(stmt);
+        return new DelegatingCallableStatement<CallableStatement>(this, stmt) {
+            @Override
+            public void close() throws SQLException {
+                statementClosed(delegate);
+                delegate.close();
+            }
+        };
+    }
+
+    private void register(final Statement stmt) throws SQLException {
+        final boolean cancelledAlready;
+        synchronized (statements) {
+            cancelledAlready = cancelled;
+            if (!cancelled) {
+                statements.add(stmt);
+            }
+        }
+        if (cancelledAlready) {
+            stmt.close();
+            throw new SQLException("Statement was cancelled", "57014");
+        }
+        if (queryTimeoutSeconds > 0) {
+            stmt.setQueryTimeout(queryTimeoutSeconds);
+        }
+    }
+
+    private void statementClosed(final Statement stmt) {
+        synchronized (statements) {
+            statements.remove(stmt);
+        }
+    }
+
+    /**
+     * @return the number of statements created and not yet closed
+     */
+    int getOpenStatementCount() {
+        synchronized (statements) {
+            return statements.size();
+        }
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return track(delegate.createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(delegate.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        return track(delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return track(delegate.prepareStatement(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return track(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return track(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return track(delegate.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return track(delegate.prepareStatement(sql, columnIndexes));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return track(delegate.prepareStatement(sql, columnNames));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return track(delegate.prepareCall(sql));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return track(delegate.prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return track(delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+}
@@ -0,0 +1,43 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+
+/**
+ * A {@link CallableStatement} of an {@link InstrumentedConnection}; records the latency of every execution against
+ * its SQL.
+ */
+class InstrumentedCallableStatement extends DelegatingCallableStatement<CallableStatement> {
+
+    private final JdbcMetrics.SqlStats stats;
+
+    InstrumentedCallableStatement(final InstrumentedConnection connection, final String sql,
+                                  final CallableStatement delegate) {
+        super(connection, delegate);
+        this.stats = connection.getMetrics().forSql(sql);
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeQuery);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeUpdate);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeLargeUpdate);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::execute);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeBatch);
+    }
+}
@@ -0,0 +1,96 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+import java.util.Calendar;
+
+/**
+ * A {@link PreparedStatement} of an {@link InstrumentedConnection}; records the latency of every execution against
+ * its SQL, and the time spent binding timestamps.
+ */
+class InstrumentedPreparedStatement extends DelegatingPreparedStatement<PreparedStatement> {
+
+    private final JdbcMetrics metrics;
+    private final JdbcMetrics.SqlStats stats;
+    private InstrumentedResultSet resultSet;
+
+    InstrumentedPreparedStatement(final InstrumentedConnection connection, final String sql,
+                                  final PreparedStatement delegate) {
+        super(connection, delegate);
+        this.metrics = connection.getMetrics();
+        this.stats = metrics.forSql(sql);
+    }
+
+    private ResultSet wrap(final ResultSet rs) {
+        if (rs == null) {
+            return null;
+        }
+        if (resultSet == null || resultSet.getDelegate() != rs) {
+            resultSet = new InstrumentedResultSet(this, rs, metrics, stats);
+        }
+        return resultSet;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return wrap(JdbcMetrics.execute(stats, delegate::executeQuery));
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeUpdate);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeLargeUpdate);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::execute);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeBatch);
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        return JdbcMetrics.execute(stats, delegate::executeLargeBatch);
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return wrap(delegate.getResultSet());
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        final long start = System.nanoTime();
+        delegate.setTimestamp(parameterIndex, x);
+        metrics.recordTimestampBind(System.nanoTime() - start);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        final long start = System.nanoTime();
+        delegate.setTimestamp(parameterIndex, x, cal);
+        metrics.recordTimestampBind(System.nanoTime() - start);
+    }
+
+    /**
+     * Timestamps are also bound as {@code java.time} values, see {@link
+     * williampuk.timestamp.codec.TimestampCodec#setTimestamp(PreparedStatement, int, Timestamp, java.time.ZoneId)}.
+     */
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        if (!InstrumentedResultSet.isTimestamp(x == null ? null : x.getClass())) {
+            delegate.setObject(parameterIndex, x);
+            return;
+        }
+        final long start = System.nanoTime();
+        delegate.setObject(parameterIndex, x);
+        metrics.recordTimestampBind(System.nanoTime() - start);
+    }
+}
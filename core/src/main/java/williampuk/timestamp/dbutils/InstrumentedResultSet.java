@@ -0,0 +1,97 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+
+/**
+ * A {@link ResultSet} of an instrumented statement; counts the rows fetched and the time spent in {@link #next()},
+ * and times every timestamp read.
+ */
+class InstrumentedResultSet extends DelegatingResultSet {
+
+    private final JdbcMetrics metrics;
+    private final JdbcMetrics.SqlStats stats;
+
+    InstrumentedResultSet(final Statement statement, final ResultSet delegate, final JdbcMetrics metrics,
+                          final JdbcMetrics.SqlStats stats) {
+        super(statement, delegate);
+        this.metrics = metrics;
+        this.stats = stats;
+    }
+
+    /**
+     * @return whether values of {@code type} are timestamps, either as {@link Timestamp} or as {@code java.time}
+     */
+    static boolean isTimestamp(final Class<?> type) {
+        return type == Timestamp.class || type == LocalDateTime.class || type == OffsetDateTime.class ||
+                type == ZonedDateTime.class;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        final long start = System.nanoTime();
+        final boolean hasRow = delegate.next();
+        stats.fetchNanos.add(System.nanoTime() - start);
+        if (hasRow) {
+            stats.rows.increment();
+        }
+        return hasRow;
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        final long start = System.nanoTime();
+        final Timestamp value = delegate.getTimestamp(columnIndex);
+        metrics.recordTimestampRead(System.nanoTime() - start);
+        return value;
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        final long start = System.nanoTime();
+        final Timestamp value = delegate.getTimestamp(columnLabel);
+        metrics.recordTimestampRead(System.nanoTime() - start);
+        return value;
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        final long start = System.nanoTime();
+        final Timestamp value = delegate.getTimestamp(columnIndex, cal);
+        metrics.recordTimestampRead(System.nanoTime() - start);
+        return value;
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        final long start = System.nanoTime();
+        final Timestamp value = delegate.getTimestamp(columnLabel, cal);
+        metrics.recordTimestampRead(System.nanoTime() - start);
+        return value;
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        if (!isTimestamp(type)) {
+            return delegate.getObject(columnIndex, type);
+        }
+        final long start = System.nanoTime();
+        final T value = delegate.getObject(columnIndex, type);
+        metrics.recordTimestampRead(System.nanoTime() - start);
+        return value;
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        if (!isTimestamp(type)) {
+            return delegate.getObject(columnLabel, type);
+        }
+        final long start = System.nanoTime();
+        final T value = delegate.getObject(columnLabel, type);
+        metrics.recordTimestampRead(System.nanoTime() - start);
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+
+/**
+ * A {@link Statement} of an {@link InstrumentedConnection}; records the latency of every execution against its SQL
+ * and hands out result sets that record their rows.
+ */
+class InstrumentedStatement extends DelegatingStatement<Statement> {
+
+    private final JdbcMetrics metrics;
+    private JdbcMetrics.SqlStats lastStats;
+    private InstrumentedResultSet resultSet;
+
+    InstrumentedStatement(final InstrumentedConnection connection, final Statement delegate) {
+        super(connection, delegate);
+        this.metrics = connection.getMetrics();
+    }
+
+    private JdbcMetrics.SqlStats stats(final String sql) {
+        lastStats = metrics.forSql(sql);
+        return lastStats;
+    }
+
+    private ResultSet wrap(final ResultSet rs) {
+        if (rs == null) {
+            return null;
+        }
+        if (resultSet == null || resultSet.getDelegate() != rs) {
+            resultSet = new InstrumentedResultSet(this, rs, metrics, lastStats);
+        }
+        return resultSet;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        return wrap(JdbcMetrics.execute(stats(sql), () -> delegate.executeQuery(sql)));
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeUpdate(sql));
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeUpdate(sql, columnNames));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeLargeUpdate(sql));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeLargeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeLargeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.executeLargeUpdate(sql, columnNames));
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.execute(sql));
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.execute(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.execute(sql, columnIndexes));
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        return JdbcMetrics.execute(stats(sql), () -> delegate.execute(sql, columnNames));
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        return JdbcMetrics.execute(stats(JdbcMetrics.STATEMENT_BATCH_SQL), delegate::executeBatch);
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        return JdbcMetrics.execute(stats(JdbcMetrics.STATEMENT_BATCH_SQL), delegate::executeLargeBatch);
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return wrap(delegate.getResultSet());
+    }
+}
@@ -0,0 +1,179 @@
+package williampuk.timestamp.dbutils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.function.FailableSupplier;
+
+import java.io.PrintStream;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the connections of {@link #instrument(DbConnSupplier)} record what they do: how long it takes to get a
+ * connection, the latency of every execution and the rows fetched per SQL, and the number and time of timestamp
+ * reads and binds. Everything is kept in {@link LongAdder}s and {@link LatencyHistogram}s, so recording from many
+ * threads costs little more than the {@link System#nanoTime()} calls.
+ * <p>
+ * Statements are told apart by their SQL text; past {@value #MAX_TRACKED_SQL} distinct texts, further ones are
+ * counted together under {@value #OTHER_SQL}.
+ */
+public class JdbcMetrics {
+
+    public static final int MAX_TRACKED_SQL = 500;
+    public static final String OTHER_SQL = "<other>";
+    static final String STATEMENT_BATCH_SQL = "<statement batch>";
+
+    private final ConcurrentMap<String, SqlStats> bySql = new ConcurrentHashMap<>();
+    private final LatencyHistogram acquire = new LatencyHistogram();
+    private final LongAdder timestampReads = new LongAdder();
+    private final LongAdder timestampReadNanos = new LongAdder();
+    private final LongAdder timestampBinds = new LongAdder();
+    private final LongAdder timestampBindNanos = new LongAdder();
+
+    /**
+     * @return a supplier of {@code connSupplier}'s connections, wrapped to record into these metrics
+     */
+    public DbConnSupplier instrument(final DbConnSupplier connSupplier) {
+        return () -> {
+            final long start = System.nanoTime();
+            final Connection conn = connSupplier.get();
+            acquire.record(System.nanoTime() - start);
+            return new InstrumentedConnection(conn, this);
+        };
+    }
+
+    SqlStats forSql(final String sql) {
+        final SqlStats stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        return bySql.size() < MAX_TRACKED_SQL ? bySql.computeIfAbsent(sql, s -> new SqlStats()) :
+                bySql.computeIfAbsent(OTHER_SQL, s -> new SqlStats());
+    }
+
+    /**
+     * Runs {@code action}, recording its latency, or its failure, against {@code stats}.
+     */
+    static <T> T execute(final SqlStats stats, final FailableSupplier<T, SQLException> action) throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (SQLException | RuntimeException e) {
+            stats.errors.increment();
+            throw e;
+        } finally {
+            stats.executions.record(System.nanoTime() - start);
+        }
+    }
+
+    void recordTimestampRead(final long nanos) {
+        timestampReads.increment();
+        timestampReadNanos.add(nanos);
+    }
+
+    void recordTimestampBind(final long nanos) {
+        timestampBinds.increment();
+        timestampBindNanos.add(nanos);
+    }
+
+    public LatencyHistogram getAcquireLatency() {
+        return acquire;
+    }
+
+    public long getTimestampReads() {
+        return timestampReads.sum();
+    }
+
+    public long getTimestampReadNanos() {
+        return timestampReadNanos.sum();
+    }
+
+    public long getTimestampBinds() {
+        return timestampBinds.sum();
+    }
+
+    public long getTimestampBindNanos() {
+        return timestampBindNanos.sum();
+    }
+
+    public Map<String, SqlStats> getSqlStats() {
+        return bySql;
+    }
+
+    /**
+     * Dumps the metrics to {@code out} when the JVM shuts down.
+     */
+    public void dumpAtShutdown(final PrintStream out) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(out), "jdbc-metrics-dump"));
+    }
+
+    /**
+     * Prints the metrics, statements with the most execution time first.
+     */
+    public void dump(final PrintStream out) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("=== JDBC metrics ===").append(System.lineSeparator());
+        sb.append(String.format("Connection acquire: %s%n", summary(acquire)));
+        sb.append(String.format("Timestamp reads:    %d in %.3f ms%n",
+                getTimestampReads(), getTimestampReadNanos() / 1e6));
+        sb.append(String.format("Timestamp binds:    %d in %.3f ms%n",
+                getTimestampBinds(), getTimestampBindNanos() / 1e6));
+        final List<Map.Entry<String, SqlStats>> entries = new ArrayList<>(bySql.entrySet());
+        entries.sort(Comparator.comparingLong(
+                (Map.Entry<String, SqlStats> e) -> e.getValue().executions.getTotalNanos()).reversed());
+        for (final Map.Entry<String, SqlStats> e : entries) {
+            final SqlStats stats = e.getValue();
+            sb.append(String.format("%s%n  executions: %s, errors: %d%n  rows: %d, fetched in %.3f ms%n",
+                    StringUtils.abbreviate(StringUtils.normalizeSpace(e.getKey()), 100),
+                    summary(stats.executions), stats.getErrors(), stats.getRows(), stats.getFetchNanos() / 1e6));
+        }
+        // One print, so that concurrent dumps don't interleave
+        out.print(sb);
+    }
+
+    private static String summary(final LatencyHistogram histogram) {
+        return String.format("%d, mean %d us, p50 %d us, p99 %d us, max %d us", histogram.getCount(),
+                toMicros(histogram.getMeanNanos()), toMicros(histogram.getPercentileNanos(0.5)),
+                toMicros(histogram.getPercentileNanos(0.99)), toMicros(histogram.getMaxNanos()));
+    }
+
+    private static long toMicros(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * What was recorded for one SQL text.
+     */
+    public static class SqlStats {
+
+        final LatencyHistogram executions = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder fetchNanos = new LongAdder();
+
+        public LatencyHistogram getExecutions() {
+            return executions;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        /**
+         * @return the time spent in {@link ResultSet#next()}, which includes the round trips for further rows
+         */
+        public long getFetchNanos() {
+            return fetchNanos.sum();
+        }
+    }
+}
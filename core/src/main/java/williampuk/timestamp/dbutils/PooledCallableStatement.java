@@ -0,0 +1,59 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+
+/**
+ * A {@link CallableStatement} of a {@link PooledConnection}; routes every execution through the connection so that
+ * session time zone commands are tracked.
+ */
+class PooledCallableStatement extends DelegatingCallableStatement<CallableStatement> {
+
+    private final PooledConnection pooledConnection;
+    private final String sql;
+
+    PooledCallableStatement(final PooledConnection connection, final String sql,
+                            final CallableStatement delegate) {
+        super(connection.getHandle(), delegate);
+        this.pooledConnection = connection;
+        this.sql = sql;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeQuery();
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return pooledConnection.execute(sql, 0, delegate::executeUpdate);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return pooledConnection.execute(sql, 0L, delegate::executeLargeUpdate);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return pooledConnection.execute(sql, false, delegate::execute);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeBatch();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeLargeBatch();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        pooledConnection.statementClosed(this);
+        delegate.close();
+    }
+}
@@ -0,0 +1,359 @@
+package williampuk.timestamp.dbutils;
+
+import org.apache.commons.lang3.function.FailableSupplier;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A physical connection owned by a {@link PooledDbConnSupplier}. Borrowers never hold it directly, only the {@link
+ * BorrowedConnection} handle made for their borrow, whose closing hands it back to the pool.
+ * <p>
+ * The connection tracks the session time zone set through its statements (see {@link SessionTimeZone}). A command
+ * that would set the zone the session already has is not sent to the server, and a zone left behind by a previous
+ * borrower is reset before the next borrower executes anything else.
+ * <p>
+ * Prepared statements are cached: closing one created by {@link #prepareStatement(String)} or {@link
+ * #prepareStatement(String, int, int)} keeps the physical statement open, and preparing the same SQL again, by this
+ * borrower or a later one, reuses it. At most {@code statementCacheSize} idle statements are kept, the least recently
+ * used one being closed to make room.
+ * <p>
+ * Auto-commit, read-only, the transaction isolation and the catalog are put back to what the session had before the
+ * first borrower changed them through the JDBC API.
+ */
+class PooledConnection extends DelegatingConnection {
+
+    private final PooledDbConnSupplier pool;
+    private final Set<Statement> openStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final int statementCacheSize;
+    // Idle statements in access order, least recently used first
+    private final Map<StatementKey, PreparedStatement> statementCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private SessionTimeZone.Form zoneForm;
+    private String sessionZone;
+    private boolean sessionZoneUnknown;
+    private boolean zoneResetPending;
+
+    // What the session had before a borrower changed it, null while unchanged
+    private Boolean originalReadOnly;
+    private Integer originalIsolation;
+    private String originalCatalog;
+    private boolean catalogChanged;
+
+    private long lastUsedNanos = System.nanoTime();
+    private BorrowedConnection handle;
+
+    PooledConnection(final PooledDbConnSupplier pool, final Connection delegate, final int statementCacheSize) {
+        super(delegate);
+        this.pool = pool;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    /**
+     * @return the handle of a new borrower; the statements it creates report it as their connection
+     */
+    BorrowedConnection lend() {
+        handle = new BorrowedConnection(pool, this);
+        return handle;
+    }
+
+    BorrowedConnection getHandle() {
+        return handle;
+    }
+
+    /**
+     * Puts the connection back into a state fit for the next borrower.
+     */
+    void reset() throws SQLException {
+        SQLException failure = null;
+        for (final Statement s : openStatements.toArray(new Statement[0])) {
+            try {
+                s.close();
+            } catch (SQLException sqle) {
+                failure = sqle;
+            }
+        }
+        openStatements.clear();
+        if (failure != null) {
+            throw failure;
+        }
+        if (!delegate.getAutoCommit()) {
+            delegate.rollback();
+            delegate.setAutoCommit(true);
+            if (zoneForm == SessionTimeZone.Form.POSTGRES) {
+                // A SET inside the rolled back transaction is undone as well
+                sessionZoneUnknown = true;
+            }
+        }
+        if (originalReadOnly != null) {
+            delegate.setReadOnly(originalReadOnly);
+            originalReadOnly = null;
+        }
+        if (originalIsolation != null) {
+            delegate.setTransactionIsolation(originalIsolation);
+            originalIsolation = null;
+        }
+        if (catalogChanged) {
+            delegate.setCatalog(originalCatalog);
+            catalogChanged = false;
+        }
+        delegate.clearWarnings();
+        zoneResetPending = sessionZoneUnknown || sessionZone != null;
+        lastUsedNanos = System.nanoTime();
+    }
+
+    /**
+     * Runs {@code action} for the given SQL, keeping track of session time zone commands.
+     *
+     * @param sql     the SQL about to be executed
+     * @param skipped the result to report if {@code sql} sets the zone the session already has
+     * @param action  sends {@code sql} to the server
+     */
+    <T> T execute(final String sql, final T skipped, final FailableSupplier<T, SQLException> action)
+            throws SQLException {
+        final SessionTimeZone command = SessionTimeZone.parse(sql);
+        if (command == null) {
+            applyPendingZoneReset();
+            return action.get();
+        }
+        if (!sessionZoneUnknown && zoneForm == command.getForm()
+                && Objects.equals(sessionZone, command.getZone())) {
+            zoneResetPending = false;
+            return skipped;
+        }
+        final T result = action.get();
+        zoneForm = command.getForm();
+        sessionZone = command.getZone();
+        sessionZoneUnknown = false;
+        zoneResetPending = false;
+        return result;
+    }
+
+    void beforeExecute() throws SQLException {
+        applyPendingZoneReset();
+    }
+
+    private void applyPendingZoneReset() throws SQLException {
+        if (!zoneResetPending) {
+            return;
+        }
+        try (Statement s = delegate.createStatement()) {
+            s.execute(zoneForm.getResetSql());
+        }
+        sessionZone = null;
+        sessionZoneUnknown = false;
+        zoneResetPending = false;
+    }
+
+    void statementClosed(final Statement statement) {
+        openStatements.remove(statement);
+    }
+
+    /**
+     * Keeps the idle {@code statement} for the next {@link #prepareStatement} of the same key.
+     */
+    void cacheStatement(final StatementKey key, final PreparedStatement statement) throws SQLException {
+        final PreparedStatement replaced = statementCache.put(key, statement);
+        if (replaced != null) {
+            // The same SQL was prepared twice at once
+            replaced.close();
+        }
+        if (statementCache.size() > statementCacheSize) {
+            final Iterator<PreparedStatement> eldest = statementCache.values().iterator();
+            final PreparedStatement evicted = eldest.next();
+            eldest.remove();
+            evicted.close();
+        }
+    }
+
+    private PreparedStatement prepareCached(final String sql, final int resultSetType,
+                                            final int resultSetConcurrency) throws SQLException {
+        if (statementCacheSize == 0) {
+            return track(new PooledPreparedStatement(this, sql,
+                    delegate.prepareStatement(sql, resultSetType, resultSetConcurrency)));
+        }
+        final StatementKey key = new StatementKey(sql, resultSetType, resultSetConcurrency);
+        PreparedStatement statement = statementCache.remove(key);
+        if (statement == null) {
+            statement = delegate.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+        return track(new PooledPreparedStatement(this, sql, statement, key));
+    }
+
+    /**
+     * Closes the physical connection, along with the statements cached for it.
+     */
+    void closePhysically() throws SQLException {
+        try {
+            for (final PreparedStatement statement : statementCache.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // Closing the connection closes it anyway
+                }
+            }
+            statementCache.clear();
+        } finally {
+            delegate.close();
+        }
+    }
+
+    private <S extends Statement> S track(final S statement) {
+        openStatements.add(statement);
+        return statement;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return track(new PooledStatement(this, delegate.createStatement()));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(new PooledStatement(this, delegate.createStatement(resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        return track(new PooledStatement(this,
+                delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return prepareCached(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return prepareCached(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return track(new PooledPreparedStatement(this, sql,
+                delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return track(new PooledPreparedStatement(this, sql, delegate.prepareStatement(sql, autoGeneratedKeys)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return track(new PooledPreparedStatement(this, sql, delegate.prepareStatement(sql, columnIndexes)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return track(new PooledPreparedStatement(this, sql, delegate.prepareStatement(sql, columnNames)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return track(new PooledCallableStatement(this, sql, delegate.prepareCall(sql)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return track(new PooledCallableStatement(this, sql,
+                delegate.prepareCall(sql, resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return track(new PooledCallableStatement(this, sql,
+                delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        delegate.rollback();
+        if (zoneForm == SessionTimeZone.Form.POSTGRES) {
+            sessionZoneUnknown = true;
+        }
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        delegate.rollback(savepoint);
+        if (zoneForm == SessionTimeZone.Form.POSTGRES) {
+            sessionZoneUnknown = true;
+        }
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        if (originalReadOnly == null) {
+            originalReadOnly = delegate.isReadOnly();
+        }
+        delegate.setReadOnly(readOnly);
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        if (originalIsolation == null) {
+            originalIsolation = delegate.getTransactionIsolation();
+        }
+        delegate.setTransactionIsolation(level);
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        if (!catalogChanged) {
+            originalCatalog = delegate.getCatalog();
+            catalogChanged = true;
+        }
+        delegate.setCatalog(catalog);
+    }
+
+    /**
+     * What a cached statement was prepared with.
+     */
+    static final class StatementKey {
+
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+
+        StatementKey(final String sql, final int resultSetType, final int resultSetConcurrency) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            final StatementKey that = (StatementKey) o;
+            return resultSetType == that.resultSetType && resultSetConcurrency == that.resultSetConcurrency
+                    && sql.equals(that.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, resultSetType, resultSetConcurrency);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of connections created by another {@link DbConnSupplier}.
+ * <p>
+ * {@link #get()} hands out an idle connection if there is one and otherwise opens a new one, waiting for a free slot
+ * once {@code maxSize} connections are borrowed. Closing a borrowed connection returns it to the pool. Connections
+ * idle for longer than {@code idleTimeout} are closed, and a connection idle for more than {@link
+ * #VALIDATE_AFTER_IDLE} is validated with {@link Connection#isValid(int)} before it is handed out again.
+ * <p>
+ * Session time zones set through {@code ALTER SESSION SET TIME_ZONE}, {@code SET TIMEZONE} or {@code SET time_zone}
+ * are tracked per connection: a borrower never sees the zone set by a previous borrower, and setting the zone the
+ * session already has does not cost a round trip. Every borrow gets a fresh handle, which fails every call once it is
+ * closed, so a borrower cannot reach the session after handing it back.
+ * <p>
+ * Each connection keeps up to {@code statementCacheSize} closed prepared statements open for reuse, so statements
+ * prepared over and over on borrowed connections are parsed by the server once per connection.
+ */
+public class PooledDbConnSupplier implements DbConnSupplier, AutoCloseable {
+
+    public static final Duration VALIDATE_AFTER_IDLE = Duration.ofSeconds(1);
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DbConnSupplier factory;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long acquireTimeoutNanos;
+    private final int statementCacheSize;
+    private final Semaphore slots;
+    // Most recently used first
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    public PooledDbConnSupplier(final DbConnSupplier factory) {
+        this(factory, 8, Duration.ofMinutes(5), Duration.ofSeconds(30));
+    }
+
+    /**
+     * @param factory        opens physical connections
+     * @param maxSize        the maximum number of connections open at once
+     * @param idleTimeout    how long a connection may stay idle before it is closed
+     * @param acquireTimeout how long {@link #get()} waits for a free slot
+     */
+    public PooledDbConnSupplier(final DbConnSupplier factory, final int maxSize, final Duration idleTimeout,
+                                final Duration acquireTimeout) {
+        this(factory, maxSize, idleTimeout, acquireTimeout, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * @param factory            opens physical connections
+     * @param maxSize            the maximum number of connections open at once
+     * @param idleTimeout        how long a connection may stay idle before it is closed
+     * @param acquireTimeout     how long {@link #get()} waits for a free slot
+     * @param statementCacheSize the maximum number of idle prepared statements kept per connection, 0 for none
+     */
+    public PooledDbConnSupplier(final DbConnSupplier factory, final int maxSize, final Duration idleTimeout,
+                                final Duration acquireTimeout, final int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must not be negative: " + statementCacheSize);
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.statementCacheSize = statementCacheSize;
+        this.slots = new Semaphore(maxSize, true);
+    }
+
+    @Override
+    public Connection get() throws SQLException {
+        try {
+            if (!slots.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Timed out waiting for one of " + maxSize + " pooled connections");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a pooled connection", ie);
+        }
+        try {
+            return borrow().lend();
+        } catch (SQLException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection borrow() throws SQLException {
+        PooledConnection conn;
+        while ((conn = pollIdle()) != null) {
+            final long idleNanos = System.nanoTime() - conn.getLastUsedNanos();
+            if (idleNanos > idleTimeoutNanos) {
+                closeQuietly(conn);
+            } else if (idleNanos > VALIDATE_AFTER_IDLE.toNanos()
+                    && !conn.getDelegate().isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                closeQuietly(conn);
+            } else {
+                return conn;
+            }
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+        }
+        return new PooledConnection(this, factory.get(), statementCacheSize);
+    }
+
+    private synchronized PooledConnection pollIdle() {
+        return idle.pollFirst();
+    }
+
+    void release(final PooledConnection conn) {
+        try {
+            conn.reset();
+        } catch (SQLException sqle) {
+            closeQuietly(conn);
+            slots.release();
+            return;
+        }
+        final List<PooledConnection> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                evicted.add(conn);
+            } else {
+                idle.addFirst(conn);
+                final long now = System.nanoTime();
+                while (!idle.isEmpty() && now - idle.peekLast().getLastUsedNanos() > idleTimeoutNanos) {
+                    evicted.add(idle.pollLast());
+                }
+            }
+        }
+        slots.release();
+        evicted.forEach(PooledDbConnSupplier::closeQuietly);
+    }
+
+    /**
+     * @return the number of connections currently idle in the pool
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Closes the idle connections; borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        final List<PooledConnection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        toClose.forEach(PooledDbConnSupplier::closeQuietly);
+    }
+
+    private static void closeQuietly(final PooledConnection conn) {
+        try {
+            conn.closePhysically();
+        } catch (SQLException ignored) {
+            // Nothing more can be done with a broken connection
+        }
+    }
+}
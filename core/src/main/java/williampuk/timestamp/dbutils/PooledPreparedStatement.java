@@ -0,0 +1,144 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+
+/**
+ * A {@link PreparedStatement} of a {@link PooledConnection}; routes every execution through the connection so that
+ * session time zone commands are tracked.
+ * <p>
+ * A statement with a {@code cacheKey} is handed back to the connection's statement cache when closed, instead of
+ * being closed: its result set is closed, its parameters and batch are cleared, and a fetch size, maximum row count
+ * or query timeout set on it is put back to what it was when it was prepared.
+ */
+class PooledPreparedStatement extends DelegatingPreparedStatement<PreparedStatement> {
+
+    private final PooledConnection pooledConnection;
+    private final String sql;
+    private final PooledConnection.StatementKey cacheKey;
+    private ResultSet resultSet;
+    private Integer preparedFetchSize;
+    private Integer preparedMaxRows;
+    private Integer preparedQueryTimeout;
+    private boolean closed;
+
+    PooledPreparedStatement(final PooledConnection connection, final String sql, final PreparedStatement delegate) {
+        this(connection, sql, delegate, null);
+    }
+
+    PooledPreparedStatement(final PooledConnection connection, final String sql, final PreparedStatement delegate,
+                            final PooledConnection.StatementKey cacheKey) {
+        super(connection.getHandle(), delegate);
+        this.pooledConnection = connection;
+        this.sql = sql;
+        this.cacheKey = cacheKey;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        pooledConnection.beforeExecute();
+        return resultSet = delegate.executeQuery();
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return resultSet = delegate.getResultSet();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        if (preparedFetchSize == null) {
+            preparedFetchSize = delegate.getFetchSize();
+        }
+        delegate.setFetchSize(rows);
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        if (preparedMaxRows == null) {
+            preparedMaxRows = delegate.getMaxRows();
+        }
+        delegate.setMaxRows(max);
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        if (preparedMaxRows == null) {
+            preparedMaxRows = delegate.getMaxRows();
+        }
+        delegate.setLargeMaxRows(max);
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        if (preparedQueryTimeout == null) {
+            preparedQueryTimeout = delegate.getQueryTimeout();
+        }
+        delegate.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return pooledConnection.execute(sql, 0, delegate::executeUpdate);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return pooledConnection.execute(sql, 0L, delegate::executeLargeUpdate);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return pooledConnection.execute(sql, false, delegate::execute);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeBatch();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeLargeBatch();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || delegate.isClosed();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pooledConnection.statementClosed(this);
+        if (cacheKey == null || delegate.isClosed()) {
+            delegate.close();
+            return;
+        }
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            delegate.clearParameters();
+            delegate.clearBatch();
+            delegate.clearWarnings();
+            if (preparedFetchSize != null) {
+                delegate.setFetchSize(preparedFetchSize);
+            }
+            if (preparedMaxRows != null) {
+                delegate.setMaxRows(preparedMaxRows);
+            }
+            if (preparedQueryTimeout != null) {
+                delegate.setQueryTimeout(preparedQueryTimeout);
+            }
+        } catch (SQLException sqle) {
+            delegate.close();
+            throw sqle;
+        }
+        pooledConnection.cacheStatement(cacheKey, delegate);
+    }
+}
@@ -0,0 +1,101 @@
+package williampuk.timestamp.dbutils;
+
+import java.sql.*;
+
+/**
+ * A {@link Statement} of a {@link PooledConnection}; routes every execution through the connection so that session
+ * time zone commands are tracked.
+ */
+class PooledStatement extends DelegatingStatement<Statement> {
+
+    private final PooledConnection pooledConnection;
+
+    PooledStatement(final PooledConnection connection, final Statement delegate) {
+        super(connection.getHandle(), delegate);
+        this.pooledConnection = connection;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeQuery(sql);
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        return pooledConnection.execute(sql, 0, () -> delegate.executeUpdate(sql));
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return pooledConnection.execute(sql, 0, () -> delegate.executeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return pooledConnection.execute(sql, 0, () -> delegate.executeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        return pooledConnection.execute(sql, 0, () -> delegate.executeUpdate(sql, columnNames));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        return pooledConnection.execute(sql, 0L, () -> delegate.executeLargeUpdate(sql));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return pooledConnection.execute(sql, 0L, () -> delegate.executeLargeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return pooledConnection.execute(sql, 0L, () -> delegate.executeLargeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        return pooledConnection.execute(sql, 0L, () -> delegate.executeLargeUpdate(sql, columnNames));
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        return pooledConnection.execute(sql, false, () -> delegate.execute(sql));
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        return pooledConnection.execute(sql, false, () -> delegate.execute(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        return pooledConnection.execute(sql, false, () -> delegate.execute(sql, columnIndexes));
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        return pooledConnection.execute(sql, false, () -> delegate.execute(sql, columnNames));
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeBatch();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        pooledConnection.beforeExecute();
+        return delegate.executeLargeBatch();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        pooledConnection.statementClosed(this);
+        delegate.close();
+    }
+}
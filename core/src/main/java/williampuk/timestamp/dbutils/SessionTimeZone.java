@@ -0,0 +1,182 @@
+package williampuk.timestamp.dbutils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A session time zone command recognised in SQL text, e.g. {@code ALTER SESSION SET TIME_ZONE = '+05:00'} (Oracle),
+ * {@code SET TIMEZONE='+05'} (Postgres) or {@code SET time_zone = '+05:00'} (MySQL).
+ * <p>
+ * A {@code null} {@link #getZone() zone} stands for the session's original time zone, i.e. the one it had right
+ * after connecting ({@code LOCAL}, {@code RESET TIMEZONE}, {@code DEFAULT}).
+ */
+public final class SessionTimeZone {
+
+    public enum Form {
+        ORACLE("ALTER SESSION SET TIME_ZONE = '%s'", "ALTER SESSION SET TIME_ZONE = LOCAL",
+                "SELECT SESSIONTIMEZONE FROM DUAL"),
+        POSTGRES("SET TIMEZONE = '%s'", "RESET TIMEZONE", "SELECT current_setting('TimeZone')") {
+            /**
+             * An offset is written as a number of hours, e.g. {@code '+05'} or {@code '-03.5'}, which Postgres reads
+             * with the ISO 8601 sign; {@code '+05:00'} would be a POSIX zone specification, positive west of
+             * Greenwich.
+             */
+            @Override
+            public String getSetSql(final ZoneId zone) {
+                if (zone instanceof ZoneOffset && !zone.equals(ZoneOffset.UTC)) {
+                    return getSetSql(numericHours((ZoneOffset) zone));
+                }
+                return super.getSetSql(zone);
+            }
+        },
+        MYSQL("SET time_zone = '%s'", "SET time_zone = DEFAULT", "SELECT @@session.time_zone");
+
+        private final String setSqlFormat;
+        private final String resetSql;
+        private final String querySql;
+
+        Form(final String setSqlFormat, final String resetSql, final String querySql) {
+            this.setSqlFormat = setSqlFormat;
+            this.resetSql = resetSql;
+            this.querySql = querySql;
+        }
+
+        /**
+         * @return the statement that sets the session time zone to {@code zone}
+         */
+        public String getSetSql(final ZoneId zone) {
+            return String.format(setSqlFormat, zone.equals(ZoneOffset.UTC) ? "+00:00" : zone.getId());
+        }
+
+        /**
+         * @param zone the session time zone as the {@link #getQuerySql() query} returned it
+         * @return the statement that sets the session time zone back to {@code zone}
+         */
+        public String getSetSql(final String zone) {
+            return String.format(setSqlFormat, zone.replace("'", "''"));
+        }
+
+        /**
+         * @return the statement that puts the session back to its original time zone
+         */
+        public String getResetSql() {
+            return resetSql;
+        }
+
+        /**
+         * @return a query for the session time zone, one row of one column, as the server spells it
+         */
+        public String getQuerySql() {
+            return querySql;
+        }
+    }
+
+    private static final Pattern ORACLE = Pattern.compile(
+            "\\s*ALTER\\s+SESSION\\s+SET\\s+TIME_ZONE\\s*=\\s*(?:'([^']*)'|(\\w+))\\s*;?\\s*",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern POSTGRES = Pattern.compile(
+            "\\s*SET\\s+(?:SESSION\\s+)?(?:TIMEZONE|TIME\\s+ZONE)\\s*(?:=|TO)?\\s*(?:'([^']*)'|(\\w+))\\s*;?\\s*",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern POSTGRES_RESET = Pattern.compile(
+            "\\s*RESET\\s+(?:TIMEZONE|TIME\\s+ZONE)\\s*;?\\s*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MYSQL = Pattern.compile(
+            "\\s*SET\\s+(?:SESSION\\s+|@@SESSION\\.|@@)?TIME_ZONE\\s*=\\s*(?:'([^']*)'|(\\w+))\\s*;?\\s*",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Form form;
+    private final String zone;
+
+    private SessionTimeZone(final Form form, final String zone) {
+        this.form = form;
+        this.zone = zone;
+    }
+
+    /**
+     * @param sql the SQL text about to be executed
+     * @return the session time zone command in {@code sql}, or {@code null} if it is some other statement
+     */
+    public static SessionTimeZone parse(final String sql) {
+        if (sql == null || sql.length() > 200) {
+            return null;
+        }
+        Matcher m = ORACLE.matcher(sql);
+        if (m.matches()) {
+            return of(Form.ORACLE, m, "LOCAL");
+        }
+        m = MYSQL.matcher(sql);
+        if (m.matches()) {
+            return of(Form.MYSQL, m, "DEFAULT");
+        }
+        m = POSTGRES.matcher(sql);
+        if (m.matches()) {
+            return of(Form.POSTGRES, m, "DEFAULT");
+        }
+        if (POSTGRES_RESET.matcher(sql).matches()) {
+            return new SessionTimeZone(Form.POSTGRES, null);
+        }
+        return null;
+    }
+
+    private static String numericHours(final ZoneOffset offset) {
+        final int seconds = Math.abs(offset.getTotalSeconds());
+        final StringBuilder sb = new StringBuilder(offset.getTotalSeconds() < 0 ? "-" : "+");
+        if (seconds / 3600 < 10) {
+            sb.append('0');
+        }
+        sb.append(seconds / 3600);
+        if (seconds % 3600 != 0) {
+            // ".5" for half an hour, ".75" for three quarters
+            sb.append(BigDecimal.valueOf(seconds % 3600).divide(BigDecimal.valueOf(3600), 6, RoundingMode.HALF_UP)
+                    .stripTrailingZeros().toPlainString().substring(1));
+        }
+        return sb.toString();
+    }
+
+    private static SessionTimeZone of(final Form form, final Matcher m, final String resetKeyword) {
+        if (m.group(1) != null) {
+            return new SessionTimeZone(form, m.group(1).trim());
+        }
+        final String keyword = m.group(2);
+        return new SessionTimeZone(form, keyword.equalsIgnoreCase(resetKeyword) ? null :
+                keyword.toUpperCase(Locale.ROOT));
+    }
+
+    public Form getForm() {
+        return form;
+    }
+
+    /**
+     * @return the zone as written in the command, or {@code null} for the session's original zone
+     */
+    public String getZone() {
+        return zone;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SessionTimeZone)) {
+            return false;
+        }
+        final SessionTimeZone that = (SessionTimeZone) o;
+        return form == that.form && Objects.equals(zone, that.zone);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(form, zone);
+    }
+
+    @Override
+    public String toString() {
+        return form + ":" + (zone == null ? "<original>" : zone);
+    }
+}
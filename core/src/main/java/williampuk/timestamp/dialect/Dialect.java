@@ -0,0 +1,70 @@
+package williampuk.timestamp.dialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * The SQL fragments and session commands that differ between the databases the harness runs against, so the same
+ * statements can be written once for all of them.
+ */
+public interface Dialect {
+
+    /**
+     * @return what ends a {@code SELECT} without a table: {@code " FROM DUAL"} on Oracle, nothing elsewhere
+     */
+    String getFromDual();
+
+    /**
+     * @return the type {@code TIMESTAMP} values are cast to for their text form, e.g. {@code VARCHAR2(30 CHAR)}
+     */
+    String getTextType();
+
+    /**
+     * @return the type of a column of at most {@code length} characters
+     */
+    String getVarcharType(int length);
+
+    /**
+     * @return the statement that sets the session time zone to {@code zone}
+     */
+    String getSetSessionZoneSql(ZoneId zone);
+
+    /**
+     * @return the statement that puts the session back to its original time zone
+     */
+    String getResetSessionZoneSql();
+
+    /**
+     * @return a statement that drops {@code table}, along with its constraints, if it exists
+     */
+    String getDropTableIfExistsSql(String table);
+
+    /**
+     * @return {@code expression}, a {@code TIMESTAMP} of wall-clock times in {@code zone}, converted by the database
+     * to the wall-clock times of the same instants in UTC
+     */
+    String getToUtcSql(String expression, ZoneId zone);
+
+    /**
+     * @return the earliest instant a {@code TIMESTAMP} column can hold as a wall-clock time of any zone
+     */
+    Instant getMinTimestamp();
+
+    /**
+     * @return the latest instant a {@code TIMESTAMP} column can hold as a wall-clock time of any zone
+     */
+    Instant getMaxTimestamp();
+
+    /**
+     * @return {@code expression} cast to its text form
+     */
+    default String castToText(final String expression) {
+        return "CAST(" + expression + " AS " + getTextType() + ")";
+    }
+
+    static Dialect of(final Connection conn) throws SQLException {
+        return Vendor.of(conn);
+    }
+}
@@ -0,0 +1,151 @@
+package williampuk.timestamp.dialect;
+
+import williampuk.timestamp.dbutils.SessionTimeZone;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+/**
+ * The database vendors the harness runs against, told apart by {@link java.sql.DatabaseMetaData#getDatabaseProductName()
+ * product name}, and the {@link Dialect} of each.
+ */
+public enum Vendor implements Dialect {
+
+    ORACLE("oracle", SessionTimeZone.Form.ORACLE, " FROM DUAL", "VARCHAR2(30 CHAR)") {
+        @Override
+        public String getVarcharType(final int length) {
+            return "VARCHAR2(" + length + " CHAR)";
+        }
+
+        /**
+         * Oracle has no {@code DROP TABLE IF EXISTS}, hence a PL/SQL block. Credit: https://stackoverflow.com/a/50049759
+         */
+        @Override
+        public String getDropTableIfExistsSql(final String table) {
+            final String name = table.toUpperCase(Locale.ROOT);
+            return "BEGIN " +
+                    "  FOR i IN (SELECT 1 FROM user_tables WHERE table_name = '" + name + "') LOOP " +
+                    "    EXECUTE IMMEDIATE 'DROP TABLE " + name + " CASCADE CONSTRAINTS PURGE'; " +
+                    "  END LOOP; " +
+                    "END;";
+        }
+
+        @Override
+        public String getToUtcSql(final String expression, final ZoneId zone) {
+            return "SYS_EXTRACT_UTC(FROM_TZ(" + expression + ", '" + zoneName(zone) + "'))";
+        }
+    },
+    MYSQL("mysql", SessionTimeZone.Form.MYSQL, "", "CHAR") {
+        /**
+         * A MySQL {@code TIMESTAMP} is stored in UTC, from 1970-01-01 00:00:01 to 2038-01-19 03:14:07.
+         */
+        @Override
+        public Instant getMinTimestamp() {
+            return Instant.parse("1970-01-01T00:00:01Z");
+        }
+
+        @Override
+        public Instant getMaxTimestamp() {
+            return Instant.parse("2038-01-19T03:14:07Z");
+        }
+
+        /**
+         * Needs the time zone tables loaded into the server, without which {@code CONVERT_TZ} returns {@code NULL}.
+         */
+        @Override
+        public String getToUtcSql(final String expression, final ZoneId zone) {
+            return "CONVERT_TZ(" + expression + ", '" + zoneName(zone) + "', '+00:00')";
+        }
+    },
+    POSTGRES("postgresql", SessionTimeZone.Form.POSTGRES, "", "VARCHAR") {
+        /**
+         * The first {@code AT TIME ZONE} gives a {@code timestamptz}, the second its wall-clock time in UTC. An
+         * offset is written as a POSIX zone specification, whose sign is the opposite of ISO 8601.
+         */
+        @Override
+        public String getToUtcSql(final String expression, final ZoneId zone) {
+            final ZoneId posix = zone instanceof ZoneOffset ?
+                    ZoneOffset.ofTotalSeconds(-((ZoneOffset) zone).getTotalSeconds()) : zone;
+            return "(" + expression + " AT TIME ZONE '" + zoneName(posix) + "') AT TIME ZONE 'UTC'";
+        }
+    };
+
+    private final String productNamePrefix;
+    private final SessionTimeZone.Form sessionZoneForm;
+    private final String fromDual;
+    private final String textType;
+
+    Vendor(final String productNamePrefix, final SessionTimeZone.Form sessionZoneForm, final String fromDual,
+           final String textType) {
+        this.productNamePrefix = productNamePrefix;
+        this.sessionZoneForm = sessionZoneForm;
+        this.fromDual = fromDual;
+        this.textType = textType;
+    }
+
+    public SessionTimeZone.Form getSessionZoneForm() {
+        return sessionZoneForm;
+    }
+
+    @Override
+    public String getFromDual() {
+        return fromDual;
+    }
+
+    @Override
+    public String getTextType() {
+        return textType;
+    }
+
+    @Override
+    public String getVarcharType(final int length) {
+        return "VARCHAR(" + length + ")";
+    }
+
+    @Override
+    public String getSetSessionZoneSql(final ZoneId zone) {
+        return sessionZoneForm.getSetSql(zone);
+    }
+
+    @Override
+    public String getResetSessionZoneSql() {
+        return sessionZoneForm.getResetSql();
+    }
+
+    @Override
+    public String getDropTableIfExistsSql(final String table) {
+        return "DROP TABLE IF EXISTS " + table + " CASCADE";
+    }
+
+    /**
+     * Years 1 to 9999, a day in from either end so that the wall-clock time stays within them in any zone.
+     */
+    @Override
+    public Instant getMinTimestamp() {
+        return Instant.parse("0001-01-02T00:00:00Z");
+    }
+
+    @Override
+    public Instant getMaxTimestamp() {
+        return Instant.parse("9999-12-30T23:59:59.999999Z");
+    }
+
+    private static String zoneName(final ZoneId zone) {
+        return zone.equals(ZoneOffset.UTC) ? "+00:00" : zone.getId();
+    }
+
+    public static Vendor of(final Connection conn) throws SQLException {
+        final String productName = conn.getMetaData().getDatabaseProductName();
+        final String name = productName.toLowerCase(Locale.ROOT);
+        for (final Vendor vendor : values()) {
+            if (name.startsWith(vendor.productNamePrefix)) {
+                return vendor;
+            }
+        }
+        throw new SQLException("Unsupported database: " + productName);
+    }
+}
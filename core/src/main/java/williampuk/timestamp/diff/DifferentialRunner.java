@@ -0,0 +1,401 @@
+package williampuk.timestamp.diff;
+
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dialect.Dialect;
+import williampuk.timestamp.probe.DstCase;
+import williampuk.timestamp.probe.DstSweep;
+
+import java.io.PrintStream;
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static williampuk.timestamp.codec.TimestampCodec.appendPadded;
+
+/**
+ * Feeds the same wall-clock times to several databases at once and reports where their drivers disagree.
+ * <p>
+ * Every input goes down three {@link Path}s in a single row: a {@code TIMESTAMP} literal read with a {@link Calendar}
+ * of {@code zone}, a {@link Timestamp#valueOf(LocalDateTime)} bound and read without a calendar, and a timestamp
+ * bound and read with the calendar. Each path is normalized to epoch micros. The inputs are the wall-clock times
+ * around {@code zone}'s offset transitions from 1970 to 2037, followed by seeded random ones from 1900 to 2099.
+ * <p>
+ * Each database has a thread and a connection of its own. Inputs go in blocks of {@code blockSize}, {@code
+ * rowsPerQuery} to a {@code UNION ALL} query. A first pass only hashes each block's values; the blocks whose hashes
+ * agree on every database are skipped, and only the others are run again and compared value by value.
+ */
+public class DifferentialRunner {
+
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+    public static final int DEFAULT_ROWS_PER_QUERY = 128;
+    public static final long DEFAULT_SEED = 20210314L;
+    static final long NULL_VALUE = Long.MIN_VALUE;
+    private static final int MAX_REPORTED_DIVERGENCES = 50;
+    private static final long MIN_RANDOM_SECOND = LocalDateTime.of(1900, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long MAX_RANDOM_SECOND = LocalDateTime.of(2100, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    /**
+     * The ways an input travels to the database and back.
+     */
+    public enum Path {
+        /** {@code TIMESTAMP 'literal'}, read with {@code getTimestamp(int, Calendar)}. */
+        LITERAL,
+        /** {@code setTimestamp(int, Timestamp.valueOf(..))}, read with {@code getTimestamp(int)}. */
+        DEFAULT_ZONE,
+        /** {@code setTimestamp(int, Timestamp, Calendar)}, read with {@code getTimestamp(int, Calendar)}. */
+        CALENDAR
+    }
+
+    private static final int PATHS = Path.values().length;
+
+    private final ZoneId zone;
+    private final int inputCount;
+    private final int blockSize;
+    private final int rowsPerQuery;
+    private final long seed;
+    private final long[] dstInputs;
+
+    public DifferentialRunner(final ZoneId zone, final int inputCount) {
+        this(zone, inputCount, DEFAULT_BLOCK_SIZE, DEFAULT_ROWS_PER_QUERY, DEFAULT_SEED);
+    }
+
+    public DifferentialRunner(final ZoneId zone, final int inputCount, final int blockSize, final int rowsPerQuery,
+                              final long seed) {
+        if (inputCount < 1 || blockSize < 1 || rowsPerQuery < 1) {
+            throw new IllegalArgumentException("inputCount, blockSize and rowsPerQuery must be positive");
+        }
+        this.zone = zone;
+        this.inputCount = inputCount;
+        this.blockSize = blockSize;
+        this.rowsPerQuery = rowsPerQuery;
+        this.seed = seed;
+        final List<DstCase> cases = new DstSweep(DstSweep.DEFAULT_FROM_YEAR, DstSweep.DEFAULT_TO_YEAR,
+                Collections.singleton(zone.getId()), 1, 1).cases(zone);
+        dstInputs = new long[Math.min(cases.size(), inputCount)];
+        for (int i = 0; i < dstInputs.length; i++) {
+            dstInputs[i] = cases.get(i).getLocalMicros();
+        }
+    }
+
+    int getBlockCount() {
+        return (inputCount + blockSize - 1) / blockSize;
+    }
+
+    /**
+     * @return the local micros of the inputs of {@code block}; the same on every call
+     */
+    long[] inputs(final int block) {
+        final int from = block * blockSize;
+        final long[] inputs = new long[Math.min(blockSize, inputCount - from)];
+        final SplittableRandom random = new SplittableRandom(seed * 31 + block);
+        for (int i = 0; i < inputs.length; i++) {
+            final int input = from + i;
+            if (input < dstInputs.length) {
+                inputs[i] = dstInputs[input];
+            } else {
+                final long second = random.nextLong(MIN_RANDOM_SECOND, MAX_RANDOM_SECOND);
+                // Half of them on a whole second
+                final long micros = random.nextBoolean() ? 0 : random.nextLong(TimestampCodec.MICROS_PER_SECOND);
+                inputs[i] = second * TimestampCodec.MICROS_PER_SECOND + micros;
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * @param databases connection suppliers by name, e.g. "Oracle"
+     */
+    public Report run(final Map<String, DbConnSupplier> databases) throws SQLException, InterruptedException {
+        final List<Worker> workers = new ArrayList<>();
+        try {
+            for (final Map.Entry<String, DbConnSupplier> database : databases.entrySet()) {
+                workers.add(new Worker(database.getKey(), database.getValue()));
+            }
+            final Report report = new Report(workers);
+            // Pass 1: a hash per block from every database
+            final List<Future<long[]>> hashes = new ArrayList<>();
+            for (final Worker worker : workers) {
+                hashes.add(worker.submit(worker::hashAll));
+            }
+            final long[][] blockHashes = new long[workers.size()][];
+            for (int w = 0; w < workers.size(); w++) {
+                blockHashes[w] = get(hashes.get(w));
+            }
+            // Pass 2: the values of the blocks that hash differently
+            for (int block = 0; block < getBlockCount(); block++) {
+                if (allEqual(blockHashes, block)) {
+                    continue;
+                }
+                report.divergentBlocks++;
+                final int b = block;
+                final List<Future<long[]>> values = new ArrayList<>();
+                for (final Worker worker : workers) {
+                    values.add(worker.submit(() -> worker.evaluate(inputs(b))));
+                }
+                final long[][] blockValues = new long[workers.size()][];
+                for (int w = 0; w < workers.size(); w++) {
+                    blockValues[w] = get(values.get(w));
+                }
+                report.compare(inputs(b), blockValues);
+            }
+            report.blocks = getBlockCount();
+            report.inputs = inputCount;
+            return report;
+        } finally {
+            for (final Worker worker : workers) {
+                worker.close();
+            }
+        }
+    }
+
+    private static boolean allEqual(final long[][] blockHashes, final int block) {
+        for (int w = 1; w < blockHashes.length; w++) {
+            if (blockHashes[w][block] != blockHashes[0][block]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> T get(final Future<T> future) throws SQLException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static long hash(final long[] values) {
+        long h = values.length;
+        for (final long value : values) {
+            h = h * 0x9E3779B97F4A7C15L + mix(value);
+        }
+        return mix(h);
+    }
+
+    /**
+     * The finalizer of MurmurHash3's 64-bit variant.
+     */
+    private static long mix(long v) {
+        v ^= v >>> 33;
+        v *= 0xFF51AFD7ED558CCDL;
+        v ^= v >>> 33;
+        v *= 0xC4CEB9FE1A85EC53L;
+        return v ^ v >>> 33;
+    }
+
+    private static StringBuilder appendLiteral(final StringBuilder sb, final long localMicros, final int[] fields) {
+        TimestampCodec.toFields(localMicros, fields);
+        appendPadded(sb, fields[0], 4).append('-');
+        appendPadded(sb, fields[1], 2).append('-');
+        appendPadded(sb, fields[2], 2).append(' ');
+        appendPadded(sb, fields[3], 2).append(':');
+        appendPadded(sb, fields[4], 2).append(':');
+        appendPadded(sb, fields[5], 2).append('.');
+        return appendPadded(sb, fields[6], 6);
+    }
+
+    /**
+     * One database: a thread and the connection it uses.
+     */
+    private final class Worker implements AutoCloseable {
+
+        private final String name;
+        private final ExecutorService executor;
+        private final Connection conn;
+        private final String fromDual;
+        private final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(zone));
+        private final TimestampCodec codec = TimestampCodec.of(zone);
+        private final int[] fields = new int[7];
+
+        Worker(final String name, final DbConnSupplier connSupplier) throws SQLException, InterruptedException {
+            this.name = name;
+            this.executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "differential-" + name));
+            Connection conn = null;
+            try {
+                conn = get(executor.submit(connSupplier::get));
+                this.fromDual = Dialect.of(conn).getFromDual();
+            } catch (SQLException | InterruptedException | RuntimeException e) {
+                if (conn != null) {
+                    conn.close();
+                }
+                executor.shutdown();
+                throw e;
+            }
+            this.conn = conn;
+        }
+
+        <T> Future<T> submit(final Callable<T> task) {
+            return executor.submit(task);
+        }
+
+        long[] hashAll() throws SQLException {
+            final long[] hashes = new long[getBlockCount()];
+            for (int block = 0; block < hashes.length; block++) {
+                hashes[block] = hash(evaluate(inputs(block)));
+            }
+            return hashes;
+        }
+
+        /**
+         * @return the values of every {@link Path} of every input, {@link #NULL_VALUE} for {@code NULL}
+         */
+        long[] evaluate(final long[] inputs) throws SQLException {
+            final long[] values = new long[inputs.length * PATHS];
+            for (int from = 0; from < inputs.length; from += rowsPerQuery) {
+                evaluate(inputs, from, Math.min(inputs.length, from + rowsPerQuery), values);
+            }
+            return values;
+        }
+
+        private void evaluate(final long[] inputs, final int from, final int to, final long[] values)
+                throws SQLException {
+            final StringBuilder sql = new StringBuilder((to - from) * 96);
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sql.append(" UNION ALL ");
+                }
+                sql.append("SELECT ").append(i).append(" input_id, TIMESTAMP '");
+                appendLiteral(sql, inputs[i], fields).append("' literal_ts, ? default_ts, ? calendar_ts")
+                        .append(fromDual);
+            }
+            try (final PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int parameter = 1;
+                for (int i = from; i < to; i++) {
+                    final LocalDateTime local = TimestampCodec.toLocalDateTime(inputs[i]);
+                    ps.setTimestamp(parameter++, Timestamp.valueOf(local));
+                    ps.setTimestamp(parameter++, codec.toTimestamp(local), calendar);
+                }
+                try (final ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        final int offset = rs.getInt(1) * PATHS;
+                        values[offset] = normalize(rs.getTimestamp(2, calendar));
+                        values[offset + 1] = normalize(rs.getTimestamp(3));
+                        values[offset + 2] = normalize(rs.getTimestamp(4, calendar));
+                    }
+                }
+            }
+        }
+
+        private long normalize(final Timestamp ts) {
+            return ts == null ? NULL_VALUE : TimestampCodec.epochMicros(ts);
+        }
+
+        @Override
+        public void close() {
+            try {
+                executor.submit(() -> {
+                    conn.close();
+                    return null;
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Nothing left to do with the connection
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The divergences found: an input and path for which not every database returned the same instant.
+     */
+    public static class Report {
+
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Long> oddOneOut = new TreeMap<>();
+        private final long[] divergencesByPath = new long[PATHS];
+        private final List<String> divergences = new ArrayList<>();
+        private long inputs;
+        private long blocks;
+        private long divergentBlocks;
+
+        private Report(final List<Worker> workers) {
+            for (final Worker worker : workers) {
+                names.add(worker.name);
+            }
+        }
+
+        private void compare(final long[] inputs, final long[][] values) {
+            for (int i = 0; i < inputs.length; i++) {
+                for (int p = 0; p < PATHS; p++) {
+                    final int offset = i * PATHS + p;
+                    boolean equal = true;
+                    for (int w = 1; w < values.length && equal; w++) {
+                        equal = values[w][offset] == values[0][offset];
+                    }
+                    if (!equal) {
+                        record(inputs[i], Path.values()[p], values, offset);
+                    }
+                }
+            }
+        }
+
+        private void record(final long input, final Path path, final long[][] values, final int offset) {
+            divergencesByPath[path.ordinal()]++;
+            oddOneOut.merge(path + ": " + oddOneOut(values, offset), 1L, Long::sum);
+            if (divergences.size() < MAX_REPORTED_DIVERGENCES) {
+                final StringBuilder sb = new StringBuilder();
+                sb.append(path).append(' ').append(TimestampCodec.toLocalDateTime(input)).append(':');
+                for (int w = 0; w < values.length; w++) {
+                    final long value = values[w][offset];
+                    sb.append(' ').append(names.get(w)).append('=')
+                            .append(value == NULL_VALUE ? "NULL" : Instant.EPOCH.plus(value, ChronoUnit.MICROS));
+                }
+                divergences.add(sb.toString());
+            }
+        }
+
+        /**
+         * @return the one database that disagrees with all others, which all agree; or "no majority"
+         */
+        private String oddOneOut(final long[][] values, final int offset) {
+            for (int w = 0; w < values.length; w++) {
+                boolean othersAgree = true;
+                Long other = null;
+                for (int o = 0; o < values.length && othersAgree; o++) {
+                    if (o != w) {
+                        othersAgree = other == null || other == values[o][offset];
+                        other = values[o][offset];
+                    }
+                }
+                if (othersAgree && other != null && other != values[w][offset]) {
+                    return names.get(w) + " differs";
+                }
+            }
+            return "no majority";
+        }
+
+        public long getDivergenceCount() {
+            long count = 0;
+            for (final long n : divergencesByPath) {
+                count += n;
+            }
+            return count;
+        }
+
+        public long getDivergences(final Path path) {
+            return divergencesByPath[path.ordinal()];
+        }
+
+        public void print(final PrintStream out) {
+            out.println("=== Differential run: " + String.join(", ", names) + " ===");
+            out.println(inputs + " inputs in " + blocks + " blocks, " + divergentBlocks + " blocks differed, " +
+                    getDivergenceCount() + " divergent values");
+            oddOneOut.forEach((key, count) -> out.println("  " + key + ": " + count));
+            for (final String divergence : divergences) {
+                out.println(divergence);
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package williampuk.timestamp.emul;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parsed SQL statement, ready to be executed any number of times against a session.
+ */
+abstract class Command {
+
+    /**
+     * The number of {@code ?} placeholders.
+     */
+    int parameterCount;
+
+    /**
+     * @return {@code true} if {@link #query} is to be called rather than {@link #update}
+     */
+    boolean isQuery() {
+        return false;
+    }
+
+    QueryResult query(final EmulatedSession session, final byte[][] params, final int[] paramTypes)
+            throws SQLException {
+        throw new SQLException("Statement does not return a result set", "07000");
+    }
+
+    /**
+     * @return the update count
+     */
+    long update(final EmulatedSession session, final byte[][] params, final int[] paramTypes) throws SQLException {
+        throw new SQLException("Query cannot be executed as an update", "07000");
+    }
+
+    /**
+     * The shape and rows of a query result; rows are produced on demand in the vendor's {@link WireFormat}.
+     */
+    static final class QueryResult {
+        final String[] labels;
+        final int[] types;
+        final RowSource rows;
+
+        QueryResult(final String[] labels, final int[] types, final RowSource rows) {
+            this.labels = labels;
+            this.types = types;
+            this.rows = rows;
+        }
+    }
+
+    interface RowSource {
+        /**
+         * @return the next encoded row, {@code null} after the last one
+         */
+        byte[][] next() throws SQLException;
+    }
+
+    // -- DDL and session commands
+
+    static final class CreateTable extends Command {
+        private final String table;
+        private final Table.Column[] columns;
+
+        CreateTable(final String table, final Table.Column[] columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        @Override
+        long update(final EmulatedSession session, final byte[][] params, final int[] paramTypes)
+                throws SQLException {
+            session.getDatabase().createTable(new Table(session.getVendor().foldIdentifier(table), columns));
+            return 0;
+        }
+    }
+
+    static final class CreateIndex extends Command {
+        private final String index;
+        private final String table;
+
+        CreateIndex(final String index, final String table) {
+            this.index = index;
+            this.table = table;
+        }
+
+        @Override
+        long update(final EmulatedSession session, final byte[][] params, final int[] paramTypes)
+                throws SQLException {
+            session.getDatabase().table(table).addIndex(index);
+            return 0;
+        }
+    }
+
+    static final class DropTable extends Command {
+        private final String table;
+        private final boolean ifExists;
+
+        DropTable(final String table, final boolean ifExists) {
+            this.table = table;
+            this.ifExists = ifExists;
+        }
+
+        @Override
+        long update(final EmulatedSession session, final byte[][] params, final int[] paramTypes)
+                throws SQLException {
+            session.getDatabase().dropTable(table, ifExists);
+            return 0;
+        }
+    }
+
+    static final class SetSessionZone extends Command {
+        // Null for the vendor's default
+        private final String zone;
+
+        SetSessionZone(final String zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        long update(final EmulatedSession session, final byte[][] params, final int[] paramTypes)
+                throws SQLException {
+            session.setSessionZone(zone == null ? null : session.getVendor().parseSessionZone(zone));
+            return 0;
+        }
+    }
+
+    /**
+     * Transaction control: every statement of the emulator commits on its own.
+     */
+    static final class NoOp extends Command {
+        @Override
+        long update(final EmulatedSession session, final byte[][] params, final int[] paramTypes) {
+            return 0;
+        }
+    }
+
+    // -- DML
+
+    static final class Insert extends Command {
+        private final String table;
+        private final String[] columns;
+        private final List<Expr[]> rows;
+
+        Insert(final String table, final String[] columns, final List<Expr[]> rows) {
+            this.table = table;
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        @Override
+        long update(final EmulatedSession session, final byte[][] params, final int[] paramTypes)
+                throws SQLException {
+            final Table target = session.getDatabase().table(table);
+            final Table.Column[] targetColumns = target.getColumns();
+            final int[] positions = new int[columns == null ? targetColumns.length : columns.length];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = columns == null ? i : target.columnIndex(columns[i]);
+            }
+            final EvalContext ctx = new EvalContext(session, params, paramTypes);
+            final List<Object[]> values = new ArrayList<>(rows.size());
+            for (final Expr[] exprs : rows) {
+                if (exprs.length != positions.length) {
+                    throw new SQLSyntaxErrorException("Column count doesn't match value count", "21S01");
+                }
+                final Object[] row = new Object[targetColumns.length];
+                final boolean[] assigned = new boolean[targetColumns.length];
+                for (int i = 0; i < positions.length; i++) {
+                    row[positions[i]] = exprs[i].eval(ctx);
+                    assigned[positions[i]] = true;
+                }
+                for (int i = 0; i < row.length; i++) {
+                    final Table.Column column = targetColumns[i];
+                    if (!assigned[i] && column.defaultValue != null) {
+                        row[i] = column.defaultValue.eval(ctx);
+                    }
+                    row[i] = Expr.coerce(row[i], column.sqlType, ctx.vendor);
+                    if (row[i] != null && column.zoneConverted) {
+                        row[i] = new TimestampValue(ctx.vendor.toStorage(((TimestampValue) row[i]).localMicros,
+                                ctx.sessionZone));
+                    }
+                }
+                values.add(row);
+            }
+            // All rows are evaluated before any is written, so a failing row inserts nothing
+            for (final Object[] row : values) {
+                target.insert(row);
+            }
+            return values.size();
+        }
+    }
+
+    // -- Queries
+
+    static final class Item {
+        final Expr expr;
+        final String alias;
+
+        Item(final Expr expr, final String alias) {
+            this.expr = expr;
+            this.alias = alias;
+        }
+    }
+
+    static final class Branch {
+        // A null item stands for '*'
+        final List<Item> items;
+        // Null for a query without a table, including FROM DUAL
+        final String table;
+        final Expr where;
+
+        Branch(final List<Item> items, final String table, final Expr where) {
+            this.items = items;
+            this.table = table;
+            this.where = where;
+        }
+    }
+
+    static final class OrderItem {
+        final Expr expr;
+        final boolean descending;
+
+        OrderItem(final Expr expr, final boolean descending) {
+            this.expr = expr;
+            this.descending = descending;
+        }
+    }
+
+    static final class Select extends Command {
+        private final List<Branch> branches;
+        private final List<OrderItem> orderBy;
+        private final long limit;
+
+        Select(final List<Branch> branches, final List<OrderItem> orderBy, final long limit) {
+            this.branches = branches;
+            this.orderBy = orderBy;
+            this.limit = limit;
+        }
+
+        @Override
+        boolean isQuery() {
+            return true;
+        }
+
+        @Override
+        QueryResult query(final EmulatedSession session, final byte[][] params, final int[] paramTypes)
+                throws SQLException {
+            final EmulatedVendor vendor = session.getVendor();
+            final EvalContext ctx = new EvalContext(session, params, paramTypes);
+            final List<Table> tables = new ArrayList<>(branches.size());
+            final List<Expr[]> projections = new ArrayList<>(branches.size());
+            String[] labels = null;
+            int[] types = null;
+            for (final Branch branch : branches) {
+                final Table table = branch.table == null ? null : session.getDatabase().table(branch.table);
+                final Expr[] projection = projection(branch, table);
+                ctx.table = table;
+                if (labels == null) {
+                    labels = new String[projection.length];
+                    types = new int[projection.length];
+                    for (int i = 0; i < projection.length; i++) {
+                        final Item item = i < branch.items.size() ? branch.items.get(i) : null;
+                        labels[i] = item != null && item.alias != null ? item.alias : projection[i].label(vendor);
+                        types[i] = projection[i].type(ctx);
+                    }
+                } else if (projection.length != labels.length) {
+                    throw new SQLSyntaxErrorException(
+                            "Each UNION query must have the same number of columns", "42601");
+                }
+                tables.add(table);
+                projections.add(projection);
+            }
+            final int[] columnTypes = types;
+            final RowSource rows = new RowSource() {
+                private int branch = -1;
+                private Table.Snapshot snapshot;
+                private int next;
+                private long produced;
+
+                @Override
+                public byte[][] next() throws SQLException {
+                    while (limit < 0 || produced < limit) {
+                        if (branch < 0 || next >= (snapshot == null ? 1 : snapshot.size)) {
+                            if (++branch >= branches.size()) {
+                                return null;
+                            }
+                            ctx.table = tables.get(branch);
+                            snapshot = ctx.table == null ? null : ctx.table.snapshot();
+                            next = 0;
+                            continue;
+                        }
+                        final Expr where = branches.get(branch).where;
+                        if (projections.get(branch)[0] instanceof Expr.CountAll) {
+                            ctx.count = 0;
+                            for (; next < (snapshot == null ? 1 : snapshot.size); next++) {
+                                ctx.row = snapshot == null ? null : snapshot.rows[next];
+                                if (where == null || Boolean.TRUE.equals(where.eval(ctx))) {
+                                    ctx.count++;
+                                }
+                            }
+                            ctx.row = null;
+                            produced++;
+                            return encode(projections.get(branch), columnTypes, ctx);
+                        }
+                        ctx.row = snapshot == null ? null : snapshot.rows[next];
+                        next++;
+                        if (where == null || Boolean.TRUE.equals(where.eval(ctx))) {
+                            produced++;
+                            return encode(projections.get(branch), columnTypes, ctx);
+                        }
+                    }
+                    return null;
+                }
+            };
+            return new QueryResult(labels, types, orderBy.isEmpty() ? rows : sorted(rows, labels, types, ctx));
+        }
+
+        private static Expr[] projection(final Branch branch, final Table table) throws SQLException {
+            final List<Expr> exprs = new ArrayList<>();
+            for (final Item item : branch.items) {
+                if (item != null && item.expr instanceof Expr.CountAll && branch.items.size() > 1) {
+                    // There is no GROUP BY, so nothing else can be selected along with it
+                    throw new SQLSyntaxErrorException("COUNT(*) must be selected alone", "42803");
+                }
+                if (item != null) {
+                    exprs.add(item.expr);
+                } else if (table == null) {
+                    throw new SQLSyntaxErrorException("SELECT * without a table", "42601");
+                } else {
+                    for (final Table.Column column : table.getColumns()) {
+                        exprs.add(new Expr.ColumnRef(column.name));
+                    }
+                }
+            }
+            return exprs.toArray(new Expr[0]);
+        }
+
+        private static byte[][] encode(final Expr[] projection, final int[] types, final EvalContext ctx)
+                throws SQLException {
+            final WireFormat wireFormat = ctx.vendor.getWireFormat();
+            final byte[][] row = new byte[projection.length][];
+            for (int i = 0; i < projection.length; i++) {
+                final Object value = Expr.coerce(projection[i].eval(ctx), types[i], ctx.vendor);
+                if (value == null) {
+                    continue;
+                }
+                row[i] = types[i] == Types.TIMESTAMP ?
+                        wireFormat.serverEncodeTimestamp(((TimestampValue) value).localMicros) :
+                        wireFormat.bindString(Expr.toText(value, ctx.vendor));
+            }
+            return row;
+        }
+
+        /**
+         * Sorts the result on its output columns, which an {@code ORDER BY} item names by position, label or as the
+         * very expression selected.
+         */
+        private RowSource sorted(final RowSource rows, final String[] labels, final int[] types,
+                                 final EvalContext ctx) throws SQLException {
+            final int[] keys = new int[orderBy.size()];
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = sortColumn(orderBy.get(k).expr, labels, ctx.vendor);
+            }
+            final List<byte[][]> all = new ArrayList<>();
+            for (byte[][] row = rows.next(); row != null; row = rows.next()) {
+                all.add(row);
+            }
+            final WireFormat wireFormat = ctx.vendor.getWireFormat();
+            final Object[][] sortValues = new Object[all.size()][];
+            for (int r = 0; r < sortValues.length; r++) {
+                sortValues[r] = new Object[keys.length];
+                for (int k = 0; k < keys.length; k++) {
+                    final byte[] value = all.get(r)[keys[k]];
+                    sortValues[r][k] = value == null ? null : types[keys[k]] == Types.TIMESTAMP ?
+                            (Object) wireFormat.serverDecodeTimestamp(value) :
+                            types[keys[k]] == Types.BIGINT ? (Object) Long.parseLong(wireFormat.readString(value)) :
+                                    wireFormat.readString(value);
+                }
+            }
+            final Integer[] order = new Integer[sortValues.length];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (a, b) -> {
+                for (int k = 0; k < keys.length; k++) {
+                    final int c = compareNullsLast(sortValues[a][k], sortValues[b][k]);
+                    if (c != 0) {
+                        return orderBy.get(k).descending ? -c : c;
+                    }
+                }
+                return 0;
+            });
+            return new RowSource() {
+                private int next;
+
+                @Override
+                public byte[][] next() {
+                    return next < order.length ? all.get(order[next++]) : null;
+                }
+            };
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compareNullsLast(final Object a, final Object b) {
+            if (a == null || b == null) {
+                return a == null ? (b == null ? 0 : 1) : -1;
+            }
+            return ((Comparable) a).compareTo(b);
+        }
+
+        private int sortColumn(final Expr expr, final String[] labels, final EmulatedVendor vendor)
+                throws SQLException {
+            if (expr instanceof Expr.Literal && expr.type(null) == Types.BIGINT) {
+                final long position = (Long) expr.eval(null);
+                if (position >= 1 && position <= labels.length) {
+                    return (int) position - 1;
+                }
+                throw new SQLSyntaxErrorException("ORDER BY position " + position + " is not in select list",
+                        "42P10");
+            }
+            final String name = expr instanceof Expr.ColumnRef ? ((Expr.ColumnRef) expr).getName() : null;
+            final List<Item> items = branches.get(0).items;
+            for (int i = 0; i < labels.length; i++) {
+                final Item item = i < items.size() ? items.get(i) : null;
+                if (name != null && labels[i].equalsIgnoreCase(name) ||
+                        item != null && item.expr.source.equalsIgnoreCase(expr.source) && !expr.source.isEmpty()) {
+                    return i;
+                }
+            }
+            throw new SQLSyntaxErrorException("ORDER BY expression " + (name == null ? expr.label(vendor) : name) +
+                    " is not in select list", "42P10");
+        }
+    }
+}
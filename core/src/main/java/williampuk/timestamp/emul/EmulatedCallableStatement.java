@@ -0,0 +1,15 @@
+package williampuk.timestamp.emul;
+
+import java.sql.CallableStatement;
+import java.sql.SQLException;
+
+/**
+ * A {@link CallableStatement} of the emulator: it runs the statement like a {@link EmulatedPreparedStatement}, and
+ * has no OUT parameters.
+ */
+public class EmulatedCallableStatement extends UnsupportedCallableStatement {
+
+    EmulatedCallableStatement(final EmulatedConnection connection, final String sql) throws SQLException {
+        super(connection, sql);
+    }
+}
@@ -0,0 +1,298 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Connection} of the emulator. There are no transactions: every statement takes effect when it runs, so
+ * {@link #commit()} and {@link #rollback()} do nothing.
+ */
+public class EmulatedConnection extends UnsupportedConnection {
+
+    private final EmulatedSession session;
+    private final String url;
+    private final int binaryThreshold;
+    private final Set<EmulatedStatement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+    private boolean autoCommit = true;
+    private boolean readOnly;
+    private int networkTimeout;
+
+    /**
+     * @param binaryThreshold the executions of a prepared statement after which its {@code TIMESTAMP} results come in
+     *                        {@link WireFormat#POSTGRES_BINARY}, -1 for every statement from the first execution, 0
+     *                        for never
+     */
+    EmulatedConnection(final EmulatedDatabase database, final String url, final ZoneId defaultZone,
+                       final int binaryThreshold) {
+        this.session = new EmulatedSession(database, defaultZone);
+        this.url = url;
+        this.binaryThreshold = binaryThreshold;
+    }
+
+    EmulatedSession getSession() {
+        return session;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    public EmulatedDatabase getDatabase() {
+        return session.getDatabase();
+    }
+
+    /**
+     * @return the session time zone, as set by the vendor's session time zone command
+     */
+    public ZoneId getSessionZone() {
+        return session.getSessionZone();
+    }
+
+    /**
+     * @param executions how many times the statement has run, this time included; 0 for a statement that is not
+     *                   prepared
+     * @return the format {@code TIMESTAMP} results of the statement come in
+     */
+    WireFormat resultWireFormat(final long executions) {
+        if (binaryThreshold < 0 || binaryThreshold > 0 && executions >= binaryThreshold) {
+            return WireFormat.POSTGRES_BINARY;
+        }
+        return session.getVendor().getWireFormat();
+    }
+
+    void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLNonTransientConnectionException("Connection is closed", "08003");
+        }
+    }
+
+    Command parse(final String sql) throws SQLException {
+        checkOpen();
+        return SqlParser.parse(sql, session.getVendor());
+    }
+
+    void statementClosed(final EmulatedStatement statement) {
+        statements.remove(statement);
+    }
+
+    private <S extends EmulatedStatement> S register(final S statement) {
+        statements.add(statement);
+        return statement;
+    }
+
+    private static void checkResultSetType(final int resultSetType, final int resultSetConcurrency)
+            throws SQLException {
+        if (resultSetType != ResultSet.TYPE_FORWARD_ONLY || resultSetConcurrency != ResultSet.CONCUR_READ_ONLY) {
+            throw new SQLFeatureNotSupportedException("Only forward-only, read-only result sets are emulated");
+        }
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        checkOpen();
+        return register(new EmulatedStatement(this));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkResultSetType(resultSetType, resultSetConcurrency);
+        return createStatement();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        return createStatement(resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return register(new EmulatedPreparedStatement(this, sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        checkResultSetType(resultSetType, resultSetConcurrency);
+        return prepareStatement(sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        if (autoGeneratedKeys != Statement.NO_GENERATED_KEYS) {
+            throw unsupported("prepareStatement");
+        }
+        return prepareStatement(sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return register(new EmulatedCallableStatement(this, sql));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        checkResultSetType(resultSetType, resultSetConcurrency);
+        return prepareCall(sql);
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        checkOpen();
+        return sql;
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        checkOpen();
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        checkOpen();
+        return autoCommit;
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        checkOpen();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        checkOpen();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        checkOpen();
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        checkOpen();
+        return readOnly;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        checkOpen();
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        checkOpen();
+        return TRANSACTION_NONE;
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        checkOpen();
+        return ResultSet.HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        checkOpen();
+        return session.getDatabase().getName();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        checkOpen();
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        checkOpen();
+        return null;
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        checkOpen();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return new EmulatedDatabaseMetaData(this);
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        checkOpen();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        if (timeout < 0) {
+            throw new SQLException("Timeout must be >= 0: " + timeout, "HY092");
+        }
+        return !closed;
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        checkOpen();
+        networkTimeout = milliseconds;
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        checkOpen();
+        return networkTimeout;
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        close();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!closed) {
+            closed = true;
+            for (final EmulatedStatement statement : statements) {
+                statement.close();
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,73 @@
+package williampuk.timestamp.emul;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.time.Clock;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory database of the emulator. Every connection to the same URL shares one, for the life of the JVM.
+ */
+public final class EmulatedDatabase {
+
+    private static final Map<String, EmulatedDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    private final EmulatedVendor vendor;
+    private final String name;
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    private volatile Clock clock = Clock.systemUTC();
+
+    private EmulatedDatabase(final EmulatedVendor vendor, final String name) {
+        this.vendor = vendor;
+        this.name = name;
+    }
+
+    public static EmulatedDatabase of(final EmulatedVendor vendor, final String name) {
+        return DATABASES.computeIfAbsent(vendor + ":" + name, k -> new EmulatedDatabase(vendor, name));
+    }
+
+    public EmulatedVendor getVendor() {
+        return vendor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock the server reads {@code LOCALTIMESTAMP} from, e.g. a fixed clock to probe a DST transition.
+     */
+    public void setClock(final Clock clock) {
+        this.clock = clock;
+    }
+
+    Table table(final String table) throws SQLException {
+        final Table t = tables.get(key(table));
+        if (t == null) {
+            throw new SQLSyntaxErrorException("Table or view does not exist: " + table, "42P01");
+        }
+        return t;
+    }
+
+    void createTable(final Table table) throws SQLException {
+        if (tables.putIfAbsent(key(table.getName()), table) != null) {
+            throw new SQLSyntaxErrorException("Table already exists: " + table.getName(), "42P07");
+        }
+    }
+
+    void dropTable(final String table, final boolean ifExists) throws SQLException {
+        if (tables.remove(key(table)) == null && !ifExists) {
+            throw new SQLSyntaxErrorException("Table or view does not exist: " + table, "42P01");
+        }
+    }
+
+    private static String key(final String table) {
+        return table.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,128 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+
+/**
+ * The {@link DatabaseMetaData} of an {@link EmulatedConnection}: enough for code that tells vendors apart by product
+ * name or identifier casing.
+ */
+final class EmulatedDatabaseMetaData extends UnsupportedDatabaseMetaData {
+
+    private final EmulatedConnection connection;
+    private final EmulatedVendor vendor;
+
+    EmulatedDatabaseMetaData(final EmulatedConnection connection) {
+        this.connection = connection;
+        this.vendor = connection.getSession().getVendor();
+    }
+
+    @Override
+    public String getURL() {
+        return connection.getUrl();
+    }
+
+    @Override
+    public String getUserName() {
+        return null;
+    }
+
+    @Override
+    public String getDatabaseProductName() {
+        switch (vendor) {
+            case ORACLE:
+                return "Oracle";
+            case MYSQL:
+                return "MySQL";
+            default:
+                return "PostgreSQL";
+        }
+    }
+
+    @Override
+    public String getDatabaseProductVersion() {
+        return "emulated";
+    }
+
+    @Override
+    public String getDriverName() {
+        return EmulatedDriver.NAME;
+    }
+
+    @Override
+    public String getDriverVersion() {
+        return EmulatedDriver.MAJOR_VERSION + "." + EmulatedDriver.MINOR_VERSION;
+    }
+
+    @Override
+    public int getDriverMajorVersion() {
+        return EmulatedDriver.MAJOR_VERSION;
+    }
+
+    @Override
+    public int getDriverMinorVersion() {
+        return EmulatedDriver.MINOR_VERSION;
+    }
+
+    @Override
+    public int getJDBCMajorVersion() {
+        return 4;
+    }
+
+    @Override
+    public int getJDBCMinorVersion() {
+        return 2;
+    }
+
+    @Override
+    public boolean storesUpperCaseIdentifiers() {
+        return vendor == EmulatedVendor.ORACLE;
+    }
+
+    @Override
+    public boolean storesLowerCaseIdentifiers() {
+        return vendor == EmulatedVendor.POSTGRES;
+    }
+
+    @Override
+    public boolean storesMixedCaseIdentifiers() {
+        return vendor == EmulatedVendor.MYSQL;
+    }
+
+    @Override
+    public String getIdentifierQuoteString() {
+        return vendor == EmulatedVendor.MYSQL ? "`" : "\"";
+    }
+
+    @Override
+    public boolean supportsBatchUpdates() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsTransactions() {
+        return false;
+    }
+
+    @Override
+    public int getDefaultTransactionIsolation() {
+        return Connection.TRANSACTION_NONE;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
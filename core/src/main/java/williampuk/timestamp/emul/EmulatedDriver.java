@@ -0,0 +1,109 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+import java.time.ZoneId;
+import java.util.Properties;
+import java.util.TimeZone;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver for an in-process emulation of Oracle, MySQL and Postgres, good enough to run the harness without a
+ * database server: {@code jdbc:tsemu:<oracle|mysql|postgres>[:<database>][?serverTimeZone=<zone>]}.
+ * <p>
+ * The emulator models how each vendor stores, converts and transfers {@code TIMESTAMP} values, its session time zone
+ * command and the SQL the harness runs; it is not a general SQL engine. A new Oracle or Postgres session starts in
+ * the JVM default time zone, as their drivers set it on connect, and a MySQL session in the server's time zone,
+ * {@code serverTimeZone}, UTC by default.
+ * <p>
+ * A Postgres connection takes pgjdbc's {@code prepareThreshold} (5 by default) and {@code binaryTransfer} ({@code
+ * true} by default): with binary transfer on, {@code TIMESTAMP} results come in {@link WireFormat#POSTGRES_BINARY}
+ * once a prepared statement has run {@code prepareThreshold} times, and from the first execution of any statement
+ * with a threshold of -1.
+ */
+public final class EmulatedDriver implements Driver {
+
+    public static final String URL_PREFIX = "jdbc:tsemu:";
+    static final String NAME = "Timestamp Emulator";
+    static final int MAJOR_VERSION = 1;
+    static final int MINOR_VERSION = 0;
+
+    static {
+        try {
+            DriverManager.registerDriver(new EmulatedDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        final Properties props = new Properties();
+        if (info != null) {
+            props.putAll(info);
+        }
+        String path = url.substring(URL_PREFIX.length());
+        final int query = path.indexOf('?');
+        if (query >= 0) {
+            for (final String pair : path.substring(query + 1).split("&")) {
+                final int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    props.setProperty(pair.substring(0, eq), pair.substring(eq + 1));
+                }
+            }
+            path = path.substring(0, query);
+        }
+        final int colon = path.indexOf(':');
+        final EmulatedVendor vendor = EmulatedVendor.of(colon < 0 ? path : path.substring(0, colon));
+        final String database = colon < 0 ? "default" : path.substring(colon + 1);
+        final ZoneId defaultZone = vendor == EmulatedVendor.MYSQL ?
+                EmulatedVendor.zoneId(props.getProperty("serverTimeZone", "UTC")) :
+                TimeZone.getDefault().toZoneId();
+        final int prepareThreshold = Integer.parseInt(props.getProperty("prepareThreshold", "5"));
+        final boolean binaryTransfer = vendor == EmulatedVendor.POSTGRES &&
+                Boolean.parseBoolean(props.getProperty("binaryTransfer", "true"));
+        return new EmulatedConnection(EmulatedDatabase.of(vendor, database), url, defaultZone,
+                binaryTransfer ? prepareThreshold : 0);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        final DriverPropertyInfo serverTimeZone = new DriverPropertyInfo("serverTimeZone",
+                info == null ? null : info.getProperty("serverTimeZone"));
+        serverTimeZone.description = "The time zone of an emulated MySQL server";
+        final DriverPropertyInfo prepareThreshold = new DriverPropertyInfo("prepareThreshold",
+                info == null ? null : info.getProperty("prepareThreshold"));
+        prepareThreshold.description = "Executions of a Postgres statement before its results come in binary format";
+        final DriverPropertyInfo binaryTransfer = new DriverPropertyInfo("binaryTransfer",
+                info == null ? null : info.getProperty("binaryTransfer"));
+        binaryTransfer.description = "Whether Postgres TIMESTAMP results may come in binary format";
+        return new DriverPropertyInfo[]{serverTimeZone, prepareThreshold, binaryTransfer};
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return MAJOR_VERSION;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return MINOR_VERSION;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("getParentLogger");
+    }
+}
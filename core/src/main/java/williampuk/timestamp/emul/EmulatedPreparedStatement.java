@@ -0,0 +1,220 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * A {@link PreparedStatement} of the emulator. The SQL is parsed once when the statement is prepared, and each bound
+ * value is encoded in the vendor's {@link WireFormat} as soon as it is set, like a driver does.
+ */
+public class EmulatedPreparedStatement extends UnsupportedPreparedStatement {
+
+    /**
+     * The type of a parameter that has not been set; {@link Types#NULL} is a set {@code NULL}.
+     */
+    static final int UNBOUND = Integer.MIN_VALUE;
+
+    private final Command command;
+    private final WireFormat wireFormat;
+    private final byte[][] parameters;
+    private final int[] parameterTypes;
+    private final List<byte[][]> batchParameters = new ArrayList<>();
+    private final List<int[]> batchParameterTypes = new ArrayList<>();
+    private long executions;
+
+    EmulatedPreparedStatement(final EmulatedConnection connection, final String sql) throws SQLException {
+        super(connection);
+        this.command = connection.parse(sql);
+        this.wireFormat = connection.getSession().getVendor().getWireFormat();
+        this.parameters = new byte[command.parameterCount][];
+        this.parameterTypes = new int[command.parameterCount];
+        Arrays.fill(parameterTypes, UNBOUND);
+    }
+
+    /**
+     * @return the encoded value of a parameter, {@code null} for SQL {@code NULL}
+     */
+    public byte[] getParameter(final int parameterIndex) {
+        return parameters[parameterIndex - 1];
+    }
+
+    public int getParameterType(final int parameterIndex) {
+        return parameterTypes[parameterIndex - 1];
+    }
+
+    private void bind(final int parameterIndex, final int sqlType, final byte[] value) throws SQLException {
+        if (parameterIndex < 1 || parameterIndex > parameters.length) {
+            throw new SQLException("Parameter index out of range: " + parameterIndex, "07009");
+        }
+        parameters[parameterIndex - 1] = value;
+        parameterTypes[parameterIndex - 1] = sqlType;
+    }
+
+    private static SQLException notOnPreparedStatement() {
+        return new SQLException("Query methods that take a query string cannot be used on a PreparedStatement",
+                "42000");
+    }
+
+    @Override
+    WireFormat resultWireFormat() {
+        return connection.resultWireFormat(executions);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        executions++;
+        return run(command, parameters, parameterTypes);
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        if (!execute()) {
+            throw new SQLException("No results were returned by the query", "02000");
+        }
+        return getResultSet();
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return (int) executeLargeUpdate();
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        if (execute()) {
+            throw new SQLException("A result was returned when none was expected", "0100E");
+        }
+        return getLargeUpdateCount();
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        throw notOnPreparedStatement();
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        throw notOnPreparedStatement();
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        throw notOnPreparedStatement();
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        throw notOnPreparedStatement();
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        throw notOnPreparedStatement();
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        checkOpen();
+        batchParameters.add(parameters.clone());
+        batchParameterTypes.add(parameterTypes.clone());
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        checkOpen();
+        batchParameters.clear();
+        batchParameterTypes.clear();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        checkOpen();
+        try {
+            final int[] counts = new int[batchParameters.size()];
+            for (int i = 0; i < counts.length; i++) {
+                if (run(command, batchParameters.get(i), batchParameterTypes.get(i))) {
+                    throw new BatchUpdateException("A result was returned when none was expected", "0100E",
+                            Arrays.copyOf(counts, i));
+                }
+                counts[i] = (int) getLargeUpdateCount();
+            }
+            return counts;
+        } finally {
+            batchParameters.clear();
+            batchParameterTypes.clear();
+        }
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        bind(parameterIndex, sqlType, null);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        bind(parameterIndex, sqlType, null);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        bind(parameterIndex, Types.VARCHAR, x == null ? null : wireFormat.bindString(x));
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        setLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        bind(parameterIndex, Types.BIGINT, wireFormat.bindString(Long.toString(x)));
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        setTimestamp(parameterIndex, x, null);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        bind(parameterIndex, Types.TIMESTAMP, x == null ? null : wireFormat.bindTimestamp(x, cal));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        if (x == null) {
+            bind(parameterIndex, Types.NULL, null);
+        } else if (x instanceof LocalDateTime) {
+            bind(parameterIndex, Types.TIMESTAMP, wireFormat.bindLocalDateTime((LocalDateTime) x));
+        } else if (x instanceof Timestamp) {
+            setTimestamp(parameterIndex, (Timestamp) x);
+        } else if (x instanceof String) {
+            setString(parameterIndex, (String) x);
+        } else if (x instanceof Long || x instanceof Integer || x instanceof Short) {
+            setLong(parameterIndex, ((Number) x).longValue());
+        } else {
+            throw new SQLFeatureNotSupportedException("Binding a " + x.getClass().getName() +
+                    " is not supported by the emulator");
+        }
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, targetSqlType);
+        } else {
+            setObject(parameterIndex, x);
+        }
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        checkOpen();
+        Arrays.fill(parameters, null);
+        Arrays.fill(parameterTypes, UNBOUND);
+    }
+}
@@ -0,0 +1,369 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+
+/**
+ * A forward-only {@link ResultSet} of the emulator. Rows arrive encoded in the vendor's {@link WireFormat} and every
+ * getter decodes the value the way the vendor's driver does.
+ */
+public class EmulatedResultSet extends UnsupportedResultSet {
+
+    private final EmulatedStatement statement;
+    private final EmulatedVendor vendor;
+    private final WireFormat wireFormat;
+    private final WireFormat serverWireFormat;
+    private final String[] columnLabels;
+    private final int[] columnTypes;
+    private final Command.RowSource rows;
+    private final long maxRows;
+    private long rowNumber;
+    private byte[][] row;
+    private boolean wasNull;
+    private boolean closed;
+    private int fetchSize;
+
+    /**
+     * @param wireFormat the format {@code TIMESTAMP} values are sent to the driver in; rows are produced in the
+     *                   vendor's own and converted if it differs
+     */
+    EmulatedResultSet(final EmulatedStatement statement, final EmulatedVendor vendor, final WireFormat wireFormat,
+                      final Command.QueryResult result, final long maxRows) {
+        this.statement = statement;
+        this.vendor = vendor;
+        this.wireFormat = wireFormat;
+        this.serverWireFormat = vendor.getWireFormat();
+        this.columnLabels = result.labels;
+        this.columnTypes = result.types;
+        this.rows = result.rows;
+        this.maxRows = maxRows;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed", "HY010");
+        }
+    }
+
+    private byte[] value(final int columnIndex) throws SQLException {
+        checkOpen();
+        if (row == null) {
+            throw new SQLException("No current row", "24000");
+        }
+        if (columnIndex < 1 || columnIndex > columnTypes.length) {
+            throw new SQLException("Column index out of range: " + columnIndex, "07009");
+        }
+        final byte[] value = row[columnIndex - 1];
+        wasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        checkOpen();
+        if (rowNumber < 0 || maxRows > 0 && rowNumber >= maxRows) {
+            row = null;
+            return false;
+        }
+        statement.checkRunning();
+        row = rows.next();
+        if (row == null) {
+            // After the last row
+            rowNumber = -1;
+            return false;
+        }
+        rowNumber++;
+        if (wireFormat != serverWireFormat) {
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] != null && columnTypes[i] == Types.TIMESTAMP) {
+                    row[i] = wireFormat.serverEncodeTimestamp(serverWireFormat.serverDecodeTimestamp(row[i]));
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        checkOpen();
+        return row == null ? 0 : (int) rowNumber;
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        checkOpen();
+        return wasNull;
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        final byte[] value = value(columnIndex);
+        if (value == null) {
+            return null;
+        }
+        return columnTypes[columnIndex - 1] == Types.TIMESTAMP ? wireFormat.readTimestampString(value) :
+                wireFormat.readString(value);
+    }
+
+    /**
+     * @return the value as sent by the server, e.g. a binary {@code TIMESTAMP} as is, like pgjdbc does
+     */
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        return value(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        final String value = getString(columnIndex);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SQLDataException("Bad value for type long: " + value, "22003", e);
+        }
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        final long value = getLong(columnIndex);
+        if (value != (int) value) {
+            throw new SQLDataException("Bad value for type int: " + value, "22003");
+        }
+        return (int) value;
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return getTimestamp(columnIndex, null);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        final byte[] value = value(columnIndex);
+        return value == null ? null : wireFormat.readTimestamp(timestampWire(columnIndex, value), cal);
+    }
+
+    /**
+     * A timestamp read from a character column is parsed by the driver first, as pgjdbc and MySQL Connector/J do.
+     */
+    private byte[] timestampWire(final int columnIndex, final byte[] value) throws SQLException {
+        if (columnTypes[columnIndex - 1] == Types.TIMESTAMP) {
+            return value;
+        }
+        return wireFormat.serverEncodeTimestamp(Expr.parseTimestamp(serverWireFormat.readString(value)));
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        final byte[] value = value(columnIndex);
+        if (value == null) {
+            return null;
+        }
+        switch (columnTypes[columnIndex - 1]) {
+            case Types.TIMESTAMP:
+                return wireFormat.readTimestamp(value, null);
+            case Types.BIGINT:
+                return getLong(columnIndex);
+            case Types.BOOLEAN:
+                return Boolean.valueOf(wireFormat.readString(value));
+            default:
+                return wireFormat.readString(value);
+        }
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        final byte[] value = value(columnIndex);
+        if (value == null) {
+            return null;
+        }
+        if (type == LocalDateTime.class) {
+            return type.cast(wireFormat.readLocalDateTime(timestampWire(columnIndex, value)));
+        }
+        if (type == OffsetDateTime.class) {
+            return type.cast(readOffsetDateTime(timestampWire(columnIndex, value)));
+        }
+        if (type == Timestamp.class) {
+            return type.cast(getTimestamp(columnIndex));
+        }
+        if (type == String.class) {
+            return type.cast(getString(columnIndex));
+        }
+        if (type == Long.class) {
+            return type.cast(getLong(columnIndex));
+        }
+        if (type == Integer.class) {
+            return type.cast(getInt(columnIndex));
+        }
+        throw new SQLFeatureNotSupportedException("Reading a " + type.getName() + " is not supported by the emulator");
+    }
+
+    /**
+     * pgjdbc reads a {@code timestamp} as UTC, Connector/J resolves it in the session time zone the way {@code
+     * java.time} does, and ojdbc only converts a {@code TIMESTAMP WITH TIME ZONE}.
+     */
+    private OffsetDateTime readOffsetDateTime(final byte[] wire) throws SQLException {
+        final LocalDateTime local = wireFormat.readLocalDateTime(wire);
+        switch (vendor) {
+            case POSTGRES:
+                return local.atOffset(ZoneOffset.UTC);
+            case MYSQL:
+                return local.atZone(statement.connection.getSessionZone()).toOffsetDateTime();
+            default:
+                throw new SQLException("Invalid column type: getOffsetDateTime not implemented for TIMESTAMP",
+                        "99999", 17004);
+        }
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return getBytes(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        return getTimestamp(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        checkOpen();
+        for (int i = 0; i < columnLabels.length; i++) {
+            if (columnLabels[i].equalsIgnoreCase(columnLabel)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("No such column: " + columnLabel, "42703");
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return new EmulatedResultSetMetaData(vendor, columnLabels, columnTypes);
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        checkOpen();
+        if (rows < 0) {
+            throw new SQLException("Fetch size must be >= 0: " + rows, "HY024");
+        }
+        fetchSize = rows;
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        checkOpen();
+        return fetchSize;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        if (direction != FETCH_FORWARD) {
+            throw unsupported("setFetchDirection");
+        }
+    }
+
+    @Override
+    public int getFetchDirection() {
+        return FETCH_FORWARD;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getHoldability() {
+        return HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException {
+        checkOpen();
+        return statement;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            row = null;
+            try {
+                statement.resultSetClosed(this);
+            } catch (SQLException e) {
+                // Closing the statement on completion cannot fail
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
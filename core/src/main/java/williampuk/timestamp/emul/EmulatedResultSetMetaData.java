@@ -0,0 +1,90 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+
+/**
+ * The {@link ResultSetMetaData} of an {@link EmulatedResultSet}.
+ */
+final class EmulatedResultSetMetaData extends UnsupportedResultSetMetaData {
+
+    private final EmulatedVendor vendor;
+    private final String[] columnLabels;
+    private final int[] columnTypes;
+
+    EmulatedResultSetMetaData(final EmulatedVendor vendor, final String[] columnLabels, final int[] columnTypes) {
+        this.vendor = vendor;
+        this.columnLabels = columnLabels;
+        this.columnTypes = columnTypes;
+    }
+
+    private int check(final int column) throws SQLException {
+        if (column < 1 || column > columnTypes.length) {
+            throw new SQLException("Column index out of range: " + column, "07009");
+        }
+        return column - 1;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnTypes.length;
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return columnLabels[check(column)];
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return columnLabels[check(column)];
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return columnTypes[check(column)];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return vendor.columnTypeName(columnTypes[check(column)]);
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        switch (columnTypes[check(column)]) {
+            case Types.TIMESTAMP:
+                return Timestamp.class.getName();
+            case Types.BIGINT:
+                return Long.class.getName();
+            case Types.BOOLEAN:
+                return Boolean.class.getName();
+            default:
+                return String.class.getName();
+        }
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        check(column);
+        return columnNullableUnknown;
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        check(column);
+        return true;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
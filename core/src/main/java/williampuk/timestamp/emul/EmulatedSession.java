@@ -0,0 +1,57 @@
+package williampuk.timestamp.emul;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * The server side state of one emulated connection.
+ */
+final class EmulatedSession {
+
+    private final EmulatedDatabase database;
+    private final ZoneId defaultZone;
+    private volatile ZoneId sessionZone;
+
+    /**
+     * @param defaultZone the session time zone until one is set: the client's zone for Oracle and Postgres, whose
+     *                    drivers send it on connect, and the server's own zone for MySQL
+     */
+    EmulatedSession(final EmulatedDatabase database, final ZoneId defaultZone) {
+        this.database = database;
+        this.defaultZone = defaultZone;
+        this.sessionZone = defaultZone;
+    }
+
+    EmulatedDatabase getDatabase() {
+        return database;
+    }
+
+    EmulatedVendor getVendor() {
+        return database.getVendor();
+    }
+
+    ZoneId getSessionZone() {
+        return sessionZone;
+    }
+
+    /**
+     * @return {@code true} while the session has the zone it started with
+     */
+    boolean hasDefaultZone() {
+        return sessionZone.equals(defaultZone);
+    }
+
+    /**
+     * @param zone {@code null} to go back to the default
+     */
+    void setSessionZone(final ZoneId zone) {
+        this.sessionZone = zone == null ? defaultZone : zone;
+    }
+
+    long currentEpochMicros() {
+        final Instant now = database.getClock().instant();
+        return now.getEpochSecond() * TimestampCodec.MICROS_PER_SECOND + now.getNano() / 1000;
+    }
+}
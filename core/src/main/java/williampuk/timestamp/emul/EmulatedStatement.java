@@ -0,0 +1,358 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Statement} of the emulator. Statements run synchronously on the calling thread; a query's rows are
+ * produced as the {@link ResultSet} is read, which is where {@link #cancel()} and the query timeout take effect.
+ */
+public class EmulatedStatement extends UnsupportedStatement {
+
+    private static final byte[][] NO_PARAMETERS = new byte[0][];
+    private static final int[] NO_PARAMETER_TYPES = new int[0];
+
+    protected final EmulatedConnection connection;
+    private final List<String> batch = new ArrayList<>();
+    private EmulatedResultSet resultSet;
+    private long updateCount = -1;
+    private int fetchSize;
+    private long maxRows;
+    private int queryTimeout;
+    private long deadlineNanos;
+    private volatile boolean cancelled;
+    private boolean closeOnCompletion;
+    private boolean closed;
+
+    EmulatedStatement(final EmulatedConnection connection) {
+        this.connection = connection;
+    }
+
+    protected void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement is closed", "HY010");
+        }
+        connection.checkOpen();
+    }
+
+    /**
+     * Runs a command, leaving its result set or update count as this statement's current result.
+     */
+    boolean run(final Command command, final byte[][] params, final int[] paramTypes) throws SQLException {
+        checkOpen();
+        closeResultSet();
+        updateCount = -1;
+        cancelled = false;
+        deadlineNanos = queryTimeout == 0 ? 0 : System.nanoTime() + TimeUnit.SECONDS.toNanos(queryTimeout);
+        final EmulatedSession session = connection.getSession();
+        if (command.isQuery()) {
+            final Command.QueryResult result = command.query(session, params, paramTypes);
+            resultSet = new EmulatedResultSet(this, session.getVendor(), resultWireFormat(), result, maxRows);
+            return true;
+        }
+        updateCount = command.update(session, params, paramTypes);
+        return false;
+    }
+
+    /**
+     * @return the format {@code TIMESTAMP} results of the current execution come in
+     */
+    WireFormat resultWireFormat() {
+        return connection.resultWireFormat(0);
+    }
+
+    /**
+     * Called by the result set before it produces each row.
+     */
+    void checkRunning() throws SQLException {
+        if (cancelled) {
+            cancelled = false;
+            throw new SQLException("Statement was cancelled", "57014");
+        }
+        if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw new SQLTimeoutException("Query timed out after " + queryTimeout + "s", "57014");
+        }
+    }
+
+    void resultSetClosed(final EmulatedResultSet rs) throws SQLException {
+        if (rs == resultSet) {
+            resultSet = null;
+            if (closeOnCompletion) {
+                close();
+            }
+        }
+    }
+
+    private void closeResultSet() {
+        if (resultSet != null) {
+            final EmulatedResultSet rs = resultSet;
+            resultSet = null;
+            rs.close();
+        }
+    }
+
+    private static SQLException noResultSet() {
+        return new SQLException("No results were returned by the query", "02000");
+    }
+
+    private static SQLException unexpectedResultSet() {
+        return new SQLException("A result was returned when none was expected", "0100E");
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        checkOpen();
+        return run(connection.parse(sql), NO_PARAMETERS, NO_PARAMETER_TYPES);
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        if (!execute(sql)) {
+            throw noResultSet();
+        }
+        return resultSet;
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        return (int) executeLargeUpdate(sql);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        if (execute(sql)) {
+            throw unexpectedResultSet();
+        }
+        return updateCount;
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        return execute(sql);
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return executeUpdate(sql);
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        checkOpen();
+        return resultSet;
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return (int) getLargeUpdateCount();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        checkOpen();
+        return updateCount;
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        checkOpen();
+        closeResultSet();
+        updateCount = -1;
+        return false;
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        checkOpen();
+        batch.add(sql);
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        checkOpen();
+        batch.clear();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        checkOpen();
+        try {
+            final int[] counts = new int[batch.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = executeUpdate(batch.get(i));
+            }
+            return counts;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        checkOpen();
+        // Integer.MIN_VALUE asks Connector/J to stream the result row by row
+        final boolean mysqlStreaming = rows == Integer.MIN_VALUE &&
+                connection.getSession().getVendor() == EmulatedVendor.MYSQL;
+        if (rows < 0 && !mysqlStreaming) {
+            throw new SQLException("Fetch size must be >= 0: " + rows, "HY024");
+        }
+        fetchSize = rows;
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        checkOpen();
+        return fetchSize;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        if (direction != ResultSet.FETCH_FORWARD) {
+            throw unsupported("setFetchDirection");
+        }
+    }
+
+    @Override
+    public int getFetchDirection() {
+        return ResultSet.FETCH_FORWARD;
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        setLargeMaxRows(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return (int) Math.min(Integer.MAX_VALUE, getLargeMaxRows());
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        checkOpen();
+        if (max < 0) {
+            throw new SQLException("Max rows must be >= 0: " + max, "HY024");
+        }
+        maxRows = max;
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        checkOpen();
+        return maxRows;
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        checkOpen();
+        if (seconds < 0) {
+            throw new SQLException("Query timeout must be >= 0: " + seconds, "HY024");
+        }
+        queryTimeout = seconds;
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        checkOpen();
+        return queryTimeout;
+    }
+
+    @Override
+    public int getMaxFieldSize() {
+        return 0;
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) {
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) {
+    }
+
+    @Override
+    public int getResultSetType() {
+        return ResultSet.TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getResultSetConcurrency() {
+        return ResultSet.CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getResultSetHoldability() {
+        return ResultSet.HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) {
+    }
+
+    @Override
+    public boolean isPoolable() {
+        return false;
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        checkOpen();
+        closeOnCompletion = true;
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        checkOpen();
+        return closeOnCompletion;
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        checkOpen();
+        return connection;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!closed) {
+            closed = true;
+            closeResultSet();
+            connection.statementClosed(this);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
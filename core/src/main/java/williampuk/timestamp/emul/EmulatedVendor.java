@@ -0,0 +1,282 @@
+package williampuk.timestamp.emul;
+
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dbutils.SessionTimeZone;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The server behaviour the emulator models for each vendor: how identifiers are cased, how session time zones are
+ * named, how a {@code TIMESTAMP} is stored and how it is rendered as text.
+ */
+public enum EmulatedVendor {
+
+    ORACLE(WireFormat.ORACLE, SessionTimeZone.Form.ORACLE, true) {
+        @Override
+        String foldIdentifier(final String identifier) {
+            return identifier.toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * Like the default {@code NLS_TIMESTAMP_FORMAT} of {@code DD-MON-RR HH.MI.SSXFF AM}.
+         */
+        @Override
+        String timestampText(final long localMicros) {
+            final int[] f = new int[7];
+            TimestampCodec.toFields(localMicros, f);
+            final int hour12 = f[3] % 12 == 0 ? 12 : f[3] % 12;
+            return String.format("%02d-%s-%02d %02d.%02d.%02d.%06d %s", f[2], MONTHS[f[1] - 1], f[0] % 100,
+                    hour12, f[4], f[5], f[6], f[3] < 12 ? "AM" : "PM");
+        }
+
+        @Override
+        String columnTypeName(final int sqlType) {
+            switch (sqlType) {
+                case Types.TIMESTAMP:
+                    return "TIMESTAMP";
+                case Types.VARCHAR:
+                    return "VARCHAR2";
+                default:
+                    return "NUMBER";
+            }
+        }
+
+        @Override
+        ZoneId parseSessionZone(final String zone) throws SQLException {
+            if ("DBTIMEZONE".equals(zone)) {
+                return ZoneOffset.UTC;
+            }
+            return zoneId(zone);
+        }
+
+        /**
+         * A time in a gap is an error, ORA-01878; a time in an overlap is taken as standard time, the later offset,
+         * as {@code ERROR_ON_OVERLAP_TIME} is off by default.
+         */
+        @Override
+        long toEpochMicros(final long localMicros, final ZoneId zone) throws SQLException {
+            final ZoneOffsetTransition transition =
+                    zone.getRules().getTransition(TimestampCodec.toLocalDateTime(localMicros));
+            if (transition != null && transition.isGap()) {
+                throw new SQLDataException("ORA-01878: specified field not found in datetime or interval", "22009",
+                        1878);
+            }
+            return super.toEpochMicros(localMicros, zone);
+        }
+    },
+
+    MYSQL(WireFormat.MYSQL, SessionTimeZone.Form.MYSQL, false) {
+        @Override
+        String foldIdentifier(final String identifier) {
+            return identifier;
+        }
+
+        @Override
+        String timestampText(final long localMicros) {
+            return new String(WireFormat.textBytes(localMicros, 6), StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        String columnTypeName(final int sqlType) {
+            switch (sqlType) {
+                case Types.TIMESTAMP:
+                    return "TIMESTAMP";
+                case Types.VARCHAR:
+                    return "VARCHAR";
+                default:
+                    return "BIGINT";
+            }
+        }
+
+        @Override
+        ZoneId parseSessionZone(final String zone) throws SQLException {
+            return "SYSTEM".equalsIgnoreCase(zone) ? null : zoneId(zone);
+        }
+
+        /**
+         * Times in a gap move to the end of the gap, times in an overlap take the earlier offset.
+         */
+        @Override
+        long toEpochMicros(final long localMicros, final ZoneId zone) {
+            final ZoneOffsetTransition transition =
+                    zone.getRules().getTransition(TimestampCodec.toLocalDateTime(localMicros));
+            if (transition == null) {
+                return TimestampCodec.of(zone).toEpochMicros(localMicros);
+            }
+            return transition.isGap() ? transition.toEpochSecond() * TimestampCodec.MICROS_PER_SECOND :
+                    localMicros - transition.getOffsetBefore().getTotalSeconds() * TimestampCodec.MICROS_PER_SECOND;
+        }
+
+        /**
+         * A MySQL {@code TIMESTAMP} column holds UTC: the wall-clock time is converted from the session time zone
+         * like {@code CONVERT_TZ} does, and the value must lie within 1970-01-01 00:00:01 and 2038-01-19 03:14:07
+         * UTC. Fractional seconds are rounded away.
+         */
+        @Override
+        long toStorage(final long localMicros, final ZoneId sessionZone) throws SQLException {
+            final long rounded = Math.floorDiv(localMicros + TimestampCodec.MICROS_PER_SECOND / 2,
+                    TimestampCodec.MICROS_PER_SECOND) * TimestampCodec.MICROS_PER_SECOND;
+            final long utc = toEpochMicros(rounded, sessionZone);
+            if (utc < MYSQL_MIN_MICROS || utc > MYSQL_MAX_MICROS) {
+                throw new SQLDataException("Incorrect datetime value: '" + timestampText(rounded) + "'", "22007");
+            }
+            return utc;
+        }
+
+        @Override
+        long fromStorage(final long storedMicros, final ZoneId sessionZone) {
+            return TimestampCodec.of(sessionZone).toLocalMicros(storedMicros);
+        }
+    },
+
+    POSTGRES(WireFormat.POSTGRES, SessionTimeZone.Form.POSTGRES, false) {
+        @Override
+        String foldIdentifier(final String identifier) {
+            return identifier.toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        String timestampText(final long localMicros) {
+            return new String(WireFormat.textBytes(localMicros, 0), StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        String columnTypeName(final int sqlType) {
+            switch (sqlType) {
+                case Types.TIMESTAMP:
+                    return "timestamp";
+                case Types.VARCHAR:
+                    return "varchar";
+                default:
+                    return "int8";
+            }
+        }
+
+        /**
+         * A plain number such as {@code '+05'} is an ISO offset in hours, but any other offset such as {@code
+         * '+05:00'} is read as a POSIX zone specification, where positive means west of Greenwich.
+         */
+        @Override
+        ZoneId parseSessionZone(final String zone) throws SQLException {
+            if (NUMERIC_HOURS.matcher(zone).matches()) {
+                return ZoneOffset.ofTotalSeconds((int) Math.round(Double.parseDouble(zone) * 3600));
+            }
+            final Matcher posix = POSIX_OFFSET.matcher(zone);
+            if (posix.matches()) {
+                final int seconds = Integer.parseInt(posix.group(2)) * 3600 +
+                        (posix.group(3) == null ? 0 : Integer.parseInt(posix.group(3)) * 60);
+                return ZoneOffset.ofTotalSeconds("-".equals(posix.group(1)) ? seconds : -seconds);
+            }
+            return zoneId(zone);
+        }
+    };
+
+    static final long MYSQL_MIN_MICROS = TimestampCodec.MICROS_PER_SECOND;
+    static final long MYSQL_MAX_MICROS = 2_147_483_647L * TimestampCodec.MICROS_PER_SECOND;
+
+    private static final String[] MONTHS =
+            {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final Pattern NUMERIC_HOURS = Pattern.compile("[+-]?\\d+(\\.\\d+)?");
+    private static final Pattern POSIX_OFFSET = Pattern.compile("([+-])?(\\d{1,2})(?::(\\d{2}))?");
+
+    private final WireFormat wireFormat;
+    private final SessionTimeZone.Form sessionZoneForm;
+    private final boolean requiresFromClause;
+
+    EmulatedVendor(final WireFormat wireFormat, final SessionTimeZone.Form sessionZoneForm,
+                   final boolean requiresFromClause) {
+        this.wireFormat = wireFormat;
+        this.sessionZoneForm = sessionZoneForm;
+        this.requiresFromClause = requiresFromClause;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    SessionTimeZone.Form getSessionZoneForm() {
+        return sessionZoneForm;
+    }
+
+    /**
+     * @return {@code true} if a {@code SELECT} needs a {@code FROM} clause ({@code FROM DUAL} on Oracle)
+     */
+    boolean requiresFromClause() {
+        return requiresFromClause;
+    }
+
+    /**
+     * @return how an unquoted identifier is reported back, e.g. as a column name
+     */
+    abstract String foldIdentifier(String identifier);
+
+    /**
+     * @return a {@code TIMESTAMP} cast to a character type
+     */
+    abstract String timestampText(long localMicros);
+
+    abstract String columnTypeName(int sqlType);
+
+    /**
+     * @return the zone named in a session time zone command, {@code null} for the server's own zone
+     */
+    abstract ZoneId parseSessionZone(String zone) throws SQLException;
+
+    /**
+     * @return what a {@code TIMESTAMP} column stores for a wall-clock time written in {@code sessionZone}
+     */
+    long toStorage(final long localMicros, final ZoneId sessionZone) throws SQLException {
+        return localMicros;
+    }
+
+    /**
+     * @return the wall-clock time a stored {@code TIMESTAMP} reads as in {@code sessionZone}
+     */
+    long fromStorage(final long storedMicros, final ZoneId sessionZone) {
+        return storedMicros;
+    }
+
+    /**
+     * How {@code FROM_TZ}, {@code AT TIME ZONE} and {@code CONVERT_TZ} resolve a wall-clock time of {@code zone}: as
+     * Postgres does by default, with the offset before the transition for a time in a gap, and the offset after it
+     * for a time in an overlap.
+     *
+     * @return the instant in epoch micros
+     */
+    long toEpochMicros(final long localMicros, final ZoneId zone) throws SQLException {
+        final ZoneOffsetTransition transition =
+                zone.getRules().getTransition(TimestampCodec.toLocalDateTime(localMicros));
+        if (transition == null) {
+            return TimestampCodec.of(zone).toEpochMicros(localMicros);
+        }
+        final ZoneOffset offset = transition.isGap() ? transition.getOffsetBefore() : transition.getOffsetAfter();
+        return localMicros - offset.getTotalSeconds() * TimestampCodec.MICROS_PER_SECOND;
+    }
+
+    static ZoneId zoneId(final String zone) throws SQLException {
+        try {
+            return ZoneId.of(zone.trim());
+        } catch (DateTimeException e) {
+            throw new SQLDataException("Unknown or incorrect time zone: '" + zone + "'", "22023", e);
+        }
+    }
+
+    public static EmulatedVendor of(final String name) throws SQLException {
+        for (final EmulatedVendor vendor : values()) {
+            if (vendor.name().equalsIgnoreCase(name)) {
+                return vendor;
+            }
+        }
+        throw new SQLException("Unknown vendor: " + name);
+    }
+}
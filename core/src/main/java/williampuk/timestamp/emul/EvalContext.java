@@ -0,0 +1,72 @@
+package williampuk.timestamp.emul;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.ZoneId;
+
+/**
+ * What an {@link Expr} is evaluated against: the session state captured when the statement started, the bound
+ * parameters and the current row.
+ */
+final class EvalContext {
+
+    final EmulatedVendor vendor;
+    final ZoneId sessionZone;
+    final boolean defaultSessionZone;
+    private final long statementEpochMicros;
+    private final byte[][] params;
+    private final int[] paramTypes;
+    Table table;
+    Object[] row;
+    /**
+     * The number of rows matched, for {@link Expr.CountAll}.
+     */
+    long count;
+
+    EvalContext(final EmulatedSession session, final byte[][] params, final int[] paramTypes) {
+        this.vendor = session.getVendor();
+        this.sessionZone = session.getSessionZone();
+        this.defaultSessionZone = session.hasDefaultZone();
+        this.statementEpochMicros = session.currentEpochMicros();
+        this.params = params;
+        this.paramTypes = paramTypes;
+    }
+
+    /**
+     * @return {@code LOCALTIMESTAMP}: the statement's start time in the session time zone, in whole seconds on MySQL
+     */
+    long localTimestampMicros() {
+        final long micros = TimestampCodec.of(sessionZone).toLocalMicros(statementEpochMicros);
+        return vendor == EmulatedVendor.MYSQL ? micros - Math.floorMod(micros, TimestampCodec.MICROS_PER_SECOND) :
+                micros;
+    }
+
+    Object param(final int index) throws SQLException {
+        checkParam(index);
+        final byte[] value = params[index];
+        if (value == null) {
+            return null;
+        }
+        switch (paramTypes[index]) {
+            case Types.TIMESTAMP:
+                return new TimestampValue(vendor.getWireFormat().serverDecodeTimestamp(value));
+            case Types.BIGINT:
+                return Long.parseLong(vendor.getWireFormat().readString(value));
+            default:
+                return vendor.getWireFormat().readString(value);
+        }
+    }
+
+    int paramType(final int index) throws SQLException {
+        checkParam(index);
+        return paramTypes[index] == Types.NULL ? Types.VARCHAR : paramTypes[index];
+    }
+
+    private void checkParam(final int index) throws SQLException {
+        if (index >= params.length || paramTypes[index] == EmulatedPreparedStatement.UNBOUND) {
+            throw new SQLException("No value specified for parameter " + (index + 1), "07001");
+        }
+    }
+}
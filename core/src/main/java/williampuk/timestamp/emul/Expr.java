@@ -0,0 +1,459 @@
+package williampuk.timestamp.emul;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An SQL expression understood by the emulator. Values are {@code null}, {@link String}, {@link Long} or {@link
+ * TimestampValue}.
+ */
+abstract class Expr {
+
+    private static final Pattern TIMESTAMP_TEXT = Pattern.compile(
+            "\\s*(-?\\d{1,4})-(\\d{1,2})-(\\d{1,2})(?:[ T](\\d{1,2}):(\\d{1,2})(?::(\\d{1,2})(?:\\.(\\d{1,9}))?)?)?" +
+                    "\\s*(?:Z|[+-]\\d{1,2}(?::?\\d{2})?|[A-Za-z_/]+)?\\s*");
+
+    /**
+     * The expression as written, used to name an unaliased result column.
+     */
+    String source = "";
+
+    abstract Object eval(EvalContext ctx) throws SQLException;
+
+    /**
+     * @return the {@link Types} of the value this expression evaluates to
+     */
+    abstract int type(EvalContext ctx) throws SQLException;
+
+    /**
+     * @return the column label the vendor reports for this expression when it has no alias
+     */
+    String label(final EmulatedVendor vendor) {
+        switch (vendor) {
+            case ORACLE:
+                return source.replaceAll("\\s+", "").toUpperCase(Locale.ROOT);
+            case POSTGRES:
+                return "?column?";
+            default:
+                return source;
+        }
+    }
+
+    // -- Nodes
+
+    static final class Literal extends Expr {
+        private final Object value;
+        private final int type;
+
+        Literal(final Object value, final int type) {
+            this.value = value;
+            this.type = type;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) {
+            return value;
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return type;
+        }
+
+        @Override
+        String label(final EmulatedVendor vendor) {
+            return vendor == EmulatedVendor.POSTGRES && type == Types.TIMESTAMP ? "timestamp" : super.label(vendor);
+        }
+    }
+
+    static final class Param extends Expr {
+        private final int index;
+
+        Param(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) throws SQLException {
+            return ctx.param(index);
+        }
+
+        @Override
+        int type(final EvalContext ctx) throws SQLException {
+            return ctx.paramType(index);
+        }
+    }
+
+    static final class ColumnRef extends Expr {
+        private final String name;
+        private Table resolvedTable;
+        private int resolvedIndex;
+
+        ColumnRef(final String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        private int index(final EvalContext ctx) throws SQLException {
+            if (ctx.table == null) {
+                throw new SQLSyntaxErrorException("Unknown column '" + name + "'", "42703");
+            }
+            if (resolvedTable != ctx.table) {
+                resolvedIndex = ctx.table.columnIndex(name);
+                resolvedTable = ctx.table;
+            }
+            return resolvedIndex;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) throws SQLException {
+            final int i = index(ctx);
+            final Object value = ctx.row[i];
+            if (value != null && ctx.table.getColumns()[i].zoneConverted) {
+                return new TimestampValue(ctx.vendor.fromStorage(((TimestampValue) value).localMicros,
+                        ctx.sessionZone));
+            }
+            return value;
+        }
+
+        @Override
+        int type(final EvalContext ctx) throws SQLException {
+            return ctx.table.getColumns()[index(ctx)].sqlType;
+        }
+
+        @Override
+        String label(final EmulatedVendor vendor) {
+            return vendor.foldIdentifier(name);
+        }
+    }
+
+    static final class LocalTimestamp extends Expr {
+        @Override
+        Object eval(final EvalContext ctx) {
+            return new TimestampValue(ctx.localTimestampMicros());
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return Types.TIMESTAMP;
+        }
+
+        @Override
+        String label(final EmulatedVendor vendor) {
+            return vendor == EmulatedVendor.POSTGRES ? "localtimestamp" : super.label(vendor);
+        }
+    }
+
+    /**
+     * The session time zone as the vendor spells it, in a form its session time zone command takes back: Oracle's
+     * {@code SESSIONTIMEZONE}, Postgres' {@code current_setting('TimeZone')} and MySQL's {@code @@session.time_zone}.
+     */
+    static final class SessionTimeZoneName extends Expr {
+        @Override
+        Object eval(final EvalContext ctx) {
+            if (ctx.vendor == EmulatedVendor.MYSQL && ctx.defaultSessionZone) {
+                return "SYSTEM";
+            }
+            if (!(ctx.sessionZone instanceof ZoneOffset)) {
+                return ctx.sessionZone.getId();
+            }
+            final ZoneOffset offset = (ZoneOffset) ctx.sessionZone;
+            // Postgres reports an offset as a POSIX zone, positive west of Greenwich
+            final ZoneOffset shown = ctx.vendor == EmulatedVendor.POSTGRES ? ZoneOffset.ofTotalSeconds(
+                    -offset.getTotalSeconds()) : offset;
+            return shown.equals(ZoneOffset.UTC) ? "+00:00" : shown.getId();
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return Types.VARCHAR;
+        }
+    }
+
+    static final class Cast extends Expr {
+        private final Expr operand;
+        private final int targetType;
+        private final String targetTypeName;
+
+        Cast(final Expr operand, final int targetType, final String targetTypeName) {
+            this.operand = operand;
+            this.targetType = targetType;
+            this.targetTypeName = targetTypeName;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) throws SQLException {
+            return coerce(operand.eval(ctx), targetType, ctx.vendor);
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return targetType;
+        }
+
+        @Override
+        String label(final EmulatedVendor vendor) {
+            return vendor == EmulatedVendor.POSTGRES ? targetTypeName.toLowerCase(Locale.ROOT) : super.label(vendor);
+        }
+    }
+
+    /**
+     * {@code FROM_TZ}, {@code SYS_EXTRACT_UTC} and {@code AT TIME ZONE}: a {@code TIMESTAMP} becomes the instant of
+     * its wall-clock time in the zone, a {@code TIMESTAMP WITH TIME ZONE} becomes the wall-clock time of its instant
+     * in the zone. An instant is held as a {@link TimestampValue} of its UTC wall-clock time.
+     */
+    static final class ZoneConversion extends Expr {
+        private final Expr operand;
+        private final Expr zone;
+
+        ZoneConversion(final Expr operand, final Expr zone) {
+            this.operand = operand;
+            this.zone = zone;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) throws SQLException {
+            final Object value = operand.eval(ctx);
+            final Object zoneName = zone.eval(ctx);
+            if (value == null || zoneName == null) {
+                return null;
+            }
+            final ZoneId zoneId = ctx.vendor.parseSessionZone(toText(zoneName, ctx.vendor));
+            if (zoneId == null) {
+                throw new SQLDataException("Unknown or incorrect time zone: '" + zoneName + "'", "22023");
+            }
+            final long micros = toTimestamp(value).localMicros;
+            return new TimestampValue(operand.type(ctx) == Types.TIMESTAMP_WITH_TIMEZONE ?
+                    TimestampCodec.of(zoneId).toLocalMicros(micros) : ctx.vendor.toEpochMicros(micros, zoneId));
+        }
+
+        @Override
+        int type(final EvalContext ctx) throws SQLException {
+            return operand.type(ctx) == Types.TIMESTAMP_WITH_TIMEZONE ? Types.TIMESTAMP :
+                    Types.TIMESTAMP_WITH_TIMEZONE;
+        }
+    }
+
+    enum Op { EQ, NE, LT, LE, GT, GE, AND, OR, CONCAT }
+
+    static final class Binary extends Expr {
+        private final Op op;
+        private final Expr left;
+        private final Expr right;
+
+        Binary(final Op op, final Expr left, final Expr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) throws SQLException {
+            final Object l = left.eval(ctx);
+            if (op == Op.AND && Boolean.FALSE.equals(l) || op == Op.OR && Boolean.TRUE.equals(l)) {
+                return l;
+            }
+            final Object r = right.eval(ctx);
+            switch (op) {
+                case AND:
+                    return l == null || r == null ? (Boolean.FALSE.equals(r) ? Boolean.FALSE : null) : (Boolean) r;
+                case OR:
+                    return Boolean.TRUE.equals(r) ? Boolean.TRUE : (l == null || r == null ? null : Boolean.FALSE);
+                case CONCAT:
+                    if (l == null || r == null) {
+                        // Oracle treats NULL as an empty string here
+                        return ctx.vendor == EmulatedVendor.ORACLE ?
+                                (l == null ? "" : toText(l, ctx.vendor)) + (r == null ? "" : toText(r, ctx.vendor)) :
+                                null;
+                    }
+                    return toText(l, ctx.vendor) + toText(r, ctx.vendor);
+                default:
+                    if (l == null || r == null) {
+                        return null;
+                    }
+                    final int c = compare(l, r, ctx.vendor);
+                    switch (op) {
+                        case EQ:
+                            return c == 0;
+                        case NE:
+                            return c != 0;
+                        case LT:
+                            return c < 0;
+                        case LE:
+                            return c <= 0;
+                        case GT:
+                            return c > 0;
+                        default:
+                            return c >= 0;
+                    }
+            }
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return op == Op.CONCAT ? Types.VARCHAR : Types.BOOLEAN;
+        }
+    }
+
+    static final class Not extends Expr {
+        private final Expr operand;
+
+        Not(final Expr operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) throws SQLException {
+            final Object value = operand.eval(ctx);
+            return value == null ? null : !(Boolean) value;
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return Types.BOOLEAN;
+        }
+    }
+
+    static final class IsNull extends Expr {
+        private final Expr operand;
+        private final boolean negated;
+
+        IsNull(final Expr operand, final boolean negated) {
+            this.operand = operand;
+            this.negated = negated;
+        }
+
+        @Override
+        Object eval(final EvalContext ctx) throws SQLException {
+            return (operand.eval(ctx) == null) != negated;
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return Types.BOOLEAN;
+        }
+    }
+
+    /**
+     * {@code COUNT(*)}, the one aggregate: a {@code SELECT} of it alone gives a single row with the number of rows
+     * that match, see {@link EvalContext#count}.
+     */
+    static final class CountAll extends Expr {
+        @Override
+        Object eval(final EvalContext ctx) {
+            return ctx.count;
+        }
+
+        @Override
+        int type(final EvalContext ctx) {
+            return Types.BIGINT;
+        }
+
+        @Override
+        String label(final EmulatedVendor vendor) {
+            return vendor == EmulatedVendor.POSTGRES ? "count" : super.label(vendor);
+        }
+    }
+
+    // -- Conversions
+
+    static Object coerce(final Object value, final int targetType, final EmulatedVendor vendor) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        switch (targetType) {
+            case Types.TIMESTAMP:
+                return toTimestamp(value);
+            case Types.VARCHAR:
+                return toText(value, vendor);
+            case Types.BIGINT:
+                return toLong(value);
+            default:
+                return value;
+        }
+    }
+
+    static String toText(final Object value, final EmulatedVendor vendor) {
+        if (value instanceof TimestampValue) {
+            return vendor.timestampText(((TimestampValue) value).localMicros);
+        }
+        return String.valueOf(value);
+    }
+
+    static TimestampValue toTimestamp(final Object value) throws SQLException {
+        if (value instanceof TimestampValue) {
+            return (TimestampValue) value;
+        }
+        if (value instanceof String) {
+            return new TimestampValue(parseTimestamp((String) value));
+        }
+        throw new SQLDataException("Cannot convert " + value + " to TIMESTAMP", "22018");
+    }
+
+    static Long toLong(final Object value) throws SQLException {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        try {
+            return Long.parseLong(String.valueOf(value).trim());
+        } catch (NumberFormatException e) {
+            throw new SQLDataException("Cannot convert '" + value + "' to a number", "22018", e);
+        }
+    }
+
+    static int compare(final Object l, final Object r, final EmulatedVendor vendor) throws SQLException {
+        if (l instanceof TimestampValue || r instanceof TimestampValue) {
+            return toTimestamp(l).compareTo(toTimestamp(r));
+        }
+        if (l instanceof Long || r instanceof Long) {
+            return toLong(l).compareTo(toLong(r));
+        }
+        return toText(l, vendor).compareTo(toText(r, vendor));
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd[ HH:mm[:ss[.fffffffff]]]}; a trailing zone is accepted and ignored, as it is for a
+     * {@code TIMESTAMP WITHOUT TIME ZONE}.
+     *
+     * @return the local micros
+     */
+    static long parseTimestamp(final String text) throws SQLException {
+        final Matcher m = TIMESTAMP_TEXT.matcher(text);
+        if (!m.matches()) {
+            throw new SQLDataException("Invalid timestamp literal: '" + text + "'", "22007");
+        }
+        try {
+            final int year = Integer.parseInt(m.group(1));
+            final int month = Integer.parseInt(m.group(2));
+            final int day = Integer.parseInt(m.group(3));
+            // Rejects e.g. February 30th
+            LocalDate.of(year, month, day);
+            final int hour = m.group(4) == null ? 0 : Integer.parseInt(m.group(4));
+            final int minute = m.group(5) == null ? 0 : Integer.parseInt(m.group(5));
+            final int second = m.group(6) == null ? 0 : Integer.parseInt(m.group(6));
+            if (hour > 23 || minute > 59 || second > 59) {
+                throw new DateTimeException("Time out of range");
+            }
+            final String fraction = m.group(7) == null ? "" : m.group(7);
+            final int micros = fraction.isEmpty() ? 0 :
+                    Integer.parseInt((fraction + "00000").substring(0, 6));
+            return TimestampCodec.localMicros(year, month, day, hour, minute, second, micros);
+        } catch (DateTimeException e) {
+            throw new SQLDataException("Invalid timestamp literal: '" + text + "'", "22008", e);
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package williampuk.timestamp.emul;
+
+import williampuk.timestamp.dbutils.SessionTimeZone;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the SQL the emulator understands into a {@link Command}: {@code CREATE TABLE/INDEX}, {@code DROP TABLE},
+ * {@code INSERT ... VALUES}, {@code SELECT} (with {@code WHERE}, {@code UNION ALL}, {@code ORDER BY}, a row
+ * limit and {@code COUNT(*)}), the session time zone commands and queries, transaction control, and Oracle's
+ * drop-if-exists PL/SQL idiom. Of the zone conversions, each vendor understands its own: {@code FROM_TZ} and {@code SYS_EXTRACT_UTC} on Oracle, {@code
+ * CONVERT_TZ} on MySQL, {@code AT TIME ZONE} on Postgres.
+ */
+final class SqlParser {
+
+    private static final Pattern PLSQL_DROP_TABLE = Pattern.compile(
+            "(?is)\\s*BEGIN\\b.*EXECUTE\\s+IMMEDIATE\\s+'DROP\\s+TABLE\\s+(\\w+)[^']*'.*END\\s*;?\\s*");
+
+    private enum Kind { WORD, QUOTED, STRING, NUMBER, PARAM, SYMBOL, END }
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+        final int start;
+        final int end;
+
+        Token(final Kind kind, final String text, final int start, final int end) {
+            this.kind = kind;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final String sql;
+    private final EmulatedVendor vendor;
+    private final List<Token> tokens;
+    private int pos;
+    private int paramCount;
+
+    private SqlParser(final String sql, final EmulatedVendor vendor) throws SQLException {
+        this.sql = sql;
+        this.vendor = vendor;
+        this.tokens = tokenize(sql);
+    }
+
+    static Command parse(final String sql, final EmulatedVendor vendor) throws SQLException {
+        final SessionTimeZone zoneCommand = SessionTimeZone.parse(sql);
+        if (zoneCommand != null) {
+            if (zoneCommand.getForm() != vendor.getSessionZoneForm()) {
+                throw new SQLSyntaxErrorException("Syntax error: " + sql, "42601");
+            }
+            return new Command.SetSessionZone(zoneCommand.getZone());
+        }
+        final Matcher block = PLSQL_DROP_TABLE.matcher(sql);
+        if (vendor == EmulatedVendor.ORACLE && block.matches()) {
+            return new Command.DropTable(block.group(1), true);
+        }
+        final SqlParser parser = new SqlParser(sql, vendor);
+        final Command command = parser.command();
+        parser.accept(";");
+        parser.expect(Kind.END);
+        command.parameterCount = parser.paramCount;
+        return command;
+    }
+
+    // -- Statements
+
+    private Command command() throws SQLException {
+        if (acceptWord("SELECT")) {
+            return select();
+        }
+        if (acceptWord("INSERT")) {
+            return insert();
+        }
+        if (acceptWord("CREATE")) {
+            if (acceptWord("TABLE")) {
+                return createTable();
+            }
+            acceptWord("UNIQUE");
+            expectWord("INDEX");
+            final String index = identifier();
+            expectWord("ON");
+            final String table = identifier();
+            skipParenthesized();
+            return new Command.CreateIndex(index, table);
+        }
+        if (acceptWord("DROP")) {
+            expectWord("TABLE");
+            final boolean ifExists = acceptWord("IF") && expectWord("EXISTS");
+            final String table = identifier();
+            while (peek().kind == Kind.WORD) {
+                // CASCADE [CONSTRAINTS] [PURGE]
+                pos++;
+            }
+            if (!ifExists && vendor == EmulatedVendor.ORACLE || ifExists && vendor != EmulatedVendor.ORACLE) {
+                return new Command.DropTable(table, ifExists);
+            }
+            throw error();
+        }
+        if (acceptWord("COMMIT") || acceptWord("ROLLBACK")) {
+            acceptWord("WORK");
+            return new Command.NoOp();
+        }
+        if (acceptWord("START") && expectWord("TRANSACTION") || acceptWord("BEGIN")) {
+            return new Command.NoOp();
+        }
+        throw error();
+    }
+
+    private Command createTable() throws SQLException {
+        final String table = identifier();
+        expect("(");
+        final List<Table.Column> columns = new ArrayList<>();
+        do {
+            final String column = identifier();
+            final Token typeToken = peek();
+            final String typeName = identifier();
+            final int sqlType = Table.sqlType(typeName);
+            skipParenthesized();
+            if (acceptWord("WITH") || acceptWord("WITHOUT")) {
+                if (!tokens.get(pos - 1).text.equalsIgnoreCase("WITHOUT")) {
+                    throw new SQLSyntaxErrorException("TIMESTAMP WITH TIME ZONE columns are not emulated", "0A000");
+                }
+                expectWord("TIME");
+                expectWord("ZONE");
+            }
+            boolean notNull = false;
+            Expr defaultValue = null;
+            while (!peekSymbol(",") && !peekSymbol(")")) {
+                if (acceptWord("NOT")) {
+                    expectWord("NULL");
+                    notNull = true;
+                } else if (acceptWord("NULL")) {
+                    notNull = false;
+                } else if (acceptWord("DEFAULT")) {
+                    defaultValue = expression();
+                } else if (acceptWord("PRIMARY")) {
+                    expectWord("KEY");
+                    notNull = true;
+                } else {
+                    throw error();
+                }
+            }
+            final boolean zoneConverted = vendor == EmulatedVendor.MYSQL && sqlType == Types.TIMESTAMP
+                    && typeToken.text.equalsIgnoreCase("TIMESTAMP");
+            columns.add(new Table.Column(column, sqlType, notNull, zoneConverted, defaultValue));
+        } while (accept(","));
+        expect(")");
+        return new Command.CreateTable(table, columns.toArray(new Table.Column[0]));
+    }
+
+    private Command insert() throws SQLException {
+        expectWord("INTO");
+        final String table = identifier();
+        final List<String> columns = new ArrayList<>();
+        if (accept("(")) {
+            do {
+                columns.add(identifier());
+            } while (accept(","));
+            expect(")");
+        }
+        expectWord("VALUES");
+        final List<Expr[]> rows = new ArrayList<>();
+        do {
+            expect("(");
+            final List<Expr> values = new ArrayList<>();
+            do {
+                values.add(expression());
+            } while (accept(","));
+            expect(")");
+            rows.add(values.toArray(new Expr[0]));
+        } while (accept(","));
+        return new Command.Insert(table, columns.isEmpty() ? null : columns.toArray(new String[0]), rows);
+    }
+
+    private Command.Select select() throws SQLException {
+        final List<Command.Branch> branches = new ArrayList<>();
+        branches.add(branch());
+        while (acceptWord("UNION")) {
+            expectWord("ALL");
+            expectWord("SELECT");
+            branches.add(branch());
+        }
+        final List<Command.OrderItem> orderBy = new ArrayList<>();
+        if (acceptWord("ORDER")) {
+            expectWord("BY");
+            do {
+                final int start = peek().start;
+                final Expr expr = expression();
+                expr.source = sql.substring(start, tokens.get(pos - 1).end);
+                final boolean descending = acceptWord("DESC");
+                if (!descending) {
+                    acceptWord("ASC");
+                }
+                orderBy.add(new Command.OrderItem(expr, descending));
+            } while (accept(","));
+        }
+        long limit = -1;
+        if (acceptWord("LIMIT")) {
+            limit = Long.parseLong(expect(Kind.NUMBER).text);
+        } else if (acceptWord("FETCH")) {
+            if (!acceptWord("FIRST")) {
+                expectWord("NEXT");
+            }
+            limit = Long.parseLong(expect(Kind.NUMBER).text);
+            if (!acceptWord("ROWS")) {
+                expectWord("ROW");
+            }
+            expectWord("ONLY");
+        }
+        return new Command.Select(branches, orderBy, limit);
+    }
+
+    private Command.Branch branch() throws SQLException {
+        final List<Command.Item> items = new ArrayList<>();
+        if (accept("*")) {
+            items.add(null);
+        } else {
+            do {
+                final int start = peek().start;
+                final Expr expr = expression();
+                expr.source = sql.substring(start, tokens.get(pos - 1).end);
+                String alias = null;
+                if (acceptWord("AS") || peek().kind == Kind.QUOTED ||
+                        peek().kind == Kind.WORD && !isReserved(peek().text)) {
+                    final boolean quoted = peek().kind == Kind.QUOTED;
+                    alias = identifier();
+                    if (!quoted) {
+                        alias = vendor.foldIdentifier(alias);
+                    }
+                }
+                items.add(new Command.Item(expr, alias));
+            } while (accept(","));
+        }
+        String table = null;
+        Expr where = null;
+        if (acceptWord("FROM")) {
+            table = identifier();
+            if (peek().kind == Kind.WORD && !isReserved(peek().text)) {
+                // Table alias
+                identifier();
+            }
+            if (acceptWord("WHERE")) {
+                where = expression();
+            }
+        } else if (vendor.requiresFromClause()) {
+            throw new SQLSyntaxErrorException("FROM keyword not found where expected", "42000");
+        }
+        if (table != null && table.equalsIgnoreCase("DUAL")) {
+            table = null;
+        }
+        return new Command.Branch(items, table, where);
+    }
+
+    // -- Expressions
+
+    private Expr expression() throws SQLException {
+        Expr left = conjunction();
+        while (acceptWord("OR")) {
+            left = new Expr.Binary(Expr.Op.OR, left, conjunction());
+        }
+        return left;
+    }
+
+    private Expr conjunction() throws SQLException {
+        Expr left = negation();
+        while (acceptWord("AND")) {
+            left = new Expr.Binary(Expr.Op.AND, left, negation());
+        }
+        return left;
+    }
+
+    private Expr negation() throws SQLException {
+        return acceptWord("NOT") ? new Expr.Not(negation()) : comparison();
+    }
+
+    private Expr comparison() throws SQLException {
+        final Expr left = concatenation();
+        if (acceptWord("IS")) {
+            final boolean negated = acceptWord("NOT");
+            expectWord("NULL");
+            return new Expr.IsNull(left, negated);
+        }
+        if (acceptWord("BETWEEN")) {
+            final Expr low = concatenation();
+            expectWord("AND");
+            final Expr high = concatenation();
+            return new Expr.Binary(Expr.Op.AND, new Expr.Binary(Expr.Op.GE, left, low),
+                    new Expr.Binary(Expr.Op.LE, left, high));
+        }
+        final Token t = peek();
+        if (t.kind == Kind.SYMBOL) {
+            final Expr.Op op;
+            switch (t.text) {
+                case "=":
+                    op = Expr.Op.EQ;
+                    break;
+                case "<>":
+                case "!=":
+                    op = Expr.Op.NE;
+                    break;
+                case "<":
+                    op = Expr.Op.LT;
+                    break;
+                case "<=":
+                    op = Expr.Op.LE;
+                    break;
+                case ">":
+                    op = Expr.Op.GT;
+                    break;
+                case ">=":
+                    op = Expr.Op.GE;
+                    break;
+                default:
+                    return left;
+            }
+            pos++;
+            return new Expr.Binary(op, left, concatenation());
+        }
+        return left;
+    }
+
+    private Expr concatenation() throws SQLException {
+        Expr left = atTimeZone();
+        while (accept("||")) {
+            left = new Expr.Binary(Expr.Op.CONCAT, left, atTimeZone());
+        }
+        return left;
+    }
+
+    private Expr atTimeZone() throws SQLException {
+        Expr operand = primary();
+        while (vendor == EmulatedVendor.POSTGRES && acceptWord("AT")) {
+            expectWord("TIME");
+            expectWord("ZONE");
+            operand = new Expr.ZoneConversion(operand, primary());
+        }
+        return operand;
+    }
+
+    private Expr primary() throws SQLException {
+        final Token t = peek();
+        switch (t.kind) {
+            case STRING:
+                pos++;
+                return new Expr.Literal(t.text, Types.VARCHAR);
+            case NUMBER:
+                pos++;
+                return new Expr.Literal(Long.parseLong(t.text), Types.BIGINT);
+            case PARAM:
+                pos++;
+                return new Expr.Param(paramCount++);
+            case SYMBOL:
+                if (accept("(")) {
+                    final Expr inner = expression();
+                    expect(")");
+                    return inner;
+                }
+                if (accept("-")) {
+                    return new Expr.Literal(-Long.parseLong(expect(Kind.NUMBER).text), Types.BIGINT);
+                }
+                throw error();
+            case QUOTED:
+                pos++;
+                return columnRef(t.text);
+            case WORD:
+                return word();
+            default:
+                throw error();
+        }
+    }
+
+    private Expr word() throws SQLException {
+        if (acceptWord("NULL")) {
+            return new Expr.Literal(null, Types.NULL);
+        }
+        if (acceptWord("TIMESTAMP")) {
+            final String text = expect(Kind.STRING).text;
+            return new Expr.Literal(new TimestampValue(Expr.parseTimestamp(text)), Types.TIMESTAMP);
+        }
+        if (vendor == EmulatedVendor.ORACLE && acceptWord("SESSIONTIMEZONE")) {
+            return new Expr.SessionTimeZoneName();
+        }
+        if (acceptWord("LOCALTIMESTAMP")) {
+            if (accept("(")) {
+                expect(")");
+            }
+            return new Expr.LocalTimestamp();
+        }
+        if (acceptWord("CAST")) {
+            expect("(");
+            final Expr operand = expression();
+            expectWord("AS");
+            final String typeName = identifier();
+            final int sqlType = Table.sqlType(typeName);
+            skipParenthesized();
+            if (acceptWord("WITHOUT")) {
+                expectWord("TIME");
+                expectWord("ZONE");
+            }
+            expect(")");
+            return new Expr.Cast(operand, sqlType, typeName);
+        }
+        final String name = identifier();
+        if (vendor == EmulatedVendor.MYSQL && name.startsWith("@@")) {
+            return systemVariable(name);
+        }
+        if (accept("(")) {
+            return function(name);
+        }
+        if (accept(".")) {
+            // Qualified column: the emulator only ever reads one table
+            return columnRef(identifier());
+        }
+        return columnRef(name);
+    }
+
+    /**
+     * {@code COUNT(*)}, the zone conversion functions of Oracle and MySQL and Postgres' {@code
+     * current_setting('TimeZone')}, the name and the opening parenthesis already read.
+     */
+    private Expr function(final String name) throws SQLException {
+        final String upper = name.toUpperCase(Locale.ROOT);
+        final Expr call;
+        if (upper.equals("COUNT")) {
+            expect("*");
+            call = new Expr.CountAll();
+        } else if (vendor == EmulatedVendor.ORACLE && upper.equals("FROM_TZ")) {
+            final Expr operand = expression();
+            expect(",");
+            call = new Expr.ZoneConversion(operand, expression());
+        } else if (vendor == EmulatedVendor.ORACLE && upper.equals("SYS_EXTRACT_UTC")) {
+            call = new Expr.ZoneConversion(expression(), new Expr.Literal("UTC", Types.VARCHAR));
+        } else if (vendor == EmulatedVendor.POSTGRES && upper.equals("CURRENT_SETTING")) {
+            final String setting = expect(Kind.STRING).text;
+            if (!setting.equalsIgnoreCase("TimeZone")) {
+                throw new SQLException("unrecognized configuration parameter \"" + setting + "\"", "42704");
+            }
+            call = new Expr.SessionTimeZoneName();
+        } else if (vendor == EmulatedVendor.MYSQL && upper.equals("CONVERT_TZ")) {
+            final Expr operand = expression();
+            expect(",");
+            final Expr from = expression();
+            expect(",");
+            call = new Expr.ZoneConversion(new Expr.ZoneConversion(operand, from), expression());
+        } else {
+            throw new SQLSyntaxErrorException("Unknown function " + name, "42883");
+        }
+        expect(")");
+        return call;
+    }
+
+    /**
+     * A MySQL system variable, the first word already read; only {@code @@[session.]time_zone} is known.
+     */
+    private Expr systemVariable(final String name) throws SQLException {
+        final String variable = name.equalsIgnoreCase("@@session") && accept(".") ? identifier() : name.substring(2);
+        if (!variable.equalsIgnoreCase("time_zone")) {
+            throw new SQLSyntaxErrorException("Unknown system variable '" + variable + "'", "HY000");
+        }
+        return new Expr.SessionTimeZoneName();
+    }
+
+    private Expr columnRef(final String name) {
+        return new Expr.ColumnRef(name);
+    }
+
+    // -- Tokens
+
+    private static List<Token> tokenize(final String sql) throws SQLException {
+        final List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        final int n = sql.length();
+        while (i < n) {
+            final char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '\'') {
+                final StringBuilder sb = new StringBuilder();
+                int j = i + 1;
+                while (true) {
+                    if (j >= n) {
+                        throw new SQLSyntaxErrorException("Unterminated string literal", "42601");
+                    }
+                    if (sql.charAt(j) == '\'') {
+                        if (j + 1 < n && sql.charAt(j + 1) == '\'') {
+                            sb.append('\'');
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    sb.append(sql.charAt(j++));
+                }
+                tokens.add(new Token(Kind.STRING, sb.toString(), i, j + 1));
+                i = j + 1;
+            } else if (c == '"' || c == '`') {
+                final int close = sql.indexOf(c, i + 1);
+                if (close < 0) {
+                    throw new SQLSyntaxErrorException("Unterminated quoted identifier", "42601");
+                }
+                tokens.add(new Token(Kind.QUOTED, sql.substring(i + 1, close), i, close + 1));
+                i = close + 1;
+            } else if (Character.isDigit(c)) {
+                int j = i;
+                while (j < n && Character.isDigit(sql.charAt(j))) {
+                    j++;
+                }
+                tokens.add(new Token(Kind.NUMBER, sql.substring(i, j), i, j));
+                i = j;
+            } else if (Character.isLetter(c) || c == '_' || c == '@') {
+                int j = i;
+                while (j < n && (Character.isLetterOrDigit(sql.charAt(j)) || sql.charAt(j) == '_'
+                        || sql.charAt(j) == '$' || sql.charAt(j) == '@')) {
+                    j++;
+                }
+                tokens.add(new Token(Kind.WORD, sql.substring(i, j), i, j));
+                i = j;
+            } else if (c == '?') {
+                tokens.add(new Token(Kind.PARAM, "?", i, i + 1));
+                i++;
+            } else {
+                final String two = i + 1 < n ? sql.substring(i, i + 2) : "";
+                if (two.equals("<=") || two.equals(">=") || two.equals("<>") || two.equals("!=")
+                        || two.equals("||")) {
+                    tokens.add(new Token(Kind.SYMBOL, two, i, i + 2));
+                    i += 2;
+                } else {
+                    tokens.add(new Token(Kind.SYMBOL, String.valueOf(c), i, i + 1));
+                    i++;
+                }
+            }
+        }
+        tokens.add(new Token(Kind.END, "", n, n));
+        return tokens;
+    }
+
+    private static boolean isReserved(final String word) {
+        switch (word.toUpperCase(Locale.ROOT)) {
+            case "FROM":
+            case "WHERE":
+            case "UNION":
+            case "ORDER":
+            case "LIMIT":
+            case "FETCH":
+            case "AND":
+            case "OR":
+            case "AS":
+            case "AT":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private boolean peekSymbol(final String symbol) {
+        final Token t = peek();
+        return t.kind == Kind.SYMBOL && t.text.equals(symbol);
+    }
+
+    private boolean accept(final String symbol) {
+        if (peekSymbol(symbol)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final String symbol) throws SQLException {
+        if (!accept(symbol)) {
+            throw error();
+        }
+    }
+
+    private Token expect(final Kind kind) throws SQLException {
+        final Token t = peek();
+        if (t.kind != kind) {
+            throw error();
+        }
+        pos++;
+        return t;
+    }
+
+    private boolean acceptWord(final String word) {
+        final Token t = peek();
+        if (t.kind == Kind.WORD && t.text.equalsIgnoreCase(word)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean expectWord(final String word) throws SQLException {
+        if (!acceptWord(word)) {
+            throw error();
+        }
+        return true;
+    }
+
+    private String identifier() throws SQLException {
+        final Token t = peek();
+        if (t.kind != Kind.WORD && t.kind != Kind.QUOTED) {
+            throw error();
+        }
+        pos++;
+        return t.text;
+    }
+
+    /**
+     * Skips a parenthesized type argument list such as {@code (30 CHAR)}, if present.
+     */
+    private void skipParenthesized() throws SQLException {
+        if (!accept("(")) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            final Token t = peek();
+            if (t.kind == Kind.END) {
+                throw error();
+            }
+            if (t.kind == Kind.SYMBOL && t.text.equals("(")) {
+                depth++;
+            } else if (t.kind == Kind.SYMBOL && t.text.equals(")")) {
+                depth--;
+            }
+            pos++;
+        }
+    }
+
+    private SQLSyntaxErrorException error() {
+        final Token t = peek();
+        return new SQLSyntaxErrorException("Syntax error at " + (t.kind == Kind.END ? "end of statement" :
+                "'" + t.text + "' (position " + (t.start + 1) + ")") + ": " + sql, "42601");
+    }
+}
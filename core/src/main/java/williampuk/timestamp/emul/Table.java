@@ -0,0 +1,130 @@
+package williampuk.timestamp.emul;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A table of an {@link EmulatedDatabase}. Rows are appended under the table's lock and read from a snapshot, so a
+ * query never sees a half-written row and never blocks writers while it is being read.
+ */
+final class Table {
+
+    static final class Column {
+        final String name;
+        final int sqlType;
+        final boolean notNull;
+        // MySQL TIMESTAMP: stored in UTC, converted from and to the session time zone
+        final boolean zoneConverted;
+        final Expr defaultValue;
+
+        Column(final String name, final int sqlType, final boolean notNull, final boolean zoneConverted,
+               final Expr defaultValue) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.notNull = notNull;
+            this.zoneConverted = zoneConverted;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    private final String name;
+    private final Column[] columns;
+    private final List<String> indexes = new ArrayList<>();
+    private Object[][] rows = new Object[16][];
+    private int rowCount;
+
+    Table(final String name, final Column[] columns) {
+        this.name = name;
+        this.columns = columns;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Column[] getColumns() {
+        return columns;
+    }
+
+    int columnIndex(final String column) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].name.equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        throw new SQLSyntaxErrorException("Unknown column '" + column + "' in table " + name, "42703");
+    }
+
+    synchronized void addIndex(final String index) {
+        indexes.add(index.toLowerCase(Locale.ROOT));
+    }
+
+    synchronized boolean hasIndex(final String index) {
+        return indexes.contains(index.toLowerCase(Locale.ROOT));
+    }
+
+    synchronized void insert(final Object[] row) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            if (row[i] == null && columns[i].notNull) {
+                throw new SQLIntegrityConstraintViolationException(
+                        "Column '" + columns[i].name + "' cannot be null", "23502");
+            }
+        }
+        if (rowCount == rows.length) {
+            final Object[][] grown = new Object[rows.length * 2][];
+            System.arraycopy(rows, 0, grown, 0, rowCount);
+            rows = grown;
+        }
+        rows[rowCount++] = row;
+    }
+
+    /**
+     * @return the rows present right now; later inserts are not visible through it
+     */
+    synchronized Snapshot snapshot() {
+        return new Snapshot(rows, rowCount);
+    }
+
+    static final class Snapshot {
+        final Object[][] rows;
+        final int size;
+
+        private Snapshot(final Object[][] rows, final int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+    }
+
+    static int sqlType(final String typeName) throws SQLException {
+        switch (typeName.toUpperCase(Locale.ROOT)) {
+            case "TIMESTAMP":
+            case "DATETIME":
+                return Types.TIMESTAMP;
+            case "VARCHAR":
+            case "VARCHAR2":
+            case "NVARCHAR":
+            case "NVARCHAR2":
+            case "CHAR":
+            case "NCHAR":
+            case "TEXT":
+            case "CLOB":
+                return Types.VARCHAR;
+            case "NUMBER":
+            case "NUMERIC":
+            case "DECIMAL":
+            case "INT":
+            case "INTEGER":
+            case "BIGINT":
+            case "SMALLINT":
+            case "SIGNED":
+                return Types.BIGINT;
+            default:
+                throw new SQLSyntaxErrorException("Unsupported type: " + typeName, "42704");
+        }
+    }
+}
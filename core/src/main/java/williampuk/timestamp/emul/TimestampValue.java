@@ -0,0 +1,33 @@
+package williampuk.timestamp.emul;
+
+/**
+ * A {@code TIMESTAMP} (without time zone) value inside the emulator: a wall-clock time in local micros.
+ */
+final class TimestampValue implements Comparable<TimestampValue> {
+
+    final long localMicros;
+
+    TimestampValue(final long localMicros) {
+        this.localMicros = localMicros;
+    }
+
+    @Override
+    public int compareTo(final TimestampValue o) {
+        return Long.compare(localMicros, o.localMicros);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof TimestampValue && ((TimestampValue) o).localMicros == localMicros;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(localMicros);
+    }
+
+    @Override
+    public String toString() {
+        return EmulatedVendor.POSTGRES.timestampText(localMicros);
+    }
+}
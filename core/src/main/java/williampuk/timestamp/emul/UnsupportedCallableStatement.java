@@ -0,0 +1,584 @@
+package williampuk.timestamp.emul;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Calendar;
+
+/**
+ * Base of the emulator's {@link CallableStatement}; every method the emulator does not model throws
+ * {@link SQLFeatureNotSupportedException}.
+ */
+abstract class UnsupportedCallableStatement extends EmulatedPreparedStatement implements CallableStatement {
+
+    UnsupportedCallableStatement(final EmulatedConnection connection, final String sql) throws SQLException {
+        super(connection, sql);
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
+        throw unsupported("registerOutParameter");
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
+        throw unsupported("registerOutParameter");
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        throw unsupported("wasNull");
+    }
+
+    @Override
+    public String getString(int parameterIndex) throws SQLException {
+        throw unsupported("getString");
+    }
+
+    @Override
+    public boolean getBoolean(int parameterIndex) throws SQLException {
+        throw unsupported("getBoolean");
+    }
+
+    @Override
+    public byte getByte(int parameterIndex) throws SQLException {
+        throw unsupported("getByte");
+    }
+
+    @Override
+    public short getShort(int parameterIndex) throws SQLException {
+        throw unsupported("getShort");
+    }
+
+    @Override
+    public int getInt(int parameterIndex) throws SQLException {
+        throw unsupported("getInt");
+    }
+
+    @Override
+    public long getLong(int parameterIndex) throws SQLException {
+        throw unsupported("getLong");
+    }
+
+    @Override
+    public float getFloat(int parameterIndex) throws SQLException {
+        throw unsupported("getFloat");
+    }
+
+    @Override
+    public double getDouble(int parameterIndex) throws SQLException {
+        throw unsupported("getDouble");
+    }
+
+    @Deprecated
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+        throw unsupported("getBigDecimal");
+    }
+
+    @Override
+    public byte[] getBytes(int parameterIndex) throws SQLException {
+        throw unsupported("getBytes");
+    }
+
+    @Override
+    public java.sql.Date getDate(int parameterIndex) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public java.sql.Time getTime(int parameterIndex) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public java.sql.Timestamp getTimestamp(int parameterIndex) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public Object getObject(int parameterIndex) throws SQLException {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+        throw unsupported("getBigDecimal");
+    }
+
+    @Override
+    public Object getObject(int parameterIndex, java.util.Map<String,Class<?>> map) throws SQLException {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public Ref getRef(int parameterIndex) throws SQLException {
+        throw unsupported("getRef");
+    }
+
+    @Override
+    public Blob getBlob(int parameterIndex) throws SQLException {
+        throw unsupported("getBlob");
+    }
+
+    @Override
+    public Clob getClob(int parameterIndex) throws SQLException {
+        throw unsupported("getClob");
+    }
+
+    @Override
+    public Array getArray(int parameterIndex) throws SQLException {
+        throw unsupported("getArray");
+    }
+
+    @Override
+    public java.sql.Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public java.sql.Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public java.sql.Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        throw unsupported("registerOutParameter");
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
+        throw unsupported("registerOutParameter");
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
+        throw unsupported("registerOutParameter");
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
+        throw unsupported("registerOutParameter");
+    }
+
+    @Override
+    public java.net.URL getURL(int parameterIndex) throws SQLException {
+        throw unsupported("getURL");
+    }
+
+    @Override
+    public void setURL(String parameterName, java.net.URL val) throws SQLException {
+        throw unsupported("setURL");
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType) throws SQLException {
+        throw unsupported("setNull");
+    }
+
+    @Override
+    public void setBoolean(String parameterName, boolean x) throws SQLException {
+        throw unsupported("setBoolean");
+    }
+
+    @Override
+    public void setByte(String parameterName, byte x) throws SQLException {
+        throw unsupported("setByte");
+    }
+
+    @Override
+    public void setShort(String parameterName, short x) throws SQLException {
+        throw unsupported("setShort");
+    }
+
+    @Override
+    public void setInt(String parameterName, int x) throws SQLException {
+        throw unsupported("setInt");
+    }
+
+    @Override
+    public void setLong(String parameterName, long x) throws SQLException {
+        throw unsupported("setLong");
+    }
+
+    @Override
+    public void setFloat(String parameterName, float x) throws SQLException {
+        throw unsupported("setFloat");
+    }
+
+    @Override
+    public void setDouble(String parameterName, double x) throws SQLException {
+        throw unsupported("setDouble");
+    }
+
+    @Override
+    public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
+        throw unsupported("setBigDecimal");
+    }
+
+    @Override
+    public void setString(String parameterName, String x) throws SQLException {
+        throw unsupported("setString");
+    }
+
+    @Override
+    public void setBytes(String parameterName, byte[] x) throws SQLException {
+        throw unsupported("setBytes");
+    }
+
+    @Override
+    public void setDate(String parameterName, java.sql.Date x) throws SQLException {
+        throw unsupported("setDate");
+    }
+
+    @Override
+    public void setTime(String parameterName, java.sql.Time x) throws SQLException {
+        throw unsupported("setTime");
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, java.sql.Timestamp x) throws SQLException {
+        throw unsupported("setTimestamp");
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, java.io.InputStream x, int length) throws SQLException {
+        throw unsupported("setAsciiStream");
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, java.io.InputStream x, int length) throws SQLException {
+        throw unsupported("setBinaryStream");
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException {
+        throw unsupported("setObject");
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
+        throw unsupported("setObject");
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x) throws SQLException {
+        throw unsupported("setObject");
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, java.io.Reader reader, int length) throws SQLException {
+        throw unsupported("setCharacterStream");
+    }
+
+    @Override
+    public void setDate(String parameterName, java.sql.Date x, Calendar cal) throws SQLException {
+        throw unsupported("setDate");
+    }
+
+    @Override
+    public void setTime(String parameterName, java.sql.Time x, Calendar cal) throws SQLException {
+        throw unsupported("setTime");
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, java.sql.Timestamp x, Calendar cal) throws SQLException {
+        throw unsupported("setTimestamp");
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
+        throw unsupported("setNull");
+    }
+
+    @Override
+    public String getString(String parameterName) throws SQLException {
+        throw unsupported("getString");
+    }
+
+    @Override
+    public boolean getBoolean(String parameterName) throws SQLException {
+        throw unsupported("getBoolean");
+    }
+
+    @Override
+    public byte getByte(String parameterName) throws SQLException {
+        throw unsupported("getByte");
+    }
+
+    @Override
+    public short getShort(String parameterName) throws SQLException {
+        throw unsupported("getShort");
+    }
+
+    @Override
+    public int getInt(String parameterName) throws SQLException {
+        throw unsupported("getInt");
+    }
+
+    @Override
+    public long getLong(String parameterName) throws SQLException {
+        throw unsupported("getLong");
+    }
+
+    @Override
+    public float getFloat(String parameterName) throws SQLException {
+        throw unsupported("getFloat");
+    }
+
+    @Override
+    public double getDouble(String parameterName) throws SQLException {
+        throw unsupported("getDouble");
+    }
+
+    @Override
+    public byte[] getBytes(String parameterName) throws SQLException {
+        throw unsupported("getBytes");
+    }
+
+    @Override
+    public java.sql.Date getDate(String parameterName) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public java.sql.Time getTime(String parameterName) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public java.sql.Timestamp getTimestamp(String parameterName) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public Object getObject(String parameterName) throws SQLException {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+        throw unsupported("getBigDecimal");
+    }
+
+    @Override
+    public Object getObject(String parameterName, java.util.Map<String,Class<?>> map) throws SQLException {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public Ref getRef(String parameterName) throws SQLException {
+        throw unsupported("getRef");
+    }
+
+    @Override
+    public Blob getBlob(String parameterName) throws SQLException {
+        throw unsupported("getBlob");
+    }
+
+    @Override
+    public Clob getClob(String parameterName) throws SQLException {
+        throw unsupported("getClob");
+    }
+
+    @Override
+    public Array getArray(String parameterName) throws SQLException {
+        throw unsupported("getArray");
+    }
+
+    @Override
+    public java.sql.Date getDate(String parameterName, Calendar cal) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public java.sql.Time getTime(String parameterName, Calendar cal) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public java.sql.Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public java.net.URL getURL(String parameterName) throws SQLException {
+        throw unsupported("getURL");
+    }
+
+    @Override
+    public RowId getRowId(int parameterIndex) throws SQLException {
+        throw unsupported("getRowId");
+    }
+
+    @Override
+    public RowId getRowId(String parameterName) throws SQLException {
+        throw unsupported("getRowId");
+    }
+
+    @Override
+    public void setRowId(String parameterName, RowId x) throws SQLException {
+        throw unsupported("setRowId");
+    }
+
+    @Override
+    public void setNString(String parameterName, String value) throws SQLException {
+        throw unsupported("setNString");
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException {
+        throw unsupported("setNCharacterStream");
+    }
+
+    @Override
+    public void setNClob(String parameterName, NClob value) throws SQLException {
+        throw unsupported("setNClob");
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader, long length) throws SQLException {
+        throw unsupported("setClob");
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException {
+        throw unsupported("setBlob");
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
+        throw unsupported("setNClob");
+    }
+
+    @Override
+    public NClob getNClob(int parameterIndex) throws SQLException {
+        throw unsupported("getNClob");
+    }
+
+    @Override
+    public NClob getNClob(String parameterName) throws SQLException {
+        throw unsupported("getNClob");
+    }
+
+    @Override
+    public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException {
+        throw unsupported("setSQLXML");
+    }
+
+    @Override
+    public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+        throw unsupported("getSQLXML");
+    }
+
+    @Override
+    public SQLXML getSQLXML(String parameterName) throws SQLException {
+        throw unsupported("getSQLXML");
+    }
+
+    @Override
+    public String getNString(int parameterIndex) throws SQLException {
+        throw unsupported("getNString");
+    }
+
+    @Override
+    public String getNString(String parameterName) throws SQLException {
+        throw unsupported("getNString");
+    }
+
+    @Override
+    public java.io.Reader getNCharacterStream(int parameterIndex) throws SQLException {
+        throw unsupported("getNCharacterStream");
+    }
+
+    @Override
+    public java.io.Reader getNCharacterStream(String parameterName) throws SQLException {
+        throw unsupported("getNCharacterStream");
+    }
+
+    @Override
+    public java.io.Reader getCharacterStream(int parameterIndex) throws SQLException {
+        throw unsupported("getCharacterStream");
+    }
+
+    @Override
+    public java.io.Reader getCharacterStream(String parameterName) throws SQLException {
+        throw unsupported("getCharacterStream");
+    }
+
+    @Override
+    public void setBlob(String parameterName, Blob x) throws SQLException {
+        throw unsupported("setBlob");
+    }
+
+    @Override
+    public void setClob(String parameterName, Clob x) throws SQLException {
+        throw unsupported("setClob");
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, java.io.InputStream x, long length) throws SQLException {
+        throw unsupported("setAsciiStream");
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, java.io.InputStream x, long length) throws SQLException {
+        throw unsupported("setBinaryStream");
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, java.io.Reader reader, long length) throws SQLException {
+        throw unsupported("setCharacterStream");
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, java.io.InputStream x) throws SQLException {
+        throw unsupported("setAsciiStream");
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, java.io.InputStream x) throws SQLException {
+        throw unsupported("setBinaryStream");
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, java.io.Reader reader) throws SQLException {
+        throw unsupported("setCharacterStream");
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value) throws SQLException {
+        throw unsupported("setNCharacterStream");
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader) throws SQLException {
+        throw unsupported("setClob");
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream) throws SQLException {
+        throw unsupported("setBlob");
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader) throws SQLException {
+        throw unsupported("setNClob");
+    }
+
+    @Override
+    public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+        throw unsupported("getObject");
+    }
+}
@@ -0,0 +1,224 @@
+package williampuk.timestamp.emul;
+
+import java.sql.*;
+
+/**
+ * Base of the emulator's {@link Statement}; every method the emulator does not model throws
+ * {@link SQLFeatureNotSupportedException}.
+ */
+abstract class UnsupportedStatement implements Statement {
+
+    protected static SQLFeatureNotSupportedException unsupported(final String method) {
+        return new SQLFeatureNotSupportedException(method + " is not supported by the emulator");
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        throw unsupported("executeQuery");
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public void close() throws SQLException {
+        throw unsupported("close");
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        throw unsupported("getMaxFieldSize");
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        throw unsupported("setMaxFieldSize");
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        throw unsupported("getMaxRows");
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        throw unsupported("setMaxRows");
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        throw unsupported("setEscapeProcessing");
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        throw unsupported("getQueryTimeout");
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        throw unsupported("setQueryTimeout");
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        throw unsupported("cancel");
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        throw unsupported("getWarnings");
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        throw unsupported("clearWarnings");
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        throw unsupported("setCursorName");
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        throw unsupported("getResultSet");
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        throw unsupported("getUpdateCount");
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        throw unsupported("getMoreResults");
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        throw unsupported("setFetchDirection");
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        throw unsupported("getFetchDirection");
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        throw unsupported("setFetchSize");
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        throw unsupported("getFetchSize");
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        throw unsupported("getResultSetConcurrency");
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        throw unsupported("getResultSetType");
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        throw unsupported("addBatch");
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        throw unsupported("clearBatch");
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        throw unsupported("executeBatch");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        throw unsupported("getConnection");
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        throw unsupported("getMoreResults");
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        throw unsupported("getGeneratedKeys");
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        throw unsupported("executeUpdate");
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        throw unsupported("execute");
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        throw unsupported("getResultSetHoldability");
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        throw unsupported("isClosed");
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        throw unsupported("setPoolable");
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        throw unsupported("isPoolable");
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        throw unsupported("closeOnCompletion");
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        throw unsupported("isCloseOnCompletion");
+    }
+}
@@ -0,0 +1,371 @@
+package williampuk.timestamp.emul;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * How a vendor's driver and server exchange {@code TIMESTAMP} values, as far as the emulator models it: Oracle sends
+ * its 11-byte internal {@code TIMESTAMP} format, MySQL (text protocol) and Postgres (text format) send formatted
+ * text, and Postgres in binary format sends microseconds since 2000-01-01 as a big-endian int64.
+ * <p>
+ * The client side methods ({@code bind*}/{@code read*}) model what the vendor's driver does for the corresponding JDBC
+ * call, including its use of {@link Calendar}, so that the {@code Emulated*} benchmarks pay costs of the same kind.
+ * They are a model, not the driver's code: a benchmark against the emulator says nothing precise about the real
+ * driver. The server side methods convert between the wire format and local micros (see {@link TimestampCodec}).
+ */
+public enum WireFormat {
+
+    ORACLE {
+        @Override
+        public byte[] bindTimestamp(final Timestamp ts, final Calendar cal) {
+            final Calendar c = cal == null ? new GregorianCalendar() : cal;
+            c.setTime(ts);
+            return oracleBytes(c.get(Calendar.YEAR), c.get(Calendar.MONTH) + 1, c.get(Calendar.DAY_OF_MONTH),
+                    c.get(Calendar.HOUR_OF_DAY), c.get(Calendar.MINUTE), c.get(Calendar.SECOND), ts.getNanos());
+        }
+
+        @Override
+        public byte[] bindLocalDateTime(final LocalDateTime ldt) {
+            return oracleBytes(ldt.getYear(), ldt.getMonthValue(), ldt.getDayOfMonth(), ldt.getHour(),
+                    ldt.getMinute(), ldt.getSecond(), ldt.getNano());
+        }
+
+        @Override
+        public String readTimestampString(final byte[] wire) {
+            final int[] f = new int[7];
+            decodeFields(wire, f);
+            // Like Timestamp.toString(): at least one fraction digit
+            final byte[] buf = new byte[29];
+            int pos = appendDateTime(buf, f);
+            buf[pos++] = '.';
+            pos = appendFraction(buf, pos, f[6], 1);
+            return new String(buf, 0, pos, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] serverEncodeTimestamp(final long localMicros) {
+            final int[] f = new int[7];
+            TimestampCodec.toFields(localMicros, f);
+            return oracleBytes(f[0], f[1], f[2], f[3], f[4], f[5], f[6] * 1000);
+        }
+
+        @Override
+        void decodeFields(final byte[] wire, final int[] fields) {
+            fields[0] = ((wire[0] & 0xFF) - 100) * 100 + (wire[1] & 0xFF) - 100;
+            fields[1] = wire[2];
+            fields[2] = wire[3];
+            fields[3] = wire[4] - 1;
+            fields[4] = wire[5] - 1;
+            fields[5] = wire[6] - 1;
+            fields[6] = wire.length < 11 ? 0 : (wire[7] & 0xFF) << 24 | (wire[8] & 0xFF) << 16
+                    | (wire[9] & 0xFF) << 8 | wire[10] & 0xFF;
+        }
+    },
+
+    MYSQL {
+        @Override
+        public byte[] bindTimestamp(final Timestamp ts, final Calendar cal) {
+            // Connector/J inlines a quoted literal formatted by a new SimpleDateFormat
+            final SimpleDateFormat format = new SimpleDateFormat("''yyyy-MM-dd HH:mm:ss");
+            format.setTimeZone(cal == null ? TimeZone.getDefault() : cal.getTimeZone());
+            final StringBuilder sb = new StringBuilder(format.format(ts));
+            if (ts.getNanos() > 0) {
+                sb.append('.').append(String.format("%06d", ts.getNanos() / 1000));
+            }
+            return sb.append('\'').toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] bindLocalDateTime(final LocalDateTime ldt) {
+            final int[] f = {ldt.getYear(), ldt.getMonthValue(), ldt.getDayOfMonth(), ldt.getHour(),
+                    ldt.getMinute(), ldt.getSecond(), ldt.getNano()};
+            final byte[] buf = new byte[28];
+            buf[0] = '\'';
+            int pos = appendDateTime(buf, 1, f);
+            if (f[6] > 0) {
+                buf[pos++] = '.';
+                pos = appendPadded(buf, pos, f[6] / 1000, 6);
+            }
+            buf[pos++] = '\'';
+            return Arrays.copyOf(buf, pos);
+        }
+
+        @Override
+        public String readTimestampString(final byte[] wire) {
+            return new String(wire, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] serverEncodeTimestamp(final long localMicros) {
+            return textBytes(localMicros, 6);
+        }
+    },
+
+    POSTGRES {
+        @Override
+        public byte[] bindTimestamp(final Timestamp ts, final Calendar cal) {
+            // pgjdbc sends the wall-clock time in the calendar's zone along with its offset
+            final Calendar c = cal == null ? new GregorianCalendar() : cal;
+            c.setTime(ts);
+            final StringBuilder sb = new StringBuilder(32);
+            TimestampCodec.appendPadded(sb, c.get(Calendar.YEAR), 4).append('-');
+            TimestampCodec.appendPadded(sb, c.get(Calendar.MONTH) + 1, 2).append('-');
+            TimestampCodec.appendPadded(sb, c.get(Calendar.DAY_OF_MONTH), 2).append(' ');
+            TimestampCodec.appendPadded(sb, c.get(Calendar.HOUR_OF_DAY), 2).append(':');
+            TimestampCodec.appendPadded(sb, c.get(Calendar.MINUTE), 2).append(':');
+            TimestampCodec.appendPadded(sb, c.get(Calendar.SECOND), 2).append('.');
+            TimestampCodec.appendPadded(sb, ts.getNanos() / 1000, 6);
+            final int offsetMinutes = (c.get(Calendar.ZONE_OFFSET) + c.get(Calendar.DST_OFFSET)) / 60_000;
+            sb.append(offsetMinutes < 0 ? '-' : '+');
+            TimestampCodec.appendPadded(sb, Math.abs(offsetMinutes) / 60, 2);
+            if (offsetMinutes % 60 != 0) {
+                TimestampCodec.appendPadded(sb.append(':'), Math.abs(offsetMinutes) % 60, 2);
+            }
+            return sb.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] bindLocalDateTime(final LocalDateTime ldt) {
+            return textBytes(TimestampCodec.localMicros(ldt), 6);
+        }
+
+        @Override
+        public String readTimestampString(final byte[] wire) {
+            return new String(wire, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] serverEncodeTimestamp(final long localMicros) {
+            return textBytes(localMicros, 0);
+        }
+    },
+
+    /**
+     * The binary format pgjdbc asks for once a statement is server-prepared, see {@link EmulatedConnection}. Only
+     * result values are binary; pgjdbc still binds a {@code Timestamp} as text, and so does the emulator.
+     */
+    POSTGRES_BINARY {
+        @Override
+        public byte[] bindTimestamp(final Timestamp ts, final Calendar cal) {
+            return POSTGRES.bindTimestamp(ts, cal);
+        }
+
+        @Override
+        public byte[] bindLocalDateTime(final LocalDateTime ldt) {
+            return POSTGRES.bindLocalDateTime(ldt);
+        }
+
+        /**
+         * pgjdbc formats a binary value through a {@code Timestamp}; the emulator formats the fields straight away.
+         */
+        @Override
+        public String readTimestampString(final byte[] wire) {
+            return new String(textBytes(serverDecodeTimestamp(wire), 0), StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] serverEncodeTimestamp(final long localMicros) {
+            final long value = localMicros - POSTGRES_EPOCH_MICROS;
+            final byte[] b = new byte[8];
+            for (int i = 7; i >= 0; i--) {
+                b[i] = (byte) (value >>> (7 - i) * 8);
+            }
+            return b;
+        }
+
+        @Override
+        public long serverDecodeTimestamp(final byte[] wire) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | wire[i] & 0xFF;
+            }
+            return value + POSTGRES_EPOCH_MICROS;
+        }
+
+        @Override
+        void decodeFields(final byte[] wire, final int[] fields) {
+            TimestampCodec.toFields(serverDecodeTimestamp(wire), fields);
+            fields[6] *= 1000;
+        }
+    };
+
+    /**
+     * 2000-01-01 in local micros, the epoch of Postgres' binary {@code TIMESTAMP} format.
+     */
+    static final long POSTGRES_EPOCH_MICROS = TimestampCodec.localMicros(2000, 1, 1, 0, 0, 0, 0);
+
+    /**
+     * Driver side of {@code setTimestamp}: the bytes sent for {@code ts} as a wall-clock time of {@code cal}'s zone,
+     * or of the JVM default zone if {@code cal} is {@code null}.
+     */
+    public abstract byte[] bindTimestamp(Timestamp ts, Calendar cal);
+
+    /**
+     * Driver side of {@code setObject} with a {@link LocalDateTime}.
+     */
+    public abstract byte[] bindLocalDateTime(LocalDateTime ldt);
+
+    public byte[] bindString(final String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Driver side of {@code getTimestamp}: interprets the wall-clock time sent by the server in {@code cal}'s zone,
+     * or in the JVM default zone if {@code cal} is {@code null}.
+     */
+    public Timestamp readTimestamp(final byte[] wire, final Calendar cal) {
+        final int[] f = new int[7];
+        decodeFields(wire, f);
+        final Calendar c = cal == null ? new GregorianCalendar() : cal;
+        c.clear();
+        c.set(f[0], f[1] - 1, f[2], f[3], f[4], f[5]);
+        final Timestamp ts = new Timestamp(c.getTimeInMillis());
+        ts.setNanos(f[6]);
+        return ts;
+    }
+
+    /**
+     * Driver side of {@code getObject} with {@code LocalDateTime.class}.
+     */
+    public LocalDateTime readLocalDateTime(final byte[] wire) {
+        final int[] f = new int[7];
+        decodeFields(wire, f);
+        return LocalDateTime.of(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+    }
+
+    /**
+     * Driver side of {@code getString} on a {@code TIMESTAMP} column.
+     */
+    public abstract String readTimestampString(byte[] wire);
+
+    public String readString(final byte[] wire) {
+        return new String(wire, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Server side of a bound {@code TIMESTAMP}: the wall-clock time it stands for, in local micros. A zone offset
+     * sent along, as pgjdbc does, is dropped like the server does for a {@code TIMESTAMP WITHOUT TIME ZONE}.
+     */
+    public long serverDecodeTimestamp(final byte[] wire) {
+        final int[] f = new int[7];
+        decodeFields(wire, f);
+        return TimestampCodec.localMicros(f[0], f[1], f[2], f[3], f[4], f[5], f[6] / 1000);
+    }
+
+    /**
+     * Server side of a {@code TIMESTAMP} value sent to the client.
+     */
+    public abstract byte[] serverEncodeTimestamp(long localMicros);
+
+    /**
+     * Decodes year, month, day, hour, minute, second and nanosecond. The text form is {@code [']yyyy-MM-dd
+     * HH:mm:ss[.f...][+hh[:mm]][']}.
+     */
+    void decodeFields(final byte[] wire, final int[] fields) {
+        int pos = wire[0] == '\'' ? 1 : 0;
+        fields[0] = parseInt(wire, pos, pos += 4);
+        fields[1] = parseInt(wire, pos + 1, pos += 3);
+        fields[2] = parseInt(wire, pos + 1, pos += 3);
+        fields[3] = parseInt(wire, pos + 1, pos += 3);
+        fields[4] = parseInt(wire, pos + 1, pos += 3);
+        fields[5] = parseInt(wire, pos + 1, pos += 3);
+        int nanos = 0;
+        if (pos < wire.length && wire[pos] == '.') {
+            int scale = 100_000_000;
+            while (++pos < wire.length && wire[pos] >= '0' && wire[pos] <= '9') {
+                nanos += (wire[pos] - '0') * scale;
+                scale /= 10;
+            }
+        }
+        fields[6] = nanos;
+    }
+
+    private static int parseInt(final byte[] wire, final int from, final int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + wire[i] - '0';
+        }
+        return value;
+    }
+
+    static byte[] oracleBytes(final int year, final int month, final int day, final int hour, final int minute,
+                              final int second, final int nanos) {
+        final byte[] b = new byte[nanos == 0 ? 7 : 11];
+        b[0] = (byte) (year / 100 + 100);
+        b[1] = (byte) (year % 100 + 100);
+        b[2] = (byte) month;
+        b[3] = (byte) day;
+        b[4] = (byte) (hour + 1);
+        b[5] = (byte) (minute + 1);
+        b[6] = (byte) (second + 1);
+        if (nanos != 0) {
+            b[7] = (byte) (nanos >>> 24);
+            b[8] = (byte) (nanos >>> 16);
+            b[9] = (byte) (nanos >>> 8);
+            b[10] = (byte) nanos;
+        }
+        return b;
+    }
+
+    /**
+     * @param minFractionDigits 0 to drop a zero fraction and trailing zeros (Postgres), 6 for a fixed microsecond
+     *                          fraction whenever it is non-zero (MySQL)
+     */
+    static byte[] textBytes(final long localMicros, final int minFractionDigits) {
+        final int[] f = new int[7];
+        TimestampCodec.toFields(localMicros, f);
+        final byte[] buf = new byte[29];
+        int pos = appendDateTime(buf, f);
+        if (f[6] != 0) {
+            buf[pos++] = '.';
+            pos = minFractionDigits == 6 ? appendPadded(buf, pos, f[6], 6) :
+                    appendFraction(buf, pos, f[6] * 1000, 1);
+        }
+        return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+    }
+
+    private static int appendDateTime(final byte[] buf, final int[] f) {
+        return appendDateTime(buf, 0, f);
+    }
+
+    private static int appendDateTime(final byte[] buf, int pos, final int[] f) {
+        pos = appendPadded(buf, pos, f[0], 4);
+        buf[pos++] = '-';
+        pos = appendPadded(buf, pos, f[1], 2);
+        buf[pos++] = '-';
+        pos = appendPadded(buf, pos, f[2], 2);
+        buf[pos++] = ' ';
+        pos = appendPadded(buf, pos, f[3], 2);
+        buf[pos++] = ':';
+        pos = appendPadded(buf, pos, f[4], 2);
+        buf[pos++] = ':';
+        return appendPadded(buf, pos, f[5], 2);
+    }
+
+    private static int appendPadded(final byte[] buf, final int pos, int value, final int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    /**
+     * Appends the nanoseconds as a fraction without trailing zeros, keeping at least {@code minDigits} digits.
+     */
+    private static int appendFraction(final byte[] buf, final int pos, final int nanos, final int minDigits) {
+        int end = appendPadded(buf, pos, nanos, 9);
+        while (end > pos + minDigits && buf[end - 1] == '0') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,92 @@
+package williampuk.timestamp.probe;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A wall-clock time near one offset transition of a zone, and the instant a lenient {@link java.util.Calendar} of
+ * that zone resolves it to.
+ */
+public final class DstCase {
+
+    /**
+     * Where the wall-clock time lies relative to the gap or overlap of the transition.
+     */
+    public enum Position {
+        /** One second before the gap or overlap starts. */
+        BEFORE,
+        /** The first wall-clock time of the gap or overlap. */
+        START,
+        /** Half way through the gap or overlap. */
+        INSIDE,
+        /** The first wall-clock time after the gap or overlap. */
+        AFTER
+    }
+
+    private final ZoneId zone;
+    private final ZoneOffsetTransition transition;
+    private final Position position;
+    private final long localMicros;
+    private final long expectedEpochMicros;
+
+    private DstCase(final ZoneId zone, final ZoneOffsetTransition transition, final Position position,
+                    final long localMicros) {
+        this.zone = zone;
+        this.transition = transition;
+        this.position = position;
+        this.localMicros = localMicros;
+        this.expectedEpochMicros = TimestampCodec.of(zone).toEpochMicros(localMicros);
+    }
+
+    /**
+     * @return the cases of every {@link Position} around one transition
+     */
+    public static List<DstCase> around(final ZoneId zone, final ZoneOffsetTransition transition) {
+        final long before = TimestampCodec.localMicros(transition.getDateTimeBefore());
+        final long after = TimestampCodec.localMicros(transition.getDateTimeAfter());
+        // A gap is [before, after) in wall-clock time, an overlap is [after, before)
+        final long start = Math.min(before, after);
+        final long end = Math.max(before, after);
+        final List<DstCase> cases = new ArrayList<>(Position.values().length);
+        cases.add(new DstCase(zone, transition, Position.BEFORE, start - TimestampCodec.MICROS_PER_SECOND));
+        cases.add(new DstCase(zone, transition, Position.START, start));
+        cases.add(new DstCase(zone, transition, Position.INSIDE, start + (end - start) / 2));
+        cases.add(new DstCase(zone, transition, Position.AFTER, end));
+        return cases;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public ZoneOffsetTransition getTransition() {
+        return transition;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public long getLocalMicros() {
+        return localMicros;
+    }
+
+    public LocalDateTime getLocalDateTime() {
+        return TimestampCodec.toLocalDateTime(localMicros);
+    }
+
+    public long getExpectedEpochMicros() {
+        return expectedEpochMicros;
+    }
+
+    @Override
+    public String toString() {
+        return zone + " " + (transition.isGap() ? "gap" : "overlap") + " at " + transition.getInstant() + ", " +
+                position + " " + getLocalDateTime();
+    }
+}
@@ -0,0 +1,284 @@
+package williampuk.timestamp.probe;
+
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dialect.Dialect;
+
+import java.io.PrintStream;
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static williampuk.timestamp.codec.TimestampCodec.appendPadded;
+
+/**
+ * Checks how the driver resolves wall-clock times around every offset transition of every tzdb zone.
+ * <p>
+ * For each transition in {@code [fromYear, toYear]} the {@link DstCase}s just before, at the start of, inside and
+ * after its gap or overlap are selected as {@code TIMESTAMP} literals and read back with {@link
+ * ResultSet#getTimestamp(int, Calendar)} and a calendar of the zone. The instant the driver returns is compared with
+ * the one {@link TimestampCodec} expects. Cases are packed {@code casesPerQuery} to a {@code UNION ALL} query, so one
+ * round trip covers hundreds of them, and the zones are split across a {@link ForkJoinPool} with each leaf task
+ * sweeping its zones over one connection.
+ */
+public class DstSweep {
+
+    public static final String MODE = "--sweep";
+    public static final int DEFAULT_FROM_YEAR = 1970;
+    public static final int DEFAULT_TO_YEAR = 2037;
+    public static final int DEFAULT_CASES_PER_QUERY = 200;
+    /** No more than the connection pool holds, as every running leaf task keeps a connection. */
+    public static final int DEFAULT_PARALLELISM = 4;
+    private static final int MAX_REPORTED_MISMATCHES = 50;
+
+    private final int fromYear;
+    private final int toYear;
+    private final List<ZoneId> zones;
+    private final int casesPerQuery;
+    private final int parallelism;
+
+    public DstSweep(final int fromYear, final int toYear) {
+        this(fromYear, toYear, ZoneId.getAvailableZoneIds(), DEFAULT_CASES_PER_QUERY, DEFAULT_PARALLELISM);
+    }
+
+    public DstSweep(final int fromYear, final int toYear, final Collection<String> zoneIds, final int casesPerQuery,
+                    final int parallelism) {
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException("fromYear is after toYear: " + fromYear + " > " + toYear);
+        }
+        if (casesPerQuery < 1) {
+            throw new IllegalArgumentException("casesPerQuery must be positive: " + casesPerQuery);
+        }
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        final List<ZoneId> zones = new ArrayList<>(zoneIds.size());
+        for (final String zoneId : new TreeSet<>(zoneIds)) {
+            zones.add(ZoneId.of(zoneId));
+        }
+        this.zones = Collections.unmodifiableList(zones);
+        this.casesPerQuery = casesPerQuery;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param args {@value #MODE}, then optionally the first and the last year to sweep
+     */
+    public static DstSweep fromArgs(final String[] args) {
+        final int fromYear = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FROM_YEAR;
+        final int toYear = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TO_YEAR;
+        return new DstSweep(fromYear, toYear);
+    }
+
+    /**
+     * @return the cases around every transition of {@code zone} within the year range
+     */
+    public List<DstCase> cases(final ZoneId zone) {
+        final ZoneRules rules = zone.getRules();
+        final Instant end = LocalDateTime.of(toYear + 1, 1, 1, 0, 0).toInstant(ZoneOffset.UTC);
+        final List<DstCase> cases = new ArrayList<>();
+        ZoneOffsetTransition transition =
+                rules.nextTransition(LocalDateTime.of(fromYear, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).minusNanos(1));
+        while (transition != null && transition.getInstant().isBefore(end)) {
+            cases.addAll(DstCase.around(zone, transition));
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        return cases;
+    }
+
+    public Result run(final DbConnSupplier connSupplier) throws SQLException {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final int leafSize = Math.max(1, zones.size() / (parallelism * 4));
+            return pool.invoke(new SweepTask(connSupplier, zones, leafSize));
+        } catch (SweepFailure e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Result sweep(final Connection conn, final List<ZoneId> zones) throws SQLException {
+        final String fromDual = Dialect.of(conn).getFromDual();
+        final Map<ZoneId, Calendar> calendars = new HashMap<>();
+        final Result result = new Result();
+        final List<DstCase> batch = new ArrayList<>(casesPerQuery);
+        for (final ZoneId zone : zones) {
+            result.zones++;
+            calendars.put(zone, Calendar.getInstance(TimeZone.getTimeZone(zone)));
+            for (final DstCase c : cases(zone)) {
+                batch.add(c);
+                if (batch.size() == casesPerQuery) {
+                    probe(conn, fromDual, batch, calendars, result);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            probe(conn, fromDual, batch, calendars, result);
+        }
+        return result;
+    }
+
+    /**
+     * Selects every case of {@code batch} in one query, then clears it.
+     */
+    private static void probe(final Connection conn, final String fromDual, final List<DstCase> batch,
+                              final Map<ZoneId, Calendar> calendars, final Result result) throws SQLException {
+        final StringBuilder sql = new StringBuilder(batch.size() * 64);
+        final int[] fields = new int[7];
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT ").append(i).append(" case_id, TIMESTAMP '");
+            appendLiteral(sql, batch.get(i).getLocalMicros(), fields).append("' case_ts").append(fromDual);
+        }
+        try (final Statement stmt = conn.createStatement();
+             final ResultSet rs = stmt.executeQuery(sql.toString())) {
+            result.queries++;
+            while (rs.next()) {
+                // UNION ALL keeps no order, hence the case id
+                final DstCase c = batch.get(rs.getInt(1));
+                final Timestamp actual = rs.getTimestamp(2, calendars.get(c.getZone()));
+                result.record(c, actual == null ? null : TimestampCodec.epochMicros(actual));
+            }
+        }
+        batch.clear();
+    }
+
+    private static StringBuilder appendLiteral(final StringBuilder sb, final long localMicros, final int[] fields) {
+        TimestampCodec.toFields(localMicros, fields);
+        appendPadded(sb, fields[0], 4).append('-');
+        appendPadded(sb, fields[1], 2).append('-');
+        appendPadded(sb, fields[2], 2).append(' ');
+        appendPadded(sb, fields[3], 2).append(':');
+        appendPadded(sb, fields[4], 2).append(':');
+        appendPadded(sb, fields[5], 2);
+        if (fields[6] != 0) {
+            appendPadded(sb.append('.'), fields[6], 6);
+        }
+        return sb;
+    }
+
+    private class SweepTask extends RecursiveTask<Result> {
+
+        private final DbConnSupplier connSupplier;
+        private final List<ZoneId> zones;
+        private final int leafSize;
+
+        SweepTask(final DbConnSupplier connSupplier, final List<ZoneId> zones, final int leafSize) {
+            this.connSupplier = connSupplier;
+            this.zones = zones;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Result compute() {
+            if (zones.size() <= leafSize) {
+                try (final Connection conn = connSupplier.get()) {
+                    return sweep(conn, zones);
+                } catch (SQLException sqle) {
+                    throw new SweepFailure(sqle);
+                }
+            }
+            final int mid = zones.size() / 2;
+            final SweepTask right = new SweepTask(connSupplier, zones.subList(mid, zones.size()), leafSize);
+            right.fork();
+            final Result result = new SweepTask(connSupplier, zones.subList(0, mid), leafSize).compute();
+            result.merge(right.join());
+            return result;
+        }
+    }
+
+    private static class SweepFailure extends RuntimeException {
+
+        SweepFailure(final SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    /**
+     * What a sweep found. Only the first {@value #MAX_REPORTED_MISMATCHES} mismatches are kept, all are counted.
+     */
+    public static class Result {
+
+        private long zones;
+        private long cases;
+        private long queries;
+        private long mismatchCount;
+        private final Map<ZoneId, Long> mismatchesByZone = new TreeMap<>(Comparator.comparing(ZoneId::getId));
+        private final List<String> mismatches = new ArrayList<>();
+
+        private void record(final DstCase c, final Long actualEpochMicros) {
+            cases++;
+            if (actualEpochMicros == null || actualEpochMicros != c.getExpectedEpochMicros()) {
+                mismatchCount++;
+                mismatchesByZone.merge(c.getZone(), 1L, Long::sum);
+                if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(c + ": expected " + toInstant(c.getExpectedEpochMicros()) + ", driver returned " +
+                            (actualEpochMicros == null ? null : toInstant(actualEpochMicros)));
+                }
+            }
+        }
+
+        private static Instant toInstant(final long epochMicros) {
+            return Instant.EPOCH.plus(epochMicros, ChronoUnit.MICROS);
+        }
+
+        private void merge(final Result other) {
+            zones += other.zones;
+            cases += other.cases;
+            queries += other.queries;
+            mismatchCount += other.mismatchCount;
+            other.mismatchesByZone.forEach((zone, count) -> mismatchesByZone.merge(zone, count, Long::sum));
+            for (final String mismatch : other.mismatches) {
+                if (mismatches.size() == MAX_REPORTED_MISMATCHES) {
+                    break;
+                }
+                mismatches.add(mismatch);
+            }
+        }
+
+        public long getZones() {
+            return zones;
+        }
+
+        public long getCases() {
+            return cases;
+        }
+
+        public long getQueries() {
+            return queries;
+        }
+
+        public long getMismatchCount() {
+            return mismatchCount;
+        }
+
+        public Map<ZoneId, Long> getMismatchesByZone() {
+            return Collections.unmodifiableMap(mismatchesByZone);
+        }
+
+        public void print(final PrintStream out) {
+            out.println("=== DST transition sweep ===");
+            out.println(zones + " zones, " + cases + " cases in " + queries + " queries, " + mismatchCount +
+                    " mismatches");
+            mismatchesByZone.forEach((zone, count) -> out.println("  " + zone + ": " + count));
+            for (final String mismatch : mismatches) {
+                out.println(mismatch);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package williampuk.timestamp.probe;
+
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dialect.Dialect;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures how long a freshly started JVM takes to get the result of its first query, and what it loaded on the
+ * way: {@link DriverManager} loads every driver on the class path on the first connection, so the number depends on
+ * which dialect modules the probe is run with, and on whether the launcher's class data sharing archive is mapped.
+ * Only meaningful as the first thing the JVM does with a database.
+ */
+public final class FirstQuery {
+
+    public static final String MODE = "--first-query";
+
+    private FirstQuery() {
+    }
+
+    public static Result measure(final DbConnSupplier db) throws SQLException {
+        final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        final Result result = new Result();
+        result.uptimeAtStartMillis = runtime.getUptime();
+        final long start = System.nanoTime();
+        try (final Connection conn = db.get()) {
+            final long connected = System.nanoTime();
+            result.connectNanos = connected - start;
+            try (final Statement stmt = conn.createStatement();
+                 final ResultSet rs = stmt.executeQuery("SELECT LOCALTIMESTAMP" + Dialect.of(conn).getFromDual())) {
+                rs.next();
+                rs.getTimestamp(1);
+            }
+            result.queryNanos = System.nanoTime() - connected;
+        }
+        result.uptimeAtResultMillis = runtime.getUptime();
+        result.loadedClasses = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        for (final Driver driver : Collections.list(DriverManager.getDrivers())) {
+            result.drivers.add(driver.getClass().getName());
+        }
+        return result;
+    }
+
+    public static final class Result {
+
+        private long uptimeAtStartMillis;
+        private long connectNanos;
+        private long queryNanos;
+        private long uptimeAtResultMillis;
+        private long loadedClasses;
+        private final List<String> drivers = new ArrayList<>();
+
+        /**
+         * @return the milliseconds from the start of the JVM to the first query's result
+         */
+        public long getUptimeAtResultMillis() {
+            return uptimeAtResultMillis;
+        }
+
+        /**
+         * @return the time the first connection took, loading the drivers included
+         */
+        public long getConnectNanos() {
+            return connectNanos;
+        }
+
+        public long getQueryNanos() {
+            return queryNanos;
+        }
+
+        public void print(final PrintStream out) {
+            out.println("=== Time to first query ===");
+            out.printf("JVM start to measurement:  %,d ms%n", uptimeAtStartMillis);
+            out.printf("First connection:          %.3f ms%n", connectNanos / 1e6);
+            out.printf("First query:               %.3f ms%n", queryNanos / 1e6);
+            out.printf("JVM start to first result: %,d ms%n", uptimeAtResultMillis);
+            out.printf("Classes loaded:            %,d%n", loadedClasses);
+            out.printf("Drivers registered:        %s%n", String.join(", ", drivers));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package williampuk.timestamp.read;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The labels and {@link java.sql.Types} of a result's columns, read from its metadata once. Columns are numbered from
+ * 1, like in JDBC.
+ */
+public final class Columns {
+
+    private final String[] labels;
+    private final int[] types;
+
+    private Columns(final String[] labels, final int[] types) {
+        this.labels = labels;
+        this.types = types;
+    }
+
+    public static Columns of(final ResultSetMetaData metaData) throws SQLException {
+        final int count = metaData.getColumnCount();
+        final String[] labels = new String[count];
+        final int[] types = new int[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        return new Columns(labels, types);
+    }
+
+    public int getCount() {
+        return labels.length;
+    }
+
+    public String getLabel(final int column) {
+        return labels[column - 1];
+    }
+
+    public int getType(final int column) {
+        return types[column - 1];
+    }
+
+    /**
+     * @return the number of the column labelled {@code label}, ignoring case, or 0 if there is none
+     */
+    public int indexOf(final String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
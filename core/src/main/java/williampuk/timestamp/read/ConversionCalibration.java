@@ -0,0 +1,315 @@
+package williampuk.timestamp.read;
+
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dialect.Dialect;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Reads a {@code TIMESTAMP} column with every {@link ConversionStrategy} and picks the fastest one that gives the
+ * expected instants.
+ * <p>
+ * What is expected is worked out from the wall-clock times the column was loaded with, not from what any strategy
+ * reads: each is resolved in the zone by {@link java.time} the way {@link ResultSet#getTimestamp(int,
+ * java.util.Calendar)} specifies, a time in a gap pushed forward by the length of the gap and a time in an overlap
+ * given the later offset. Where the database changed a value on the way in, as MySQL does with times in a gap or an
+ * overlap, no strategy can read it back, and the fastest of those with the fewest mismatches is picked.
+ * <p>
+ * Every strategy reads the whole column once to check it, then {@code repetitions} more times; the fastest of these
+ * counts. The session time zone is set to the zone of the wall-clock times throughout, as MySQL converts {@code
+ * TIMESTAMP} values from and to it. Both the elapsed time and the CPU time of the reading thread are reported: the
+ * first includes the database's share of the work, the second only the client's, unless the database runs
+ * in-process like the emulator does.
+ */
+public class ConversionCalibration {
+
+    public static final String MODE = "--calibrate";
+    public static final int DEFAULT_REPETITIONS = 5;
+    private static final long NULL_MICROS = Long.MIN_VALUE;
+    private static final int ORA_SPECIFIED_FIELD_NOT_FOUND = 1878;
+    private static final StreamingReader READER = new StreamingReader();
+
+    private final String table;
+    private final String column;
+    private final String orderBy;
+    private final ZoneId zone;
+    private final int repetitions;
+
+    /**
+     * @param orderBy a column that orders the rows the same way on every read
+     */
+    public ConversionCalibration(final String table, final String column, final String orderBy, final ZoneId zone) {
+        this(table, column, orderBy, zone, DEFAULT_REPETITIONS);
+    }
+
+    public ConversionCalibration(final String table, final String column, final String orderBy, final ZoneId zone,
+                                 final int repetitions) {
+        if (repetitions < 1) {
+            throw new IllegalArgumentException("repetitions must be positive: " + repetitions);
+        }
+        this.table = table;
+        this.column = column;
+        this.orderBy = orderBy;
+        this.zone = zone;
+        this.repetitions = repetitions;
+    }
+
+    /**
+     * @param wallClock the wall-clock times the column was loaded with, in local micros and in the order of {@code
+     *                  orderBy}, {@link Long#MIN_VALUE} for SQL {@code NULL}
+     */
+    public Result run(final DbConnSupplier db, final long[] wallClock) throws SQLException {
+        try (final Connection conn = db.get()) {
+            final Dialect dialect = Dialect.of(conn);
+            try (final Statement stmt = conn.createStatement()) {
+                stmt.execute(dialect.getSetSessionZoneSql(zone));
+            }
+            final Result result = new Result(dialect, zone, new Reference(wallClock, zone));
+            for (final ConversionStrategy strategy : ConversionStrategy.values()) {
+                final Measurement measurement = new Measurement();
+                result.measurements.put(strategy, measurement);
+                try {
+                    final long[] actual = read(conn, dialect, strategy, null);
+                    measurement.check(result.reference, actual);
+                    for (int i = 0; i < repetitions; i++) {
+                        measurement.time(() -> read(conn, dialect, strategy, new long[actual.length]));
+                    }
+                } catch (SQLException sqle) {
+                    measurement.failure = sqle;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param values where to put the instants, or {@code null} to size an array to the rows read
+     * @return the instants in epoch micros, {@link #NULL_MICROS} for SQL {@code NULL}
+     */
+    private long[] read(final Connection conn, final Dialect dialect, final ConversionStrategy strategy,
+                        final long[] values) throws SQLException {
+        // The ordering column is selected too, as not every database orders by a column it does not return
+        final String sql = "SELECT " + strategy.select(dialect, column, zone) + ", " + orderBy + " FROM " + table +
+                " ORDER BY " + orderBy;
+        final long[][] holder = {values == null ? new long[1024] : values};
+        final long rows = READER.read(conn, sql, row -> {
+            final int i = (int) row.getRowNumber() - 1;
+            if (i == holder[0].length) {
+                holder[0] = Arrays.copyOf(holder[0], i * 2);
+            }
+            final Timestamp ts = strategy.getTimestamp(row, 1, zone);
+            holder[0][i] = ts == null ? NULL_MICROS : TimestampCodec.epochMicros(ts);
+        });
+        return values == null ? Arrays.copyOf(holder[0], (int) rows) : values;
+    }
+
+    private interface Pass {
+        void run() throws SQLException;
+    }
+
+    /**
+     * The instants expected of the rows, and which of them are in a gap or an overlap of the zone.
+     */
+    private static final class Reference {
+
+        private final long[] instants;
+        private final boolean[] inGap;
+        private final boolean[] inOverlap;
+        private int gapRows;
+        private int overlapRows;
+
+        Reference(final long[] wallClock, final ZoneId zone) {
+            final ZoneRules rules = zone.getRules();
+            instants = new long[wallClock.length];
+            inGap = new boolean[wallClock.length];
+            inOverlap = new boolean[wallClock.length];
+            for (int i = 0; i < wallClock.length; i++) {
+                if (wallClock[i] == NULL_MICROS) {
+                    instants[i] = NULL_MICROS;
+                    continue;
+                }
+                final LocalDateTime local = TimestampCodec.toLocalDateTime(wallClock[i]);
+                final Instant instant = local.atZone(zone).withLaterOffsetAtOverlap().toInstant();
+                instants[i] = instant.getEpochSecond() * TimestampCodec.MICROS_PER_SECOND + instant.getNano() / 1000;
+                final int validOffsets = rules.getValidOffsets(local).size();
+                if (validOffsets == 0) {
+                    inGap[i] = true;
+                    gapRows++;
+                } else if (validOffsets == 2) {
+                    inOverlap[i] = true;
+                    overlapRows++;
+                }
+            }
+        }
+    }
+
+    /**
+     * How a {@link ConversionStrategy} did.
+     */
+    public static final class Measurement {
+
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        private SQLException failure;
+        private long mismatches;
+        private long gapMismatches;
+        private long overlapMismatches;
+        private int firstMismatch = -1;
+        private long bestNanos = Long.MAX_VALUE;
+        private long bestCpuNanos = Long.MAX_VALUE;
+
+        private void check(final Reference reference, final long[] actual) {
+            final long[] expected = reference.instants;
+            if (actual.length != expected.length) {
+                mismatches = Math.max(actual.length, expected.length);
+                return;
+            }
+            for (int i = 0; i < actual.length; i++) {
+                if (actual[i] != expected[i]) {
+                    if (mismatches++ == 0) {
+                        firstMismatch = i;
+                    }
+                    if (reference.inGap[i]) {
+                        gapMismatches++;
+                    } else if (reference.inOverlap[i]) {
+                        overlapMismatches++;
+                    }
+                }
+            }
+        }
+
+        private void time(final Pass pass) throws SQLException {
+            final long cpuStart = THREADS.getCurrentThreadCpuTime();
+            final long start = System.nanoTime();
+            pass.run();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestCpuNanos = Math.min(bestCpuNanos, THREADS.getCurrentThreadCpuTime() - cpuStart);
+        }
+
+        /**
+         * @return {@code true} if the strategy ran and gave the expected instants
+         */
+        public boolean isCorrect() {
+            return failure == null && mismatches == 0;
+        }
+
+        /**
+         * @return why the strategy could not read the column, {@code null} if it could
+         */
+        public SQLException getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return {@code true} if the database refused to convert a wall-clock time in a gap, as Oracle's {@code
+         * FROM_TZ} does with ORA-01878
+         */
+        public boolean isGapRefused() {
+            return failure != null && failure.getErrorCode() == ORA_SPECIFIED_FIELD_NOT_FOUND;
+        }
+
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        /**
+         * @return how many of the mismatches are of wall-clock times in a gap
+         */
+        public long getGapMismatches() {
+            return gapMismatches;
+        }
+
+        /**
+         * @return how many of the mismatches are of wall-clock times in an overlap
+         */
+        public long getOverlapMismatches() {
+            return overlapMismatches;
+        }
+
+        /**
+         * @return the elapsed time of the fastest read
+         */
+        public long getBestNanos() {
+            return bestNanos;
+        }
+
+        /**
+         * @return the CPU time of the reading thread in the read that took the least of it
+         */
+        public long getBestCpuNanos() {
+            return bestCpuNanos;
+        }
+    }
+
+    public static final class Result {
+
+        private final Dialect dialect;
+        private final ZoneId zone;
+        private final Reference reference;
+        private final Map<ConversionStrategy, Measurement> measurements = new EnumMap<>(ConversionStrategy.class);
+
+        Result(final Dialect dialect, final ZoneId zone, final Reference reference) {
+            this.dialect = dialect;
+            this.zone = zone;
+            this.reference = reference;
+        }
+
+        public Measurement getMeasurement(final ConversionStrategy strategy) {
+            return measurements.get(strategy);
+        }
+
+        /**
+         * @return the fastest of the strategies that ran with the fewest mismatches, {@code null} if none ran
+         */
+        public ConversionStrategy getChosen() {
+            ConversionStrategy chosen = null;
+            Measurement best = null;
+            for (final Map.Entry<ConversionStrategy, Measurement> e : measurements.entrySet()) {
+                final Measurement m = e.getValue();
+                if (m.failure == null && (best == null || m.mismatches < best.mismatches
+                        || m.mismatches == best.mismatches && m.bestNanos < best.bestNanos)) {
+                    chosen = e.getKey();
+                    best = m;
+                }
+            }
+            return chosen;
+        }
+
+        public void print(final PrintStream out) {
+            out.printf("=== Conversion calibration: %s, %s, %,d rows, %,d in a gap, %,d in an overlap ===%n", dialect,
+                    zone, reference.instants.length, reference.gapRows, reference.overlapRows);
+            for (final Map.Entry<ConversionStrategy, Measurement> e : measurements.entrySet()) {
+                final Measurement m = e.getValue();
+                out.printf("  %-16s", e.getKey());
+                if (m.isGapRefused()) {
+                    out.printf("refused by the database for the %,d rows in a gap: %s%n", reference.gapRows,
+                            m.failure.getMessage());
+                    continue;
+                }
+                if (m.failure != null) {
+                    out.printf("failed: %s%n", m.failure.getMessage());
+                    continue;
+                }
+                out.printf("%9.3f ms elapsed, %9.3f ms client CPU, ", m.bestNanos / 1e6, m.bestCpuNanos / 1e6);
+                if (m.mismatches == 0) {
+                    out.println("correct");
+                } else {
+                    out.printf("%,d mismatches (%,d in a gap, %,d in an overlap), the first at row %d%n",
+                            m.mismatches, m.gapMismatches, m.overlapMismatches, m.firstMismatch + 1);
+                }
+            }
+            out.println("Chosen: " + getChosen());
+        }
+    }
+}
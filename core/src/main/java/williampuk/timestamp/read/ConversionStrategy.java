@@ -0,0 +1,80 @@
+package williampuk.timestamp.read;
+
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dialect.Dialect;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Where a {@code TIMESTAMP} column of wall-clock times in a zone is turned into instants: a strategy gives the
+ * expression to select in place of the column, and reads the instant back from the {@link Row}.
+ * <p>
+ * The strategies agree on ordinary times but may not on times in a gap or an overlap, where each database and driver
+ * has its own rule. {@link ConversionCalibration} measures which are correct, and which is fastest, for a database.
+ */
+public enum ConversionStrategy {
+
+    /**
+     * The column as is, converted on the client by {@link TimestampCodec}.
+     */
+    CLIENT_CODEC {
+        @Override
+        public String select(final Dialect dialect, final String column, final ZoneId zone) {
+            return column;
+        }
+
+        @Override
+        public Timestamp getTimestamp(final Row row, final int column, final ZoneId zone) throws SQLException {
+            return row.getTimestamp(column, zone);
+        }
+    },
+
+    /**
+     * Converted to UTC by the database, see {@link Dialect#getToUtcSql(String, ZoneId)}, which leaves the client
+     * nothing to resolve but loads the database instead.
+     */
+    SERVER_PUSHDOWN {
+        @Override
+        public String select(final Dialect dialect, final String column, final ZoneId zone) {
+            return dialect.getToUtcSql(column, zone);
+        }
+
+        @Override
+        public Timestamp getTimestamp(final Row row, final int column, final ZoneId zone) throws SQLException {
+            return row.getTimestamp(column, ZoneOffset.UTC);
+        }
+    },
+
+    /**
+     * The column as is, read with {@code getObject(column, OffsetDateTime.class)}. Connector/J resolves the
+     * wall-clock time in the session time zone, which must be set to the zone; pgjdbc takes it as UTC whatever the
+     * zone; ojdbc does not convert a {@code TIMESTAMP} at all.
+     */
+    DRIVER_NATIVE {
+        @Override
+        public String select(final Dialect dialect, final String column, final ZoneId zone) {
+            return column;
+        }
+
+        @Override
+        public Timestamp getTimestamp(final Row row, final int column, final ZoneId zone) throws SQLException {
+            final OffsetDateTime value = row.getOffsetDateTime(column);
+            return value == null ? null : Timestamp.from(value.toInstant());
+        }
+    };
+
+    /**
+     * @return what to select for {@code column}
+     */
+    public abstract String select(Dialect dialect, String column, ZoneId zone);
+
+    /**
+     * @param column the number of what {@link #select(Dialect, String, ZoneId)} gave in the result
+     * @return the instant, {@code null} for SQL {@code NULL}
+     */
+    public abstract Timestamp getTimestamp(Row row, int column, ZoneId zone) throws SQLException;
+}
@@ -0,0 +1,271 @@
+package williampuk.timestamp.read;
+
+import org.apache.commons.lang3.function.FailableConsumer;
+import williampuk.timestamp.dbutils.SessionTimeZone;
+import williampuk.timestamp.dialect.Vendor;
+
+import java.io.PrintStream;
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Reads the rows added to a table since the last poll, using a {@code TIMESTAMP} column filled with {@code
+ * LOCALTIMESTAMP} as the watermark, so a poll reads only the recent end of the column's index.
+ * <p>
+ * A wall-clock watermark is not monotonic: the fall-back hour of the writer's zone repeats an hour of wall-clock
+ * times, and a clock stepped back repeats a few seconds or minutes. So every poll reads again from {@code lookback}
+ * before the latest value seen, and drops the rows it delivered before, telling them apart by the values of all the
+ * columns read. A row that arrives below the watermark is still delivered, but is reported as {@link
+ * Anomaly#FALL_BACK} if its wall-clock time is ambiguous in the writer's zone, {@link Anomaly#CLOCK_ROLLBACK}
+ * otherwise; one whose watermark value was delivered by an earlier poll is {@link Anomaly#REPEATED}, as it cannot be
+ * told apart from it by the watermark. Rows that appear further back than {@code lookback} cannot be read without
+ * rescanning the table; they are only counted, as {@link Anomaly#MISSED}, by comparing the index's count of rows
+ * behind the window with the number delivered.
+ * <p>
+ * The session time zone is set to UTC for a poll and set back afterwards, so that the watermark does not depend on
+ * the caller's session: MySQL returns its {@code TIMESTAMP} values, stored in UTC, in the session time zone;
+ * elsewhere the zone does not change a {@code TIMESTAMP}. That does not rid a MySQL watermark of the fall-back hour:
+ * MySQL converts the wall-clock time written to UTC as it stores it, taking one offset for a repeated time, so the
+ * rows written in the second pass of the hour get the same UTC values as those of the first, and are reported as
+ * above.
+ */
+public class IncrementalReader {
+
+    public static final String MODE = "--incremental";
+    /**
+     * The fall-back of most zones that observe daylight saving time.
+     */
+    public static final Duration DEFAULT_LOOKBACK = Duration.ofHours(1);
+    private static final int MAX_EXAMPLES = 3;
+    private static final StreamingReader READER = new StreamingReader();
+
+    public enum Anomaly { FALL_BACK, CLOCK_ROLLBACK, REPEATED, MISSED }
+
+    private final String table;
+    private final String watermarkColumn;
+    private final List<String> columns;
+    private final ZoneId zone;
+    private final Duration lookback;
+    private final Result result = new Result();
+    private LocalDateTime watermark;
+    /**
+     * The rows delivered in the last {@code lookback}, counted by watermark value and the values of all columns.
+     */
+    private final TreeMap<LocalDateTime, Map<List<String>, Integer>> window = new TreeMap<>();
+    /**
+     * The rows delivered that are behind the window.
+     */
+    private long settled;
+
+    /**
+     * @param watermarkColumn a {@code NOT NULL} column, filled with {@code LOCALTIMESTAMP} in {@code zone}
+     * @param columns         the other columns to read
+     */
+    public IncrementalReader(final String table, final String watermarkColumn, final List<String> columns,
+                             final ZoneId zone) {
+        this(table, watermarkColumn, columns, zone, DEFAULT_LOOKBACK);
+    }
+
+    /**
+     * @param lookback how far back the clock of the writers may go, by a fall-back or otherwise
+     */
+    public IncrementalReader(final String table, final String watermarkColumn, final List<String> columns,
+                             final ZoneId zone, final Duration lookback) {
+        if (lookback.isNegative()) {
+            throw new IllegalArgumentException("lookback must not be negative: " + lookback);
+        }
+        this.table = table;
+        this.watermarkColumn = watermarkColumn;
+        this.columns = new ArrayList<>(columns);
+        this.zone = zone;
+        this.lookback = lookback;
+    }
+
+    /**
+     * Pushes the rows added since the last poll to {@code sink}, in watermark order; the watermark is column 1, the
+     * other columns follow in the order given. The session time zone of {@code conn} is left as it was; if the poll
+     * fails, a failure to set it back is added to the exception thrown as suppressed.
+     *
+     * @return the number of rows delivered
+     */
+    public long poll(final Connection conn, final FailableConsumer<Row, SQLException> sink) throws SQLException {
+        final Vendor vendor = Vendor.of(conn);
+        final SessionTimeZone.Form zoneForm = vendor.getSessionZoneForm();
+        final String sessionZone = queryString(conn, zoneForm.getQuerySql());
+        execute(conn, vendor.getSetSessionZoneSql(ZoneOffset.UTC));
+        Throwable failure = null;
+        try {
+            return pollInUtc(conn, sink, vendor == Vendor.MYSQL);
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            try {
+                execute(conn, zoneForm.getSetSql(sessionZone));
+            } catch (SQLException restoreFailure) {
+                if (failure == null) {
+                    throw restoreFailure;
+                }
+                failure.addSuppressed(restoreFailure);
+            }
+        }
+    }
+
+    private long pollInUtc(final Connection conn, final FailableConsumer<Row, SQLException> sink,
+                           final boolean utcStorage) throws SQLException {
+        final LocalDateTime from = watermark == null ? null : watermark.minus(lookback);
+        if (from != null) {
+            final SortedMap<LocalDateTime, Map<List<String>, Integer>> behind = window.headMap(from);
+            for (final Map<List<String>, Integer> rows : behind.values()) {
+                for (final int count : rows.values()) {
+                    settled += count;
+                }
+            }
+            behind.clear();
+        }
+
+        final StringBuilder sql = new StringBuilder("SELECT ").append(watermarkColumn);
+        for (final String column : columns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(" FROM ").append(table);
+        if (from != null) {
+            sql.append(" WHERE ").append(watermarkColumn).append(" >= ?");
+        }
+        sql.append(" ORDER BY ").append(watermarkColumn);
+
+        final Map<LocalDateTime, Map<List<String>, Integer>> read = new HashMap<>();
+        final LocalDateTime[] highest = {watermark};
+        final long[] delivered = {0};
+        final long fetched = READER.read(conn, sql.toString(), ps -> {
+            if (from != null) {
+                ps.setObject(1, from);
+            }
+        }, row -> {
+            final LocalDateTime value = row.getLocalDateTime(1);
+            final List<String> key = new ArrayList<>(columns.size());
+            for (int i = 2; i <= columns.size() + 1; i++) {
+                key.add(row.getString(i));
+            }
+            final int seen = read.computeIfAbsent(value, v -> new HashMap<>()).merge(key, 1, Integer::sum);
+            final Map<List<String>, Integer> before = window.get(value);
+            if (before != null && seen <= before.getOrDefault(key, 0)) {
+                return;
+            }
+            if (watermark != null && value.isBefore(watermark)) {
+                final LocalDateTime local = utcStorage ?
+                        value.atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toLocalDateTime() : value;
+                result.add(zone.getRules().getValidOffsets(local).size() > 1 ?
+                        Anomaly.FALL_BACK : Anomaly.CLOCK_ROLLBACK, 1, value + " after " + watermark);
+            }
+            if (before != null) {
+                result.add(Anomaly.REPEATED, 1, value.toString());
+            }
+            if (highest[0] == null || value.isAfter(highest[0])) {
+                highest[0] = value;
+            }
+            delivered[0]++;
+            sink.accept(row);
+        });
+        for (final Map.Entry<LocalDateTime, Map<List<String>, Integer>> rows : read.entrySet()) {
+            final Map<List<String>, Integer> known = window.computeIfAbsent(rows.getKey(), v -> new HashMap<>());
+            rows.getValue().forEach((key, count) -> known.merge(key, count, Math::max));
+        }
+
+        if (from != null) {
+            final long behind = countBehind(conn, from);
+            if (behind > settled) {
+                result.add(Anomaly.MISSED, behind - settled, "before " + from);
+            }
+            // Lower when rows were deleted
+            settled = behind;
+        }
+        watermark = highest[0];
+        result.polls++;
+        result.fetched += fetched;
+        result.delivered += delivered[0];
+        return delivered[0];
+    }
+
+    private static String queryString(final Connection conn, final String sql) throws SQLException {
+        try (final Statement stmt = conn.createStatement();
+             final ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static void execute(final Connection conn, final String sql) throws SQLException {
+        try (final Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private long countBehind(final Connection conn, final LocalDateTime from) throws SQLException {
+        try (final PreparedStatement ps = conn.prepareStatement(
+                "SELECT COUNT(*) FROM " + table + " WHERE " + watermarkColumn + " < ?")) {
+            ps.setObject(1, from);
+            try (final ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * @return the latest watermark value delivered, {@code null} before the first row
+     */
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return the counts of all the polls so far
+     */
+    public Result getResult() {
+        return result;
+    }
+
+    public static final class Result {
+
+        private long polls;
+        private long fetched;
+        private long delivered;
+        private final EnumMap<Anomaly, Long> anomalies = new EnumMap<>(Anomaly.class);
+        private final EnumMap<Anomaly, List<String>> examples = new EnumMap<>(Anomaly.class);
+
+        private void add(final Anomaly anomaly, final long count, final String example) {
+            anomalies.merge(anomaly, count, Long::sum);
+            final List<String> list = examples.computeIfAbsent(anomaly, a -> new ArrayList<>());
+            if (list.size() < MAX_EXAMPLES) {
+                list.add(example);
+            }
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * @return the number of rows, for {@link Anomaly#MISSED} the number that could not be delivered
+         */
+        public long getCount(final Anomaly anomaly) {
+            return anomalies.getOrDefault(anomaly, 0L);
+        }
+
+        public void print(final PrintStream out) {
+            out.println("=== Incremental reads ===");
+            out.printf("Polls:           %,d%n", polls);
+            out.printf("Rows fetched:    %,d%n", fetched);
+            out.printf("Rows delivered:  %,d%n", delivered);
+            for (final Anomaly anomaly : Anomaly.values()) {
+                out.printf("%-16s %,d%s%n", anomaly + ":", getCount(anomaly),
+                        examples.containsKey(anomaly) ? "  e.g. " + String.join("; ", examples.get(anomaly)) : "");
+            }
+        }
+    }
+}
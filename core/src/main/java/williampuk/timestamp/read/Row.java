@@ -0,0 +1,93 @@
+package williampuk.timestamp.read;
+
+import williampuk.timestamp.codec.TimestampCodec;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * The current row of a {@link StreamingReader}. The same instance is handed to the sink for every row, so it must
+ * not be kept; copy the values that are needed instead.
+ */
+public final class Row {
+
+    private final ResultSet rs;
+    private final Columns columns;
+    private long rowNumber;
+
+    Row(final ResultSet rs, final Columns columns) {
+        this.rs = rs;
+        this.columns = columns;
+    }
+
+    void advance() {
+        rowNumber++;
+    }
+
+    public Columns getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the number of this row, from 1
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    public String getString(final int column) throws SQLException {
+        return rs.getString(column);
+    }
+
+    /**
+     * @return the value, 0 for SQL {@code NULL}; see {@link #wasNull()}
+     */
+    public long getLong(final int column) throws SQLException {
+        return rs.getLong(column);
+    }
+
+    /**
+     * @return a {@code TIMESTAMP} as a wall-clock time of the JVM default zone
+     */
+    public Timestamp getTimestamp(final int column) throws SQLException {
+        return rs.getTimestamp(column);
+    }
+
+    /**
+     * @return a {@code TIMESTAMP} as a wall-clock time of {@code zone}
+     */
+    public Timestamp getTimestamp(final int column, final ZoneId zone) throws SQLException {
+        return TimestampCodec.getTimestamp(rs, column, zone);
+    }
+
+    /**
+     * @return the value as the driver received it, e.g. a Postgres binary {@code TIMESTAMP}, see {@link
+     * williampuk.timestamp.codec.PgBinaryTimestamp}
+     */
+    public byte[] getBytes(final int column) throws SQLException {
+        return rs.getBytes(column);
+    }
+
+    public LocalDateTime getLocalDateTime(final int column) throws SQLException {
+        return rs.getObject(column, LocalDateTime.class);
+    }
+
+    /**
+     * @return the value as the driver converts it on its own, which for a {@code TIMESTAMP} differs between drivers,
+     * see {@link ConversionStrategy#DRIVER_NATIVE}
+     */
+    public OffsetDateTime getOffsetDateTime(final int column) throws SQLException {
+        return rs.getObject(column, OffsetDateTime.class);
+    }
+
+    /**
+     * @return {@code true} if the last value read was SQL {@code NULL}
+     */
+    public boolean wasNull() throws SQLException {
+        return rs.wasNull();
+    }
+}
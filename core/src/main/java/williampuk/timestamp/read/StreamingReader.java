@@ -0,0 +1,86 @@
+package williampuk.timestamp.read;
+
+import org.apache.commons.lang3.function.FailableConsumer;
+import williampuk.timestamp.dialect.Vendor;
+
+import java.sql.*;
+
+/**
+ * Runs a query and pushes its rows to a sink one at a time, holding no more than a fetch's worth of rows in memory.
+ * <p>
+ * The driver is put in its streaming mode: Postgres fetches through a cursor, which it only does with auto-commit
+ * off, so auto-commit is turned off for the query and back on afterwards; Connector/J streams row by row when the
+ * fetch size is {@link Integer#MIN_VALUE}; Oracle fetches {@code fetchSize} rows per round trip.
+ */
+public class StreamingReader {
+
+    public static final int DEFAULT_FETCH_SIZE = 1_000;
+    private static final FailableConsumer<PreparedStatement, SQLException> NO_PARAMETERS = ps -> {
+    };
+
+    private final int fetchSize;
+
+    public StreamingReader() {
+        this(DEFAULT_FETCH_SIZE);
+    }
+
+    public StreamingReader(final int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be positive: " + fetchSize);
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return the number of rows read
+     */
+    public long read(final Connection conn, final String sql, final FailableConsumer<Row, SQLException> sink)
+            throws SQLException {
+        return read(conn, sql, NO_PARAMETERS, sink);
+    }
+
+    /**
+     * @param binder sets the parameters of {@code sql}
+     * @return the number of rows read
+     */
+    public long read(final Connection conn, final String sql,
+                     final FailableConsumer<PreparedStatement, SQLException> binder,
+                     final FailableConsumer<Row, SQLException> sink) throws SQLException {
+        return read(conn, sql, binder, columns -> { }, sink);
+    }
+
+    /**
+     * @param binder          sets the parameters of {@code sql}
+     * @param columnsConsumer is given the columns of the result before its first row, even if it has none
+     * @return the number of rows read
+     */
+    public long read(final Connection conn, final String sql,
+                     final FailableConsumer<PreparedStatement, SQLException> binder,
+                     final FailableConsumer<Columns, SQLException> columnsConsumer,
+                     final FailableConsumer<Row, SQLException> sink) throws SQLException {
+        final Vendor vendor = Vendor.of(conn);
+        final boolean restoreAutoCommit = vendor == Vendor.POSTGRES && conn.getAutoCommit();
+        if (restoreAutoCommit) {
+            conn.setAutoCommit(false);
+        }
+        try (final PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(vendor == Vendor.MYSQL ? Integer.MIN_VALUE : fetchSize);
+            binder.accept(ps);
+            try (final ResultSet rs = ps.executeQuery()) {
+                final Row row = new Row(rs, Columns.of(rs.getMetaData()));
+                columnsConsumer.accept(row.getColumns());
+                while (rs.next()) {
+                    row.advance();
+                    sink.accept(row);
+                }
+                return row.getRowNumber();
+            }
+        } finally {
+            if (restoreAutoCommit) {
+                // Ends the transaction the cursor ran in
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package williampuk.timestamp.write;
+
+import org.apache.commons.lang3.function.FailableConsumer;
+import williampuk.timestamp.read.Columns;
+import williampuk.timestamp.read.Row;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A sink for a {@link williampuk.timestamp.read.StreamingReader} that writes rows in a {@link RowFormat} on a thread
+ * of its own, so that fetching the next rows and encoding the previous ones overlap.
+ * <p>
+ * The reading thread only copies each row's values, as {@link Long}s, {@link String}s and {@link
+ * java.time.LocalDateTime}s, and hands them over {@value #ROWS_PER_BATCH} rows at a time through a queue of {@code
+ * queueCapacity} batches; when the writer falls behind, the reader waits. The writer thread encodes the rows into a
+ * buffer and writes it to the channel in {@value #BUFFER_SIZE} byte chunks.
+ * <p>
+ * All rows must have the same columns. They are taken from the first row, unless {@link #setColumns(Columns)} gave
+ * them before it; only then is the header of a result without rows written. {@link #close()} writes what is left and
+ * stops the thread, but leaves the channel open.
+ */
+public class AsyncRowWriter implements FailableConsumer<Row, SQLException>, AutoCloseable {
+
+    public static final String EXPORT_MODE = "--export";
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    static final int ROWS_PER_BATCH = 256;
+    static final int BUFFER_SIZE = 256 * 1024;
+    private static final Object[][] END = new Object[0][];
+
+    private final WritableByteChannel channel;
+    private final RowFormat format;
+    private final BlockingQueue<Object[][]> queue;
+    private final Thread thread;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private volatile Columns columns;
+    private volatile Throwable failure;
+    private boolean[] integerColumns;
+    private boolean[] timestampColumns;
+    private Object[][] batch = new Object[ROWS_PER_BATCH][];
+    private int batchSize;
+    private long rows;
+    private boolean closed;
+
+    public AsyncRowWriter(final WritableByteChannel channel, final RowFormat format) {
+        this(channel, format, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public AsyncRowWriter(final WritableByteChannel channel, final RowFormat format, final int queueCapacity) {
+        this.channel = channel;
+        this.format = format;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.thread = new Thread(this::drain, "async-row-writer");
+        thread.start();
+    }
+
+    /**
+     * Copies the values of {@code row} and queues them for writing.
+     *
+     * @throws UncheckedIOException if the writer thread has failed
+     */
+    @Override
+    public void accept(final Row row) throws SQLException {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        checkFailure();
+        if (columns == null) {
+            initColumns(row.getColumns());
+        }
+        final Object[] values = new Object[integerColumns.length];
+        for (int i = 0; i < values.length; i++) {
+            final int column = i + 1;
+            if (timestampColumns[i]) {
+                values[i] = row.getLocalDateTime(column);
+            } else if (integerColumns[i]) {
+                final long value = row.getLong(column);
+                values[i] = row.wasNull() ? null : value;
+            } else {
+                values[i] = row.getString(column);
+            }
+        }
+        batch[batchSize++] = values;
+        rows++;
+        if (batchSize == ROWS_PER_BATCH) {
+            put(batch);
+            batch = new Object[ROWS_PER_BATCH][];
+            batchSize = 0;
+        }
+    }
+
+    /**
+     * Sets the columns of the rows to come, so that the header is written even if no row comes; pass this as the
+     * columns consumer of {@link williampuk.timestamp.read.StreamingReader#read(java.sql.Connection, String,
+     * FailableConsumer, FailableConsumer, FailableConsumer)}.
+     */
+    public void setColumns(final Columns columns) {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        if (this.columns == null) {
+            initColumns(columns);
+        }
+    }
+
+    private void initColumns(final Columns columns) {
+        final int count = columns.getCount();
+        integerColumns = new boolean[count];
+        timestampColumns = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            final int type = columns.getType(i + 1);
+            integerColumns[i] = type == Types.BIGINT || type == Types.INTEGER || type == Types.SMALLINT ||
+                    type == Types.TINYINT;
+            timestampColumns[i] = type == Types.TIMESTAMP;
+        }
+        // Published to the writer thread by the queue
+        this.columns = columns;
+    }
+
+    /**
+     * @return the number of rows accepted so far
+     */
+    public long getRowCount() {
+        return rows;
+    }
+
+    private void put(final Object[][] rows) {
+        try {
+            queue.put(rows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while queueing rows"));
+        }
+    }
+
+    private void checkFailure() {
+        final Throwable t = failure;
+        if (t instanceof IOException) {
+            throw new UncheckedIOException("Writing rows failed", (IOException) t);
+        } else if (t != null) {
+            throw new IllegalStateException("Writing rows failed", t);
+        }
+    }
+
+    /**
+     * The writer thread's loop. After a failure, it keeps taking batches so that the reader is not blocked.
+     */
+    private void drain() {
+        final StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+        boolean headerWritten = false;
+        try {
+            for (Object[][] rows = queue.take(); rows != END; rows = queue.take()) {
+                if (failure != null) {
+                    continue;
+                }
+                try {
+                    if (!headerWritten) {
+                        format.appendHeader(columns, sb);
+                        headerWritten = true;
+                    }
+                    for (final Object[] values : rows) {
+                        if (values == null) {
+                            break;
+                        }
+                        format.appendRow(columns, values, sb);
+                        if (sb.length() >= BUFFER_SIZE) {
+                            write(sb);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure = e;
+                }
+            }
+            if (failure == null) {
+                if (!headerWritten && columns != null) {
+                    format.appendHeader(columns, sb);
+                }
+                write(sb);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Writer thread interrupted");
+        }
+    }
+
+    /**
+     * Encodes {@code sb} into the byte buffer, writing it to the channel whenever it is full, then clears {@code sb}.
+     */
+    private void write(final StringBuilder sb) throws IOException {
+        final CharBuffer chars = CharBuffer.wrap(sb);
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        } while (result.isOverflow());
+        encoder.reset();
+        sb.setLength(0);
+    }
+
+    /**
+     * Writes the rows still queued and waits for the writer thread to finish.
+     *
+     * @throws IOException if writing any row failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (batchSize > 0) {
+                put(batch);
+            }
+            put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the writer thread");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            batch = null;
+        }
+        try {
+            checkFailure();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
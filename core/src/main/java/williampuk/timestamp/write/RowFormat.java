@@ -0,0 +1,187 @@
+package williampuk.timestamp.write;
+
+import williampuk.timestamp.read.Columns;
+
+import java.time.LocalDateTime;
+
+import static williampuk.timestamp.codec.TimestampCodec.appendPadded;
+
+/**
+ * How an {@link AsyncRowWriter} encodes rows. Values are the ones an {@link AsyncRowWriter} copies out of a row:
+ * {@code null}, {@link Long}, {@link String} or {@link LocalDateTime}; timestamps are written in ISO-8601, e.g.
+ * {@code 2021-03-14T02:01:01.123456}.
+ */
+public enum RowFormat {
+
+    /**
+     * One JSON object per line, keyed by column label.
+     */
+    JSON_LINES("jsonl") {
+        @Override
+        void appendHeader(final Columns columns, final StringBuilder sb) {
+        }
+
+        @Override
+        void appendRow(final Columns columns, final Object[] values, final StringBuilder sb) {
+            sb.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendJsonString(sb, columns.getLabel(i + 1)).append(':');
+                final Object value = values[i];
+                if (value == null || value instanceof Long) {
+                    sb.append(value);
+                } else if (value instanceof LocalDateTime) {
+                    appendIso(sb.append('"'), (LocalDateTime) value).append('"');
+                } else {
+                    appendJsonString(sb, value.toString());
+                }
+            }
+            sb.append('}').append('\n');
+        }
+    },
+
+    /**
+     * RFC 4180 CSV with a header line of column labels; SQL {@code NULL} is an empty field.
+     */
+    CSV("csv") {
+        @Override
+        void appendHeader(final Columns columns, final StringBuilder sb) {
+            for (int i = 1; i <= columns.getCount(); i++) {
+                if (i > 1) {
+                    sb.append(',');
+                }
+                appendCsvField(sb, columns.getLabel(i));
+            }
+            sb.append('\r').append('\n');
+        }
+
+        @Override
+        void appendRow(final Columns columns, final Object[] values, final StringBuilder sb) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                final Object value = values[i];
+                if (value instanceof Long) {
+                    sb.append(value);
+                } else if (value instanceof LocalDateTime) {
+                    appendIso(sb, (LocalDateTime) value);
+                } else if (value != null) {
+                    appendCsvField(sb, value.toString());
+                }
+            }
+            sb.append('\r').append('\n');
+        }
+    };
+
+    private final String name;
+
+    RowFormat(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param name {@code jsonl} or {@code csv}
+     */
+    public static RowFormat of(final String name) {
+        for (final RowFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown row format: " + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    abstract void appendHeader(Columns columns, StringBuilder sb);
+
+    abstract void appendRow(Columns columns, Object[] values, StringBuilder sb);
+
+    /**
+     * Appends {@code value} the way {@link LocalDateTime#toString()} does, except that the seconds are always
+     * written and a fraction has 6 or 9 digits.
+     */
+    static StringBuilder appendIso(final StringBuilder sb, final LocalDateTime value) {
+        final int year = value.getYear();
+        if (year > 9999) {
+            sb.append('+');
+        } else if (year < 0) {
+            sb.append('-');
+        }
+        appendPadded(sb, Math.abs(year), 4).append('-');
+        appendPadded(sb, value.getMonthValue(), 2).append('-');
+        appendPadded(sb, value.getDayOfMonth(), 2).append('T');
+        appendPadded(sb, value.getHour(), 2).append(':');
+        appendPadded(sb, value.getMinute(), 2).append(':');
+        appendPadded(sb, value.getSecond(), 2);
+        final int nanos = value.getNano();
+        if (nanos != 0) {
+            sb.append('.');
+            if (nanos % 1000 == 0) {
+                appendPadded(sb, nanos / 1000, 6);
+            } else {
+                appendPadded(sb, nanos, 9);
+            }
+        }
+        return sb;
+    }
+
+    private static StringBuilder appendJsonString(final StringBuilder sb, final String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16))
+                                .append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"');
+    }
+
+    private static void appendCsvField(final StringBuilder sb, final String value) {
+        // An empty string is quoted to tell it from NULL
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            final char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,92 @@
+package williampuk.timestamp.bulk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import williampuk.timestamp.dbutils.DelegatingConnection;
+
+import java.sql.*;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchLoaderTest {
+
+    private static final String TABLE = "batch_loader_test";
+
+    private final BatchLoader loader = new BatchLoader(TABLE, ZoneConversionPolicy.of(ZoneId.of("America/New_York")));
+    private Connection conn;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:tsemu:mysql:batch-loader-test");
+        execute("DROP TABLE IF EXISTS " + TABLE);
+        execute("CREATE TABLE " + TABLE + " (created_timestamp TIMESTAMP NOT NULL, timestamp_val TIMESTAMP NULL, " +
+                "remarks VARCHAR(200) NULL)");
+    }
+
+    @AfterEach
+    void closeConnection() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void leavesTheSessionTimeZoneAsItWas() throws SQLException {
+        assertEquals(2, loader.load(conn, rows().iterator()));
+        assertEquals("SYSTEM", sessionZone());
+
+        execute("SET time_zone = 'Asia/Tokyo'");
+        assertEquals(2, loader.load(conn, rows().iterator()));
+        assertEquals("Asia/Tokyo", sessionZone());
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void keepsTheLoadFailureWhenRollingBackFails() throws SQLException {
+        final Connection failingRollback = new DelegatingConnection(conn) {
+            @Override
+            public void rollback() throws SQLException {
+                throw new SQLException("rollback failed");
+            }
+        };
+        final Iterator<TimestampRow> failing = new Iterator<TimestampRow>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public TimestampRow next() {
+                throw new IllegalStateException("source failed");
+            }
+        };
+        final IllegalStateException e =
+                assertThrows(IllegalStateException.class, () -> loader.load(failingRollback, failing));
+        assertEquals("source failed", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+        assertEquals("rollback failed", e.getSuppressed()[0].getMessage());
+        assertEquals("SYSTEM", sessionZone());
+        assertTrue(conn.getAutoCommit());
+    }
+
+    private static List<TimestampRow> rows() {
+        final Timestamp ts = Timestamp.valueOf("2021-11-07 06:30:00");
+        return List.of(new TimestampRow(ts, ts, "first"), new TimestampRow(ts, null, "second"));
+    }
+
+    private String sessionZone() throws SQLException {
+        try (final Statement stmt = conn.createStatement();
+             final ResultSet rs = stmt.executeQuery("SELECT @@session.time_zone")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private void execute(final String sql) throws SQLException {
+        try (final Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package williampuk.timestamp.bulk;
+
+import org.junit.jupiter.api.Test;
+import williampuk.timestamp.bulk.WorkloadGenerator.Category;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dialect.Vendor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadGeneratorTest {
+
+    private static final int SAMPLES = 10_000;
+
+    @Test
+    void leapDayValuesAreOnTheZonesLeapDay() {
+        for (final String zone : new String[]{"America/New_York", "Asia/Tokyo", "Pacific/Kiritimati"}) {
+            for (final Vendor vendor : Vendor.values()) {
+                final WorkloadGenerator.Values values = new WorkloadGenerator.Values(ZoneId.of(zone), vendor);
+                final SplittableRandom random = new SplittableRandom(1);
+                final int[] fields = new int[7];
+                for (int i = 0; i < SAMPLES; i++) {
+                    TimestampCodec.toFields(values.next(Category.LEAP_DAY, random), fields);
+                    assertEquals(2, fields[1], zone);
+                    assertEquals(29, fields[2], zone);
+                    assertEquals(0, fields[6], zone);
+                }
+            }
+        }
+    }
+
+    @Test
+    void gapAndOverlapValuesIncludeSkippedAndRepeatedWallClockTimes() {
+        for (final String zone : new String[]{"America/New_York", "Australia/Lord_Howe"}) {
+            for (final Vendor vendor : Vendor.values()) {
+                final ZoneRules rules = ZoneId.of(zone).getRules();
+                final WorkloadGenerator.Values values = new WorkloadGenerator.Values(ZoneId.of(zone), vendor);
+                final SplittableRandom random = new SplittableRandom(1);
+                int inGap = 0;
+                int ambiguous = 0;
+                for (int i = 0; i < SAMPLES; i++) {
+                    final LocalDateTime gap = TimestampCodec.toLocalDateTime(values.next(Category.GAP, random));
+                    if (rules.getValidOffsets(gap).isEmpty()) {
+                        inGap++;
+                    }
+                    final LocalDateTime overlap =
+                            TimestampCodec.toLocalDateTime(values.next(Category.OVERLAP, random));
+                    if (rules.getValidOffsets(overlap).size() == 2) {
+                        ambiguous++;
+                    }
+                }
+                // An hour either side of a gap or overlap of an hour, or of half an hour on Lord Howe Island
+                assertTrue(inGap > SAMPLES / 8 && inGap < SAMPLES / 2, zone + " " + vendor + ": " + inGap);
+                assertTrue(ambiguous > SAMPLES / 8 && ambiguous < SAMPLES / 2, zone + " " + vendor + ": " + ambiguous);
+            }
+        }
+    }
+}
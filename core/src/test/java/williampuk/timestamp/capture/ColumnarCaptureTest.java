@@ -0,0 +1,128 @@
+package williampuk.timestamp.capture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.read.StreamingReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarCaptureTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    // More than the initial capacity of a capture, so that every array grows
+    private static final int ROWS = 3_000;
+    // One to four bytes of UTF-8 per character, the last as a surrogate pair
+    private static final String[] TEXTS = {"", "plain", "caf\u00e9", "\u65e5\u672c\u8a9e\u306e\u6642\u523b",
+            "\ud83d\ude00 emoji", "mixed \u00e9\u65e5\ud83d\ude00 text", "'quoted'"};
+    // 02:01:01 does not exist in New York; a lenient conversion pushes it forward to 03:01:01
+    private static final LocalDateTime IN_GAP = LocalDateTime.of(2021, 3, 14, 2, 1, 1);
+    private static final LocalDateTime PUSHED_FORWARD = LocalDateTime.of(2021, 3, 14, 3, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    private final long[] ids = new long[ROWS];
+    private final LocalDateTime[] created = new LocalDateTime[ROWS];
+    private final String[] remarks = new String[ROWS];
+
+    @BeforeEach
+    void generateRows() {
+        for (int row = 0; row < ROWS; row++) {
+            ids[row] = row % 11 == 0 ? Long.MIN_VALUE : row * 1_000_003L - 5_000;
+            created[row] = row % 13 == 0 ? null :
+                    row % 2 == 0 ? IN_GAP.plusSeconds(row) : PUSHED_FORWARD.minusDays(row).withNano(row * 1000);
+            remarks[row] = row % 7 == 0 ? null : TEXTS[row % TEXTS.length] + (row % 3 == 0 ? "" : " " + row);
+        }
+    }
+
+    @Test
+    void roundTripsThroughTheFile() throws Exception {
+        final Path file = capture("capture_test_a");
+        try (final Snapshot snapshot = Snapshot.open(file)) {
+            assertEquals(NEW_YORK, snapshot.getZone());
+            assertEquals(ROWS, snapshot.getRowCount());
+            assertEquals(3, snapshot.getColumnCount());
+            assertEquals(Snapshot.Kind.LONG, snapshot.getKind(snapshot.indexOf("id")));
+            assertEquals(Snapshot.Kind.TIMESTAMP, snapshot.getKind(snapshot.indexOf("created")));
+            assertEquals(Snapshot.Kind.STRING, snapshot.getKind(snapshot.indexOf("remarks")));
+            for (int row = 0; row < ROWS; row++) {
+                final int r = row;
+                assertEquals(ids[row] == Long.MIN_VALUE, snapshot.isNull(0, row), () -> "id " + r);
+                if (ids[row] != Long.MIN_VALUE) {
+                    assertEquals(ids[row], snapshot.getLong(0, row), () -> "id " + r);
+                }
+                assertEquals(created[row] == null, snapshot.isNull(1, row), () -> "created " + r);
+                if (created[row] != null) {
+                    assertEquals(created[row], TimestampCodec.toLocalDateTime(snapshot.getLong(1, row)),
+                            () -> "created " + r);
+                }
+                assertEquals(remarks[row], snapshot.getString(2, row), () -> "remarks " + r);
+            }
+            assertEquals(0, SnapshotDiff.diff(snapshot, snapshot).getDifferenceCount());
+        }
+    }
+
+    @Test
+    void diffFindsChangedRows() throws Exception {
+        final Path original = capture("capture_test_a");
+        ids[1_500] = 42;
+        // The same instant once pushed forward, but not the same wall-clock time
+        created[1_502] = PUSHED_FORWARD.plusSeconds(1_502);
+        created[2_000] = IN_GAP;
+        remarks[2_999] = remarks[2_999] + "!";
+        remarks[7] = "";
+        final Path changed = capture("capture_test_b");
+        try (final Snapshot a = Snapshot.open(original);
+             final Snapshot b = Snapshot.open(changed)) {
+            final SnapshotDiff diff = SnapshotDiff.diff(a, b);
+            assertEquals(5, diff.getDifferenceCount());
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            diff.print(new PrintStream(out, true, StandardCharsets.UTF_8));
+            final String report = out.toString(StandardCharsets.UTF_8);
+            assertTrue(report.contains("row 1503, created: 2021-03-14T02:26:03 (2021-03-14T03:26:03-04:00" +
+                    "[America/New_York]) vs 2021-03-14T03:26:03-04:00[America/New_York]"), report);
+            assertTrue(report.contains("row 8, remarks: NULL vs ''"), report);
+        }
+    }
+
+    private Path capture(final String table) throws SQLException, IOException {
+        final ColumnarCapture capture = new ColumnarCapture(NEW_YORK);
+        try (final Connection conn = DriverManager.getConnection("jdbc:tsemu:postgres:capture-test")) {
+            try (final Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS " + table);
+                stmt.execute("CREATE TABLE " + table + " (id BIGINT NULL, created TIMESTAMP NULL, " +
+                        "remarks VARCHAR(200) NULL)");
+            }
+            try (final PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO " + table + " (id, created, remarks) VALUES (?, ?, ?)")) {
+                for (int row = 0; row < ROWS; row++) {
+                    if (ids[row] == Long.MIN_VALUE) {
+                        ps.setNull(1, Types.BIGINT);
+                    } else {
+                        ps.setLong(1, ids[row]);
+                    }
+                    ps.setObject(2, created[row]);
+                    ps.setString(3, remarks[row]);
+                    ps.executeUpdate();
+                }
+            }
+            // The emulator returns the rows in the order they were inserted
+            new StreamingReader().read(conn, "SELECT id, created, remarks FROM " + table, capture);
+        }
+        assertEquals(ROWS, capture.getRowCount());
+        final Path file = dir.resolve(table + ".snapshot");
+        capture.write(file);
+        return file;
+    }
+}
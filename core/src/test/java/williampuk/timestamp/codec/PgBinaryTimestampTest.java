@@ -0,0 +1,112 @@
+package williampuk.timestamp.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgBinaryTimestampTest {
+
+    private final Random random = new Random(20000101L);
+
+    @Test
+    void decodesBinaryValuesEitherSideOfThePostgresEpoch() throws SQLException {
+        assertEquals(PgBinaryTimestamp.POSTGRES_EPOCH_MICROS, PgBinaryTimestamp.decode(binary(0)));
+        // 1970-01-01 00:00 is 30 years before 2000-01-01, a negative int64
+        assertEquals(0, PgBinaryTimestamp.decode(binary(-946_684_800_000_000L)));
+        assertEquals(TimestampCodec.localMicros(1999, 12, 31, 23, 59, 59, 999_999),
+                PgBinaryTimestamp.decode(binary(-1)));
+        assertEquals(TimestampCodec.localMicros(2021, 3, 14, 2, 1, 1, 123_456),
+                PgBinaryTimestamp.decode(binary(TimestampCodec.localMicros(2021, 3, 14, 2, 1, 1, 123_456) -
+                        PgBinaryTimestamp.POSTGRES_EPOCH_MICROS)));
+    }
+
+    @Test
+    void infinityIsRefused() {
+        assertThrows(SQLDataException.class, () -> PgBinaryTimestamp.decode(binary(Long.MAX_VALUE)));
+        assertThrows(SQLDataException.class, () -> PgBinaryTimestamp.decode(binary(Long.MIN_VALUE)));
+        assertThrows(SQLDataException.class, () -> PgBinaryTimestamp.decode(text("infinity")));
+        assertThrows(SQLDataException.class, () -> PgBinaryTimestamp.decode(text("-infinity")));
+    }
+
+    @Test
+    void parsesOneToSixFractionDigits() throws SQLException {
+        final String[] fractions = {"", ".1", ".12", ".123", ".1234", ".12345", ".123456"};
+        final int[] micros = {0, 100_000, 120_000, 123_000, 123_400, 123_450, 123_456};
+        for (int i = 0; i < fractions.length; i++) {
+            assertEquals(TimestampCodec.localMicros(2021, 3, 14, 2, 1, 1, micros[i]),
+                    PgBinaryTimestamp.decode(text("2021-03-14 02:01:01" + fractions[i])), fractions[i]);
+        }
+        assertEquals(TimestampCodec.localMicros(2021, 3, 14, 2, 1, 1, 1),
+                PgBinaryTimestamp.decode(text("2021-03-14 02:01:01.000001")));
+    }
+
+    @Test
+    void malformedTextIsRefused() {
+        for (final String bad : new String[]{"", "2021-03-14", "2021-03-14T02:01:01", "2021/03/14 02:01:01",
+                "2021-03-14 02:01:0x", "2021-03-14 02:01:01.", "2021-03-14 02:01:01,5",
+                "2021-03-14 02:01:01.1234567", "2021-03-14 02:01:01+00", "0044-03-15 00:00:00 BC",
+                "12021-03-14 02:01:01", "0000-01-01 00:00:00", "2021-00-14 02:01:01", "2021-13-14 02:01:01",
+                "2021-02-29 00:00:00", "2021-04-31 00:00:00", "2021-03-00 00:00:00", "2021-03-14 24:00:00",
+                "2021-03-14 02:60:00", "2021-03-14 02:01:60", "2021-03-14 -2:01:01"}) {
+            assertThrows(SQLDataException.class, () -> PgBinaryTimestamp.decode(text(bad)), bad);
+        }
+    }
+
+    @Test
+    void agreesWithLocalDateTimeParse() throws SQLException {
+        final long from = TimestampCodec.localMicros(1, 1, 1, 0, 0, 0, 0);
+        final long span = TimestampCodec.localMicros(9999, 12, 31, 23, 59, 59, 999_999) - from;
+        for (int i = 0; i < 100_000; i++) {
+            long localMicros = from + Math.floorMod(random.nextLong(), span);
+            // Also whole seconds and leap days, which Postgres prints without or with a short fraction
+            if (i % 3 == 0) {
+                localMicros -= Math.floorMod(localMicros, TimestampCodec.MICROS_PER_SECOND);
+            } else if (i % 3 == 1) {
+                localMicros -= Math.floorMod(localMicros, 1000);
+            }
+            final String printed = postgresText(TimestampCodec.toLocalDateTime(localMicros));
+            final LocalDateTime parsed = LocalDateTime.parse(printed.replace(' ', 'T'));
+            assertEquals(parsed, TimestampCodec.toLocalDateTime(PgBinaryTimestamp.decode(text(printed))), printed);
+            assertEquals(TimestampCodec.localMicros(parsed), PgBinaryTimestamp.decode(
+                    binary(localMicros - PgBinaryTimestamp.POSTGRES_EPOCH_MICROS)), printed);
+        }
+        for (int year = 1; year <= 9999; year += year < 1600 ? 99 : 1) {
+            if (year % 4 == 0) {
+                final String leapDay = String.format("%04d-02-29 12:00:00", year);
+                if (year % 100 != 0 || year % 400 == 0) {
+                    assertEquals(LocalDateTime.parse(leapDay.replace(' ', 'T')),
+                            TimestampCodec.toLocalDateTime(PgBinaryTimestamp.decode(text(leapDay))));
+                } else {
+                    assertThrows(SQLDataException.class, () -> PgBinaryTimestamp.decode(text(leapDay)), leapDay);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code local} as Postgres prints a {@code timestamp}: the fraction without trailing zeros, if any
+     */
+    private static String postgresText(final LocalDateTime local) {
+        final String text = String.format("%04d-%02d-%02d %02d:%02d:%02d", local.getYear(), local.getMonthValue(),
+                local.getDayOfMonth(), local.getHour(), local.getMinute(), local.getSecond());
+        if (local.getNano() == 0) {
+            return text;
+        }
+        return text + String.format(".%06d", local.getNano() / 1000).replaceAll("0+$", "");
+    }
+
+    private static byte[] binary(final long value) {
+        return ByteBuffer.allocate(PgBinaryTimestamp.LENGTH).putLong(value).array();
+    }
+
+    private static byte[] text(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
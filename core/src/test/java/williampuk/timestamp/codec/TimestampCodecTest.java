@@ -0,0 +1,188 @@
+package williampuk.timestamp.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static williampuk.timestamp.codec.TimestampCodec.MICROS_PER_SECOND;
+
+/**
+ * Checks the codec against {@link java.time}, which resolves gaps the same way and overlaps with {@link
+ * java.time.ZonedDateTime#withLaterOffsetAtOverlap()}.
+ */
+class TimestampCodecTest {
+
+    private static final List<ZoneId> ZONES = List.of(ZoneOffset.UTC, ZoneId.of("America/New_York"),
+            ZoneId.of("Europe/London"), ZoneId.of("Australia/Sydney"), ZoneId.of("Australia/Lord_Howe"),
+            ZoneId.of("Asia/Tokyo"), ZoneId.of("Asia/Kathmandu"), ZoneId.of("America/Sao_Paulo"));
+    private static final LocalDateTime MIN = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX = LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_000);
+
+    private final Random random = new Random(20211107L);
+
+    @Test
+    void fieldsMatchLocalDateTimeFromYear1To9999() {
+        final int[] fields = new int[7];
+        for (final LocalDateTime local : samples(MIN, MAX, 100_000)) {
+            final long localMicros = TimestampCodec.localMicros(local);
+            assertEquals(localMicros, TimestampCodec.localMicros(local.getYear(), local.getMonthValue(),
+                    local.getDayOfMonth(), local.getHour(), local.getMinute(), local.getSecond(),
+                    local.getNano() / 1000), local::toString);
+            assertEquals(local.toLocalDate().toEpochDay(),
+                    TimestampCodec.epochDay(local.getYear(), local.getMonthValue(), local.getDayOfMonth()));
+            TimestampCodec.toFields(localMicros, fields);
+            assertArrayEquals(new int[]{local.getYear(), local.getMonthValue(), local.getDayOfMonth(),
+                    local.getHour(), local.getMinute(), local.getSecond(), local.getNano() / 1000}, fields,
+                    local::toString);
+            assertEquals(local, TimestampCodec.toLocalDateTime(localMicros));
+        }
+    }
+
+    @Test
+    void instantsMatchZoneRules() {
+        for (final ZoneId zone : ZONES) {
+            final TimestampCodec codec = TimestampCodec.of(zone);
+            for (final LocalDateTime local : samples(MIN, MAX, 20_000)) {
+                final Instant instant = local.toInstant(ZoneOffset.UTC);
+                final long epochMicros = TimestampCodec.localMicros(local);
+                assertEquals(TimestampCodec.localMicros(LocalDateTime.ofInstant(instant, zone)),
+                        codec.toLocalMicros(epochMicros), () -> zone + " " + instant);
+                assertEquals(zone.getRules().getOffset(instant).getTotalSeconds(), codec.offsetSecondsAt(epochMicros));
+            }
+        }
+    }
+
+    @Test
+    void wallClockTimesResolveLikeJavaTime() {
+        for (final ZoneId zone : ZONES) {
+            final TimestampCodec codec = TimestampCodec.of(zone);
+            final List<LocalDateTime> locals = new ArrayList<>(samples(MIN, MAX, 20_000));
+            // Either side of the precomputed range, in and around every gap and overlap
+            for (final ZoneOffsetTransition t : transitions(zone.getRules(), 1900, 2200)) {
+                final LocalDateTime before = t.getDateTimeBefore();
+                final LocalDateTime after = t.getDateTimeAfter();
+                final LocalDateTime from = before.isBefore(after) ? before : after;
+                final LocalDateTime until = before.isBefore(after) ? after : before;
+                locals.add(from.minusNanos(1000));
+                locals.add(from);
+                locals.add(from.plus(t.getDuration().abs().dividedBy(2)));
+                locals.add(until.minusNanos(1000));
+                locals.add(until);
+            }
+            for (final LocalDateTime local : locals) {
+                final Instant expected = local.atZone(zone).withLaterOffsetAtOverlap().toInstant();
+                final long localMicros = TimestampCodec.localMicros(local);
+                assertEquals(expected, toInstant(codec.toEpochMicros(localMicros)), () -> zone + " " + local);
+                assertEquals(zone.getRules().getValidOffsets(local).isEmpty(), codec.isInGap(localMicros),
+                        () -> zone + " " + local);
+            }
+        }
+    }
+
+    @Test
+    void formatPrintsTheWallClockTime() {
+        final ZoneId zone = ZoneId.of("America/New_York");
+        final TimestampCodec codec = TimestampCodec.of(zone);
+        assertEquals("2021-11-07 01:30:00.0", codec.format(timestamp(
+                LocalDateTime.of(2021, 11, 7, 1, 30).atZone(zone).withLaterOffsetAtOverlap().toInstant(), 0)));
+        assertEquals("0001-01-01 00:00:00.000000001", TimestampCodec.of(ZoneOffset.UTC).format(
+                timestamp(MIN.toInstant(ZoneOffset.UTC), 1)));
+        assertEquals("9999-12-31 23:59:59.12", TimestampCodec.of(ZoneOffset.UTC).format(
+                timestamp(MAX.toInstant(ZoneOffset.UTC), 120_000_000)));
+        for (final LocalDateTime local : samples(MIN, MAX, 10_000)) {
+            final Timestamp ts = timestamp(local.atZone(zone).toInstant(), local.getNano());
+            final LocalDateTime printed = LocalDateTime.ofInstant(ts.toInstant(), zone);
+            final String expected = String.format("%04d-%02d-%02d %02d:%02d:%02d.%s", printed.getYear(),
+                    printed.getMonthValue(), printed.getDayOfMonth(), printed.getHour(), printed.getMinute(),
+                    printed.getSecond(), printed.getNano() == 0 ? "0" :
+                            String.format("%09d", printed.getNano()).replaceAll("0+$", ""));
+            assertEquals(expected, codec.format(ts));
+        }
+    }
+
+    @Test
+    void appendPaddedPadsToWidth() {
+        for (final int value : new int[]{0, 1, 9, 10, 99, 100, 999_999, 1_000_000, 123_456_789, Integer.MAX_VALUE}) {
+            for (int width = 0; width <= 12; width++) {
+                final String expected = width == 0 ? Integer.toString(value) :
+                        String.format("%0" + width + "d", value);
+                assertEquals(expected, TimestampCodec.appendPadded(new StringBuilder(), value, width).toString());
+            }
+        }
+    }
+
+    @Test
+    void jdbcHelpersRoundTripThroughTheDriver() throws SQLException {
+        final ZoneId zone = ZoneId.of("America/New_York");
+        final List<LocalDateTime> locals = new ArrayList<>(List.of(MIN, MAX,
+                LocalDateTime.of(1582, 10, 10, 12, 0), LocalDateTime.of(1582, 10, 20, 12, 0),
+                LocalDateTime.of(2021, 3, 14, 2, 30, 0, 123_456_000), LocalDateTime.of(2021, 11, 7, 1, 30)));
+        locals.addAll(samples(MIN, MAX, 200));
+        for (final String vendor : new String[]{"oracle", "mysql", "postgres"}) {
+            try (final Connection conn = DriverManager.getConnection("jdbc:tsemu:" + vendor + ":codec-test");
+                 final PreparedStatement ps = conn.prepareStatement(
+                         "oracle".equals(vendor) ? "SELECT ? FROM DUAL" : "SELECT ?")) {
+                for (final LocalDateTime local : locals) {
+                    final Timestamp expected = timestamp(
+                            local.atZone(zone).withLaterOffsetAtOverlap().toInstant(), local.getNano());
+                    ps.setObject(1, local);
+                    try (final ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        assertEquals(expected, TimestampCodec.getTimestamp(rs, 1, zone), () -> vendor + " " + local);
+                    }
+                    TimestampCodec.setTimestamp(ps, 1, expected, zone);
+                    try (final ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        assertEquals(local.atZone(zone).toLocalDateTime(), rs.getObject(1, LocalDateTime.class),
+                                () -> vendor + " " + local);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<LocalDateTime> samples(final LocalDateTime from, final LocalDateTime until, final int count) {
+        final long fromMicros = TimestampCodec.localMicros(from);
+        final long span = TimestampCodec.localMicros(until) - fromMicros;
+        final List<LocalDateTime> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long micros = fromMicros + Math.floorMod(random.nextLong(), span);
+            // Every other sample on a whole second, the way most stored values are
+            samples.add(TimestampCodec.toLocalDateTime(i % 2 == 0 ? micros - Math.floorMod(micros, MICROS_PER_SECOND)
+                    : micros));
+        }
+        return samples;
+    }
+
+    private static List<ZoneOffsetTransition> transitions(final ZoneRules rules, final int fromYear,
+                                                          final int untilYear) {
+        final List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        ZoneOffsetTransition t = rules.nextTransition(LocalDateTime.of(fromYear, 1, 1, 0, 0).toInstant(ZoneOffset.UTC));
+        while (t != null && t.getDateTimeBefore().getYear() < untilYear) {
+            transitions.add(t);
+            t = rules.nextTransition(t.getInstant());
+        }
+        return transitions;
+    }
+
+    private static Instant toInstant(final long epochMicros) {
+        return Instant.EPOCH.plus(epochMicros, ChronoUnit.MICROS);
+    }
+
+    private static Timestamp timestamp(final Instant instant, final int nanos) {
+        final Timestamp ts = Timestamp.from(instant);
+        ts.setNanos(nanos);
+        return ts;
+    }
+}
@@ -0,0 +1,119 @@
+package williampuk.timestamp.dbutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncDbExecutorTest {
+
+    private static final Duration ACQUIRE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final DbConnSupplier db = () -> DriverManager.getConnection("jdbc:tsemu:postgres:async-test");
+
+    @Test
+    void cancellingTheFutureCancelsTheRunningStatement() throws Exception {
+        try (final AsyncDbExecutor executor = new AsyncDbExecutor(db, null, 1, ACQUIRE_TIMEOUT, Duration.ZERO)) {
+            final CountDownLatch reading = new CountDownLatch(1);
+            final CountDownLatch cancelled = new CountDownLatch(1);
+            final AtomicReference<SQLException> failure = new AtomicReference<>();
+            final CompletableFuture<Void> future = executor.withDbConn(conn -> {
+                try (final Statement stmt = conn.createStatement();
+                     final ResultSet rs = stmt.executeQuery("SELECT 1 UNION ALL SELECT 2")) {
+                    rs.next();
+                    reading.countDown();
+                    await(cancelled);
+                    rs.next();
+                } catch (SQLException e) {
+                    failure.set(e);
+                    throw e;
+                }
+            });
+            assertTrue(reading.await(10, TimeUnit.SECONDS));
+            assertTrue(future.cancel(true));
+            cancelled.countDown();
+
+            // The slot is released once the cancelled work returns
+            assertEquals(2, executor.applyWithDbConn(conn -> 2).get(10, TimeUnit.SECONDS));
+            assertEquals("57014", failure.get().getSQLState());
+        }
+    }
+
+    @Test
+    void workWaitingTooLongForASlotFails() throws Exception {
+        try (final AsyncDbExecutor executor = new AsyncDbExecutor(db, null, 1, Duration.ofMillis(50),
+                Duration.ZERO)) {
+            final CountDownLatch done = new CountDownLatch(1);
+            final CompletableFuture<Void> holding = executor.withDbConn(conn -> await(done));
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> executor.applyWithDbConn(conn -> 1).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(SQLTransientConnectionException.class, e.getCause());
+            done.countDown();
+            holding.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void failedWorkReleasesItsSlot() throws Exception {
+        try (final AsyncDbExecutor executor = new AsyncDbExecutor(db, null, 1, ACQUIRE_TIMEOUT, Duration.ZERO)) {
+            for (int i = 0; i < 3; i++) {
+                final ExecutionException e = assertThrows(ExecutionException.class, () -> executor.withDbConn(conn -> {
+                    throw new SQLException("work failed", "42000");
+                }).get(10, TimeUnit.SECONDS));
+                assertEquals("work failed", e.getCause().getMessage());
+            }
+            assertEquals(1, executor.applyWithDbConn(conn -> 1).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void executorsOnTheSameSupplierShareTheLimit() throws Exception {
+        try (final AsyncDbExecutor first = new AsyncDbExecutor(db, null, 1, ACQUIRE_TIMEOUT, Duration.ZERO);
+             final AsyncDbExecutor second = new AsyncDbExecutor(db, null, 1, ACQUIRE_TIMEOUT, Duration.ZERO)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new AsyncDbExecutor(db, null, 2, ACQUIRE_TIMEOUT, Duration.ZERO));
+            final CountDownLatch done = new CountDownLatch(1);
+            final CompletableFuture<Void> holding = first.withDbConn(conn -> await(done));
+            final CompletableFuture<Integer> waiting = second.applyWithDbConn(conn -> 2);
+            assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+            done.countDown();
+            holding.get(10, TimeUnit.SECONDS);
+            assertEquals(2, waiting.get(10, TimeUnit.SECONDS));
+        }
+        // Once every executor on it is closed, the supplier may get another limit
+        new AsyncDbExecutor(db, null, 2, ACQUIRE_TIMEOUT, Duration.ZERO).close();
+    }
+
+    @Test
+    void closedStatementsAreNoLongerTracked() throws Exception {
+        try (final AsyncDbExecutor executor = new AsyncDbExecutor(db)) {
+            assertEquals(0, executor.applyWithDbConn(conn -> {
+                for (int i = 0; i < 3; i++) {
+                    try (final PreparedStatement ps = conn.prepareStatement("SELECT ?")) {
+                        ps.setInt(1, i);
+                        ps.executeQuery().close();
+                    }
+                    conn.createStatement().close();
+                }
+                return ((CancellableConnection) conn).getOpenStatementCount();
+            }).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void await(final CountDownLatch latch) throws SQLException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+}
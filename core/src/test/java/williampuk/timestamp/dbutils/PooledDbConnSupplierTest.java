@@ -0,0 +1,64 @@
+package williampuk.timestamp.dbutils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledDbConnSupplierTest {
+
+    private final PooledDbConnSupplier pool = new PooledDbConnSupplier(
+            () -> DriverManager.getConnection("jdbc:tsemu:postgres:pool-test"),
+            1, Duration.ofMinutes(5), Duration.ofMillis(100));
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void closedHandleRefusesEveryCall() throws SQLException {
+        final Connection first = pool.get();
+        final Statement stmt = first.createStatement();
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::createStatement);
+        assertThrows(SQLException.class, () -> first.prepareStatement("SELECT 1"));
+        assertThrows(SQLException.class, first::getAutoCommit);
+        assertThrows(SQLException.class, () -> first.setClientInfo("ApplicationName", "stale"));
+        assertThrows(SQLException.class, () -> stmt.getConnection().createStatement());
+        // Closing twice must not release the slot twice
+        first.close();
+
+        try (final Connection second = pool.get()) {
+            assertNotSame(first, second);
+            assertFalse(second.isClosed());
+            assertThrows(SQLException.class, first::createStatement);
+            try (final Statement s = second.createStatement()) {
+                assertSame(second, s.getConnection());
+            }
+            assertThrows(SQLTransientConnectionException.class, pool::get);
+        }
+    }
+
+    @Test
+    void releaseRestoresSessionSettings() throws SQLException {
+        final boolean readOnly;
+        final String catalog;
+        try (final Connection conn = pool.get()) {
+            readOnly = conn.isReadOnly();
+            catalog = conn.getCatalog();
+            conn.setReadOnly(!readOnly);
+            conn.setAutoCommit(false);
+        }
+        try (final Connection conn = pool.get()) {
+            assertEquals(readOnly, conn.isReadOnly());
+            assertTrue(conn.getAutoCommit());
+            assertEquals(catalog, conn.getCatalog());
+        }
+        assertEquals(1, pool.getIdleCount());
+    }
+}
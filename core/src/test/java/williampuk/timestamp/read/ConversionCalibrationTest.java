@@ -0,0 +1,55 @@
+package williampuk.timestamp.read;
+
+import org.junit.jupiter.api.Test;
+import williampuk.timestamp.bulk.WorkloadGenerator;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dialect.Dialect;
+
+import java.sql.*;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionCalibrationTest {
+
+    private static final String TABLE = "calibration_test";
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Test
+    void checksEveryStrategyAgainstTheLoadedWallClockTimes() throws Exception {
+        final ConversionCalibration.Result oracle = calibrate("oracle");
+        assertTrue(oracle.getMeasurement(ConversionStrategy.CLIENT_CODEC).isCorrect());
+        assertTrue(oracle.getMeasurement(ConversionStrategy.SERVER_PUSHDOWN).isGapRefused());
+        assertEquals(ConversionStrategy.CLIENT_CODEC, oracle.getChosen());
+
+        final ConversionCalibration.Result postgres = calibrate("postgres");
+        assertTrue(postgres.getMeasurement(ConversionStrategy.SERVER_PUSHDOWN).isCorrect());
+        assertFalse(postgres.getMeasurement(ConversionStrategy.DRIVER_NATIVE).isCorrect());
+
+        // MySQL moves times in a gap as they are stored, so no strategy can read them back
+        final ConversionCalibration.Result mysql = calibrate("mysql");
+        for (final ConversionStrategy strategy : ConversionStrategy.values()) {
+            final ConversionCalibration.Measurement m = mysql.getMeasurement(strategy);
+            assertFalse(m.isCorrect(), strategy.name());
+            assertTrue(m.getGapMismatches() > 0, strategy.name());
+        }
+        assertEquals(0, mysql.getMeasurement(ConversionStrategy.CLIENT_CODEC).getOverlapMismatches());
+        assertEquals(ConversionStrategy.CLIENT_CODEC, mysql.getChosen());
+    }
+
+    private static ConversionCalibration.Result calibrate(final String vendor) throws Exception {
+        final DbConnSupplier db = () -> DriverManager.getConnection("jdbc:tsemu:" + vendor + ":calibration-test");
+        final Dialect dialect;
+        try (final Connection conn = db.get();
+             final Statement stmt = conn.createStatement()) {
+            dialect = Dialect.of(conn);
+            stmt.execute(dialect.getDropTableIfExistsSql(TABLE));
+            stmt.execute("CREATE TABLE " + TABLE + " (created_timestamp TIMESTAMP NOT NULL, " +
+                    "timestamp_val TIMESTAMP NULL, remarks " + dialect.getVarcharType(200) + " NULL)");
+        }
+        final WorkloadGenerator workload = new WorkloadGenerator(TABLE, NEW_YORK, 2_000, 4, 2, 1L);
+        workload.run(db);
+        return new ConversionCalibration(TABLE, "timestamp_val", "created_timestamp", NEW_YORK, 1)
+                .run(db, workload.wallClockValues(dialect));
+    }
+}
@@ -0,0 +1,64 @@
+package williampuk.timestamp.read;
+
+import org.junit.jupiter.api.Test;
+import williampuk.timestamp.dialect.Vendor;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalReaderTest {
+
+    private static final String TABLE = "incremental_reader_test";
+
+    @Test
+    void leavesTheSessionTimeZoneAsItWas() throws SQLException {
+        for (final String vendor : new String[]{"oracle", "mysql", "postgres"}) {
+            try (final Connection conn = DriverManager.getConnection("jdbc:tsemu:" + vendor + ":incremental-test")) {
+                final Vendor dialect = Vendor.of(conn);
+                execute(conn, dialect.getDropTableIfExistsSql(TABLE));
+                execute(conn, "CREATE TABLE " + TABLE + " (created_timestamp TIMESTAMP NOT NULL, remarks " +
+                        dialect.getVarcharType(200) + " NULL)");
+                try (final PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO " + TABLE + " (created_timestamp, remarks) VALUES (?, ?)")) {
+                    ps.setObject(1, LocalDateTime.of(2021, 11, 7, 0, 30));
+                    ps.setString(2, "first");
+                    ps.executeUpdate();
+                }
+                final IncrementalReader reader = new IncrementalReader(TABLE, "created_timestamp",
+                        List.of("remarks"), ZoneId.of("America/New_York"));
+
+                final String defaultZone = sessionZone(conn, dialect);
+                assertEquals(1, reader.poll(conn, row -> { }), vendor);
+                assertEquals(defaultZone, sessionZone(conn, dialect), vendor);
+
+                execute(conn, dialect.getSetSessionZoneSql(ZoneOffset.ofHours(5)));
+                final String offsetZone = sessionZone(conn, dialect);
+                assertEquals(0, reader.poll(conn, row -> { }), vendor);
+                assertEquals(offsetZone, sessionZone(conn, dialect), vendor);
+
+                assertThrows(SQLException.class, () -> new IncrementalReader("no_such_table", "created_timestamp",
+                        List.of(), ZoneOffset.UTC).poll(conn, row -> { }), vendor);
+                assertEquals(offsetZone, sessionZone(conn, dialect), vendor);
+            }
+        }
+    }
+
+    private static String sessionZone(final Connection conn, final Vendor vendor) throws SQLException {
+        try (final Statement stmt = conn.createStatement();
+             final ResultSet rs = stmt.executeQuery(vendor.getSessionZoneForm().getQuerySql())) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static void execute(final Connection conn, final String sql) throws SQLException {
+        try (final Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package williampuk.timestamp.write;
+
+import org.junit.jupiter.api.Test;
+import williampuk.timestamp.read.StreamingReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncRowWriterTest {
+
+    private static final String TABLE = "async_row_writer_test";
+    private static final StreamingReader READER = new StreamingReader();
+
+    @Test
+    void writesTheCsvHeaderOfAnEmptyResult() throws Exception {
+        try (final Connection conn = DriverManager.getConnection("jdbc:tsemu:postgres:row-writer-test")) {
+            createTable(conn);
+            assertEquals("created_timestamp,remarks\r\n", export(conn, RowFormat.CSV));
+            assertEquals("", export(conn, RowFormat.JSON_LINES));
+
+            try (final PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO " + TABLE + " (created_timestamp, remarks) VALUES (?, ?)")) {
+                ps.setObject(1, LocalDateTime.of(2021, 3, 14, 2, 1, 1));
+                ps.setString(2, "a, \"quoted\" remark");
+                ps.executeUpdate();
+            }
+            assertEquals("created_timestamp,remarks\r\n2021-03-14T02:01:01,\"a, \"\"quoted\"\" remark\"\r\n",
+                    export(conn, RowFormat.CSV));
+        }
+    }
+
+    private static void createTable(final Connection conn) throws SQLException {
+        try (final Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + TABLE);
+            stmt.execute("CREATE TABLE " + TABLE + " (created_timestamp TIMESTAMP NOT NULL, remarks VARCHAR(200) NULL)");
+        }
+    }
+
+    private static String export(final Connection conn, final RowFormat format) throws SQLException, IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final AsyncRowWriter writer = new AsyncRowWriter(Channels.newChannel(out), format)) {
+            READER.read(conn, "SELECT created_timestamp, remarks FROM " + TABLE, ps -> { }, writer::setColumns,
+                    writer);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,15 @@
+#!/bin/sh
+# Runs a probe from the jar the launcher profile builds (mvn -P launcher package) with a class data sharing archive
+# of the classes it loads: the first run records the archive next to the jar, the runs after map it, which saves
+# loading and verifying those classes again. Needs JDK 13 or later; delete the .jsa after a rebuild.
+#
+# Usage: ./launcher.sh oracle|mysql|postgres|all [args], e.g. ./launcher.sh oracle --first-query
+set -e
+module=$1
+shift
+jar="$(dirname "$0")/$module/target/jdbc-timestamp-$module-1.0-SNAPSHOT.jar"
+archive="${jar%.jar}.jsa"
+if [ -f "$archive" ]; then
+    exec java -XX:SharedArchiveFile="$archive" $JAVA_OPTS -jar "$jar" "$@"
+fi
+exec java -XX:ArchiveClassesAtExit="$archive" $JAVA_OPTS -jar "$jar" "$@"
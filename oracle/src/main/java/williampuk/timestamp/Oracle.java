@@ -0,0 +1,57 @@
+package williampuk.timestamp;
+
+import williampuk.timestamp.capture.ColumnarCapture;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dbutils.JdbcMetrics;
+import williampuk.timestamp.dbutils.PooledDbConnSupplier;
+import williampuk.timestamp.dialect.Vendor;
+import williampuk.timestamp.probe.DstSweep;
+import williampuk.timestamp.probe.FirstQuery;
+import williampuk.timestamp.read.ConversionCalibration;
+import williampuk.timestamp.read.IncrementalReader;
+import williampuk.timestamp.write.AsyncRowWriter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+public class Oracle {
+
+    private static final JdbcMetrics METRICS = new JdbcMetrics();
+    private static final PooledDbConnSupplier POOL = new PooledDbConnSupplier(Oracle::getConnection);
+    // Every statement goes through DB, so that its round trips and timestamp conversions are recorded
+    private static final DbConnSupplier DB = METRICS.instrument(POOL);
+    private static final TimestampProbe PROBE = new TimestampProbe(Vendor.ORACLE, DB);
+
+    /**
+     * @param args optionally, the client time zone (Asia/Hong_Kong by default); or {@value DstSweep#MODE} and
+     *             optionally the years to sweep, see {@link DstSweep#fromArgs(String[])}; or {@value
+     *             AsyncRowWriter#EXPORT_MODE} and optionally {@code jsonl} or {@code csv}, to write the table to
+     *             standard output; or {@value ColumnarCapture#MODE}, a file and optionally the client time zone, to
+     *             capture the table as a {@link williampuk.timestamp.capture.Snapshot}; or {@value
+     *             ConversionCalibration#MODE} and optionally a time zone and a number of rows, to calibrate the
+     *             {@link williampuk.timestamp.read.ConversionStrategy}s; or {@value IncrementalReader#MODE} and
+     *             optionally a time zone, to poll the table while a writer in that zone crosses its fall-back hour;
+     *             or {@value FirstQuery#MODE}, to measure the time to the first query's result. With {@code
+     *             -Djdbc.metrics=true}, the {@link JdbcMetrics} are printed at exit.
+     */
+    public static void main(String[] args) {
+        if (Boolean.getBoolean("jdbc.metrics")) {
+            METRICS.dumpAtShutdown(System.out);
+        }
+        try (POOL) {
+            PROBE.run(args);
+        }
+    }
+
+    static Connection getConnection() throws SQLException {
+        final Properties props = new Properties();
+        props.setProperty("user", "oracle");
+        props.setProperty("password", "oracle");
+        // e.g. -Doracle.url=jdbc:tsemu:oracle to run against the in-process emulator
+        final String url = System.getProperty("oracle.url", "jdbc:oracle:thin:@localhost:1521/XEPDB1");
+        return DriverManager.getConnection(url, props);
+    }
+
+}
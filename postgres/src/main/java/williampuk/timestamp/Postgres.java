@@ -0,0 +1,123 @@
+package williampuk.timestamp;
+
+import org.apache.commons.lang3.StringUtils;
+import williampuk.timestamp.capture.ColumnarCapture;
+import williampuk.timestamp.codec.PgBinaryTimestamp;
+import williampuk.timestamp.codec.TimestampCodec;
+import williampuk.timestamp.dbutils.DbConnSupplier;
+import williampuk.timestamp.dbutils.JdbcMetrics;
+import williampuk.timestamp.dbutils.PooledDbConnSupplier;
+import williampuk.timestamp.dialect.Vendor;
+import williampuk.timestamp.probe.DstSweep;
+import williampuk.timestamp.probe.FirstQuery;
+import williampuk.timestamp.read.Columns;
+import williampuk.timestamp.read.ConversionCalibration;
+import williampuk.timestamp.read.IncrementalReader;
+import williampuk.timestamp.read.StreamingReader;
+import williampuk.timestamp.write.AsyncRowWriter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.Properties;
+
+import static java.sql.Types.TIMESTAMP;
+import static williampuk.timestamp.dbutils.DbUtils.withDbConn;
+
+public class Postgres {
+
+    public static final String BINARY_MODE = "--binary";
+    private static final JdbcMetrics METRICS = new JdbcMetrics();
+    private static final PooledDbConnSupplier POOL = new PooledDbConnSupplier(Postgres::getConnection);
+    // Every statement goes through DB, so that its round trips and timestamp conversions are recorded
+    private static final DbConnSupplier DB = METRICS.instrument(POOL);
+    private static final TimestampProbe PROBE = new TimestampProbe(Vendor.POSTGRES, DB);
+
+    /**
+     * @param args optionally, the client time zone (Asia/Hong_Kong by default); or {@value DstSweep#MODE} and
+     *             optionally the years to sweep, see {@link DstSweep#fromArgs(String[])}; or {@value
+     *             AsyncRowWriter#EXPORT_MODE} and optionally {@code jsonl} or {@code csv}, to write the table to
+     *             standard output; or {@value ColumnarCapture#MODE}, a file and optionally the client time zone, to
+     *             capture the table as a {@link williampuk.timestamp.capture.Snapshot}; or {@value #BINARY_MODE} and
+     *             optionally the client time zone, to read the table with binary transfer, see {@link
+     *             #readBinary(DbConnSupplier, ZoneId)}; or {@value ConversionCalibration#MODE} and optionally a time
+     *             zone and a number of rows, to calibrate the {@link williampuk.timestamp.read.ConversionStrategy}s;
+     *             or {@value IncrementalReader#MODE} and optionally a time zone, to poll the table while a writer in
+     *             that zone crosses its fall-back hour; or {@value FirstQuery#MODE}, to measure the time to the first
+     *             query's result. With {@code -Djdbc.metrics=true}, the {@link JdbcMetrics} are printed at exit.
+     */
+    public static void main(String[] args) {
+        if (Boolean.getBoolean("jdbc.metrics")) {
+            METRICS.dumpAtShutdown(System.out);
+        }
+        if (args.length > 0 && BINARY_MODE.equals(args[0])) {
+            final ZoneId clientZone = args.length > 1 ? ZoneId.of(args[1]) : TimestampProbe.HONG_KONG;
+            try (final PooledDbConnSupplier binaryPool = new PooledDbConnSupplier(Postgres::getBinaryConnection)) {
+                final DbConnSupplier binaryDb = METRICS.instrument(binaryPool);
+                final TimestampProbe probe = new TimestampProbe(Vendor.POSTGRES, binaryDb);
+                probe.prepareTable();
+                probe.insertData(clientZone);
+                readBinary(binaryDb, clientZone);
+            }
+            return;
+        }
+        try (POOL) {
+            PROBE.run(args);
+        }
+    }
+
+    /**
+     * Reads the table with the timestamps alone, no {@code CAST(... AS VARCHAR)} copies, decoding each one from the
+     * bytes received with {@link PgBinaryTimestamp} rather than having the driver build a {@code Timestamp}.
+     */
+    private static void readBinary(final DbConnSupplier db, final ZoneId clientZone) {
+        final TimestampCodec clientCodec = TimestampCodec.of(clientZone);
+        withDbConn(db::get, conn -> {
+            final String sql = "SELECT created_timestamp, timestamp_val, remarks FROM " + TimestampProbe.TABLE;
+            new StreamingReader().read(conn, sql, row -> {
+                final Columns columns = row.getColumns();
+                final StringBuilder rowData = new StringBuilder();
+                for (int i = 1; i <= columns.getCount(); i++) {
+                    if (i > 1) {
+                        rowData.append(System.lineSeparator());
+                    }
+                    rowData.append(StringUtils.rightPad(columns.getLabel(i) + ":", 25, ' '));
+                    final byte[] wire = row.getBytes(i);
+                    if (wire != null && columns.getType(i) == TIMESTAMP) {
+                        final long epochMicros = clientCodec.toEpochMicros(PgBinaryTimestamp.decode(wire));
+                        rowData.append('\'').append(clientCodec.format(PgBinaryTimestamp.toTimestamp(epochMicros)))
+                                .append('\'').append(wire.length == PgBinaryTimestamp.LENGTH ? " (binary)" : " (text)");
+                    } else {
+                        rowData.append('\'').append(row.getString(i)).append('\'');
+                    }
+                }
+                System.out.printf("Row #%d:%n%s%n", row.getRowNumber(), rowData);
+            });
+        });
+    }
+
+    static Connection getConnection() throws SQLException {
+        return connect(new Properties());
+    }
+
+    /**
+     * @return a connection on which pgjdbc server-prepares every statement from its first execution and receives
+     * {@code timestamp} and {@code timestamptz} results in binary format
+     */
+    static Connection getBinaryConnection() throws SQLException {
+        final Properties props = new Properties();
+        props.setProperty("prepareThreshold", "-1");
+        props.setProperty("binaryTransferEnable", "TIMESTAMP,TIMESTAMPTZ");
+        return connect(props);
+    }
+
+    private static Connection connect(final Properties props) throws SQLException {
+        props.setProperty("user", "postgres");
+        props.setProperty("password", "postgres");
+        // e.g. -Dpostgres.url=jdbc:tsemu:postgres to run against the in-process emulator
+        final String url = System.getProperty("postgres.url", "jdbc:postgresql://localhost:5432/postgres");
+        return DriverManager.getConnection(url, props);
+    }
+
+}